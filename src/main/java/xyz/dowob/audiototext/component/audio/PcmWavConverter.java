@@ -0,0 +1,210 @@
+package xyz.dowob.audiototext.component.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 在 Java 中直接處理簡單的 PCM WAV 轉換，不需要啟動外部的 FFmpeg 進程
+ * 支援重寫為標準的 44 位元組標頭，以及整數 PCM 的位元數轉換、混合為單聲道與重新採樣
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName PcmWavConverter
+ * @create 2025/4/22
+ * @Version 1.0
+ **/
+public final class PcmWavConverter {
+    /**
+     * 轉換時每次處理的音框數量
+     */
+    private static final int FRAMES_PER_BLOCK = 8192;
+
+    private PcmWavConverter () {
+    }
+
+    /**
+     * 寫入標準的標頭，並以 transferTo 複製音訊資料，用於已經是標準格式但標頭包含額外區塊或長度錯誤的檔案
+     *
+     * @param source 來源檔案
+     * @param header 來源檔案的標頭資訊
+     * @param target 目標檔案
+     *
+     * @throws IOException 讀取或寫入時錯誤
+     */
+    public static void rewriteHeader (File source, WavHeader header, File target) throws IOException {
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(output, header.sampleRate(), header.channels(), header.dataLength());
+            long position = header.dataOffset();
+            long end = header.dataOffset() + header.dataLength();
+            while (position < end) {
+                long transferred = input.transferTo(position, end - position, output);
+                if (transferred <= 0) {
+                    throw new IOException("複製音訊資料時檔案提前結束");
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * 將整數 PCM 轉換為 16 位元，並在目標為單聲道時平均各聲道混合，採樣率不同時以 {@link PolyphaseResampler} 重新採樣
+     *
+     * @param source         來源檔案
+     * @param header         來源檔案的標頭資訊，必須符合 {@link WavHeader#isConvertible(int, int)}
+     * @param target         目標檔案
+     * @param targetRate     目標採樣率
+     * @param targetChannels 目標聲道數量
+     *
+     * @throws IOException 讀取或寫入時錯誤
+     */
+    public static void convert (File source, WavHeader header, File target, int targetRate, int targetChannels) throws IOException {
+        int channels = header.channels();
+        int bytesPerSample = header.bitsPerSample() / 8;
+        boolean downmix = targetChannels == 1 && channels > 1;
+        int outputChannels = downmix ? 1 : channels;
+        long frames = header.dataLength() / header.blockAlign();
+        PolyphaseResampler[] resamplers = null;
+        float[][] resampled = null;
+        if (header.sampleRate() != targetRate) {
+            resamplers = new PolyphaseResampler[outputChannels];
+            resampled = new float[outputChannels][];
+            for (int channel = 0; channel < outputChannels; channel++) {
+                resamplers[channel] = new PolyphaseResampler(header.sampleRate(), targetRate, ResampleKernel.getInstance());
+                resampled[channel] = new float[Math.max(resamplers[channel].maxOutputLength(FRAMES_PER_BLOCK), resamplers[channel].maxFlushLength())];
+            }
+        }
+        float[][] samples = new float[outputChannels][FRAMES_PER_BLOCK];
+        ByteBuffer inputBuffer = ByteBuffer.allocate(FRAMES_PER_BLOCK * header.blockAlign()).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer outputBuffer = ByteBuffer
+                .allocate((resampled == null ? FRAMES_PER_BLOCK : resampled[0].length) * outputChannels * 2)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel input = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(target.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            output.position(WavHeader.CANONICAL_HEADER_SIZE);
+            long dataLength = 0;
+            long position = header.dataOffset();
+            long remaining = frames;
+            while (remaining > 0) {
+                int blockFrames = (int) Math.min(FRAMES_PER_BLOCK, remaining);
+                inputBuffer.clear().limit(blockFrames * header.blockAlign());
+                while (inputBuffer.hasRemaining()) {
+                    if (input.read(inputBuffer, position + inputBuffer.position()) < 0) {
+                        throw new IOException("讀取音訊資料時檔案提前結束");
+                    }
+                }
+                position += inputBuffer.position();
+                int offset = 0;
+                for (int frame = 0; frame < blockFrames; frame++) {
+                    if (downmix) {
+                        float sum = 0;
+                        for (int channel = 0; channel < channels; channel++) {
+                            sum += readSample(inputBuffer, offset, bytesPerSample);
+                            offset += bytesPerSample;
+                        }
+                        samples[0][frame] = sum / channels;
+                    } else {
+                        for (int channel = 0; channel < channels; channel++) {
+                            samples[channel][frame] = readSample(inputBuffer, offset, bytesPerSample);
+                            offset += bytesPerSample;
+                        }
+                    }
+                }
+                if (resamplers == null) {
+                    dataLength += writeFrames(output, outputBuffer, samples, blockFrames);
+                } else {
+                    int outputFrames = 0;
+                    for (int channel = 0; channel < outputChannels; channel++) {
+                        outputFrames = resamplers[channel].process(samples[channel], blockFrames, resampled[channel]);
+                    }
+                    dataLength += writeFrames(output, outputBuffer, resampled, outputFrames);
+                }
+                remaining -= blockFrames;
+            }
+            if (resamplers != null) {
+                int outputFrames = 0;
+                for (int channel = 0; channel < outputChannels; channel++) {
+                    outputFrames = resamplers[channel].flush(resampled[channel]);
+                }
+                dataLength += writeFrames(output, outputBuffer, resampled, outputFrames);
+            }
+            writeHeader(output, targetRate, outputChannels, dataLength);
+        }
+    }
+
+    /**
+     * 將各聲道的浮點樣本交錯並四捨五入為 16 位元寫入檔案，超過範圍的樣本會被截斷
+     *
+     * @param output       目標檔案通道
+     * @param outputBuffer 輸出緩衝區
+     * @param samples      各聲道的樣本
+     * @param frames       音框數量
+     *
+     * @return 寫入的位元組數量
+     *
+     * @throws IOException 寫入時錯誤
+     */
+    private static long writeFrames (FileChannel output, ByteBuffer outputBuffer, float[][] samples, int frames) throws IOException {
+        outputBuffer.clear();
+        for (int frame = 0; frame < frames; frame++) {
+            for (float[] channel : samples) {
+                int value = Math.round(channel[frame]);
+                outputBuffer.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value)));
+            }
+        }
+        outputBuffer.flip();
+        int length = outputBuffer.remaining();
+        while (outputBuffer.hasRemaining()) {
+            output.write(outputBuffer);
+        }
+        return length;
+    }
+
+    /**
+     * 讀取一個樣本並轉換為 16 位元，8 位元 PCM 為無號數，其餘為有號數，較高位元數只保留最高的 16 位元
+     *
+     * @param buffer         緩衝區
+     * @param offset         樣本的位置
+     * @param bytesPerSample 每個樣本的位元組數量
+     *
+     * @return 16 位元的樣本
+     */
+    private static short readSample (ByteBuffer buffer, int offset, int bytesPerSample) {
+        return switch (bytesPerSample) {
+            case 1 -> (short) (((buffer.get(offset) & 0xFF) - 128) << 8);
+            case 2 -> buffer.getShort(offset);
+            case 3 -> (short) ((buffer.get(offset + 1) & 0xFF) | (buffer.get(offset + 2) << 8));
+            default -> buffer.getShort(offset + 2);
+        };
+    }
+
+    /**
+     * 在檔案開頭寫入標準的 16 位元 PCM WAV 標頭
+     *
+     * @param output     目標檔案通道
+     * @param sampleRate 採樣率
+     * @param channels   聲道數量
+     * @param dataLength 音訊資料的長度
+     *
+     * @throws IOException 寫入時錯誤
+     */
+    static void writeHeader (FileChannel output, int sampleRate, int channels, long dataLength) throws IOException {
+        if (dataLength > 0xFFFFFFFFL - 36) {
+            throw new IOException("音訊資料超過 WAV 格式的大小上限");
+        }
+        ByteBuffer header = ByteBuffer.allocate(WavHeader.CANONICAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x46464952).putInt((int) (36 + dataLength)).putInt(0x45564157);
+        header.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) channels).putInt(sampleRate)
+              .putInt(sampleRate * channels * 2).putShort((short) (channels * 2)).putShort((short) 16);
+        header.putInt(0x61746164).putInt((int) dataLength);
+        header.flip();
+        output.position(0);
+        while (header.hasRemaining()) {
+            output.write(header);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package xyz.dowob.audiototext.component.audio;
+
+import java.util.Arrays;
+
+/**
+ * 多相位 (polyphase) 有理數比例重新採樣器，將單聲道的浮點樣本以 up/down 的比例轉換採樣率
+ * 低通濾波器為 Kaiser 窗的 sinc 函數，依照相位拆分為 up 組係數，每個輸出樣本只需要計算一組係數與輸入樣本的內積
+ * 以串流的方式處理，每次輸入一個區塊並保留濾波器所需的歷史樣本，記憶體用量與檔案長度無關
+ * 此類別不是線程安全的，每個轉換應使用獨立的實例
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName PolyphaseResampler
+ * @create 2025/4/23
+ * @Version 1.0
+ **/
+public class PolyphaseResampler {
+    /**
+     * 上採樣或等比例時每個相位的係數數量，下採樣時依照 ceil(down / up) 倍數增加
+     */
+    private static final int TAPS_PER_PHASE = 32;
+
+    /**
+     * Kaiser 窗的 beta 參數，約 80 dB 的阻帶衰減
+     */
+    private static final double KAISER_BETA = 8.0;
+
+    /**
+     * 截止頻率相對於奈奎斯特頻率的比例，保留過渡帶避免混疊
+     */
+    private static final double CUTOFF_RATIO = 0.95;
+
+    /**
+     * 允許的最大相位數量，超過時係數表過大，應改用外部編碼器
+     */
+    public static final int MAX_PHASES = 1024;
+
+    /**
+     * 上採樣倍數
+     */
+    private final int up;
+
+    /**
+     * 下採樣倍數
+     */
+    private final int down;
+
+    /**
+     * 每個相位的係數數量，即每個輸出樣本使用的輸入樣本數量
+     * 下採樣時截止頻率隨 down 降低，係數數量需要同比例增加，過渡帶寬度以輸出採樣率計算時才不會隨比例變寬
+     */
+    private final int tapsPerPhase;
+
+    /**
+     * 各相位的濾波器係數，係數已反轉，可以直接與依時間排序的輸入樣本計算內積
+     */
+    private final float[][] phases;
+
+    /**
+     * 內積運算核心
+     */
+    private final ResampleKernel kernel;
+
+    /**
+     * 濾波器中心在上採樣序列中的位置，用於補償濾波器的群延遲，sinc 與窗函數皆以此位置對稱
+     */
+    private final long center;
+
+    /**
+     * 輸入樣本的緩衝區，包含濾波器所需的歷史樣本
+     */
+    private float[] buffer;
+
+    /**
+     * 緩衝區中的樣本數量
+     */
+    private int buffered;
+
+    /**
+     * 緩衝區第一個樣本在輸入序列中的位置，開始前以零填補歷史樣本，因此為負數
+     */
+    private long bufferStart;
+
+    /**
+     * 已輸入的樣本數量
+     */
+    private long inputCount;
+
+    /**
+     * 下一個輸出樣本的位置
+     */
+    private long outputCount;
+
+    /**
+     * PolyphaseResampler 構造方法，依照輸入與輸出的採樣率計算比例並產生濾波器係數
+     *
+     * @param inputRate  輸入採樣率
+     * @param outputRate 輸出採樣率
+     * @param kernel     內積運算核心
+     */
+    public PolyphaseResampler (int inputRate, int outputRate, ResampleKernel kernel) {
+        if (!isSupported(inputRate, outputRate)) {
+            throw new IllegalArgumentException(String.format("不支援的重新採樣比例: %d -> %d", inputRate, outputRate));
+        }
+        int gcd = gcd(inputRate, outputRate);
+        this.up = outputRate / gcd;
+        this.down = inputRate / gcd;
+        this.kernel = kernel;
+        this.tapsPerPhase = TAPS_PER_PHASE * Math.max(1, Math.ceilDiv(down, up));
+        int length = up * tapsPerPhase;
+        this.center = length / 2;
+        double cutoff = CUTOFF_RATIO * 0.5 / Math.max(up, down);
+        double[] prototype = new double[length];
+        double besselBeta = bessel(KAISER_BETA);
+        for (int m = 0; m < length; m++) {
+            double t = m - center;
+            double sinc = t == 0 ? 1 : Math.sin(2 * Math.PI * cutoff * t) / (2 * Math.PI * cutoff * t);
+            double ratio = t / center;
+            double window = bessel(KAISER_BETA * Math.sqrt(Math.max(0, 1 - ratio * ratio))) / besselBeta;
+            prototype[m] = 2 * cutoff * up * sinc * window;
+        }
+        this.phases = new float[up][tapsPerPhase];
+        for (int p = 0; p < up; p++) {
+            for (int k = 0; k < tapsPerPhase; k++) {
+                phases[p][tapsPerPhase - 1 - k] = (float) prototype[p + k * up];
+            }
+        }
+        this.buffer = new float[tapsPerPhase * 2];
+        this.buffered = tapsPerPhase - 1;
+        this.bufferStart = -(tapsPerPhase - 1);
+    }
+
+    /**
+     * 是否支援指定的重新採樣比例，化簡後的上採樣倍數不可超過 {@link #MAX_PHASES}
+     *
+     * @param inputRate  輸入採樣率
+     * @param outputRate 輸出採樣率
+     *
+     * @return 是否支援
+     */
+    public static boolean isSupported (int inputRate, int outputRate) {
+        return inputRate > 0 && outputRate > 0 && outputRate / gcd(inputRate, outputRate) <= MAX_PHASES;
+    }
+
+    /**
+     * 計算輸入指定數量的樣本後，最多可能產生的輸出樣本數量，用於配置輸出陣列
+     *
+     * @param inputLength 輸入樣本數量
+     *
+     * @return 最多的輸出樣本數量
+     */
+    public int maxOutputLength (int inputLength) {
+        return (int) ((long) inputLength * up / down) + 2;
+    }
+
+    /**
+     * 結束輸入時最多可能產生的輸出樣本數量
+     *
+     * @return 最多的輸出樣本數量
+     */
+    public int maxFlushLength () {
+        return maxOutputLength(tapsPerPhase);
+    }
+
+    /**
+     * 輸入一個區塊的樣本，並產生目前可以計算的輸出樣本
+     *
+     * @param input  輸入樣本
+     * @param length 輸入樣本數量
+     * @param output 輸出陣列，長度至少為 {@link #maxOutputLength(int)}
+     *
+     * @return 產生的輸出樣本數量
+     */
+    public int process (float[] input, int length, float[] output) {
+        ensureCapacity(buffered + length);
+        System.arraycopy(input, 0, buffer, buffered, length);
+        buffered += length;
+        inputCount += length;
+        return drain(output, Long.MAX_VALUE);
+    }
+
+    /**
+     * 結束輸入，以零填補尾端並產生剩餘的輸出樣本，輸出總數為 ceil(輸入總數 * up / down)
+     *
+     * @param output 輸出陣列，長度至少為 {@link #maxFlushLength()}
+     *
+     * @return 產生的輸出樣本數量
+     */
+    public int flush (float[] output) {
+        long totalOutput = Math.ceilDiv(inputCount * up, down);
+        int padding = tapsPerPhase;
+        ensureCapacity(buffered + padding);
+        Arrays.fill(buffer, buffered, buffered + padding, 0);
+        buffered += padding;
+        inputCount += padding;
+        return drain(output, totalOutput);
+    }
+
+    /**
+     * 產生所有輸入樣本已足夠的輸出樣本，並移除之後不再需要的歷史樣本
+     *
+     * @param output 輸出陣列
+     * @param limit  輸出樣本位置的上限
+     *
+     * @return 產生的輸出樣本數量
+     */
+    private int drain (float[] output, long limit) {
+        int written = 0;
+        while (outputCount < limit) {
+            long position = outputCount * down + center;
+            long index = position / up;
+            if (index >= inputCount) {
+                break;
+            }
+            int phase = (int) (position % up);
+            int offset = (int) (index - tapsPerPhase + 1 - bufferStart);
+            output[written++] = kernel.dot(phases[phase], 0, buffer, offset, tapsPerPhase);
+            outputCount++;
+        }
+        long nextIndex = (outputCount * down + center) / up;
+        int discard = (int) Math.min(buffered, Math.max(0, nextIndex - tapsPerPhase + 1 - bufferStart));
+        if (discard > 0) {
+            System.arraycopy(buffer, discard, buffer, 0, buffered - discard);
+            buffered -= discard;
+            bufferStart += discard;
+        }
+        return written;
+    }
+
+    /**
+     * 確保緩衝區的容量
+     *
+     * @param capacity 需要的容量
+     */
+    private void ensureCapacity (int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+
+    /**
+     * 第一類修正貝索函數 I0，用於計算 Kaiser 窗
+     *
+     * @param x 參數
+     *
+     * @return I0(x)
+     */
+    private static double bessel (double x) {
+        double sum = 1;
+        double term = 1;
+        double half = x / 2;
+        for (int k = 1; k < 50; k++) {
+            term *= (half / k) * (half / k);
+            sum += term;
+            if (term < sum * 1e-12) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 計算最大公因數
+     *
+     * @param a 第一個數
+     * @param b 第二個數
+     *
+     * @return 最大公因數
+     */
+    private static int gcd (int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,73 @@
+package xyz.dowob.audiototext.component.audio;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * 重新採樣時使用的運算核心，負責濾波器係數與音訊樣本的內積，為重新採樣中最主要的運算
+ * 執行環境載入 jdk.incubator.vector 模組時使用 SIMD 向量運算，否則使用純量運算
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName ResampleKernel
+ * @create 2025/4/23
+ * @Version 1.0
+ **/
+public interface ResampleKernel {
+    /**
+     * 計算兩個陣列區段的內積
+     *
+     * @param a       第一個陣列
+     * @param aOffset 第一個陣列的起點
+     * @param b       第二個陣列
+     * @param bOffset 第二個陣列的起點
+     * @param length  長度
+     *
+     * @return 內積
+     */
+    float dot (float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * 取得運算核心的名稱
+     *
+     * @return 名稱
+     */
+    String getName ();
+
+    /**
+     * 取得目前執行環境可用的運算核心，結果只在第一次呼叫時決定
+     *
+     * @return 運算核心
+     */
+    static ResampleKernel getInstance () {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 延遲初始化運算核心，只有在 jdk.incubator.vector 模組存在時才載入向量運算的類別，避免在沒有模組的環境中發生 NoClassDefFoundError
+     */
+    @Log4j2
+    final class Holder {
+        private static final ResampleKernel INSTANCE = create();
+
+        private Holder () {
+        }
+
+        private static ResampleKernel create () {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    ResampleKernel kernel = (ResampleKernel) Class
+                            .forName("xyz.dowob.audiototext.component.audio.VectorResampleKernel")
+                            .getDeclaredConstructor()
+                            .newInstance();
+                    log.info("重新採樣使用向量運算核心: {}", kernel.getName());
+                    return kernel;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    log.warn("無法載入向量運算核心，改用純量運算: ", e);
+                }
+            } else {
+                log.info("未載入 jdk.incubator.vector 模組，重新採樣使用純量運算");
+            }
+            return new ScalarResampleKernel();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package xyz.dowob.audiototext.component.audio;
+
+/**
+ * 純量運算的重新採樣核心，在沒有 jdk.incubator.vector 模組的環境中使用
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName ScalarResampleKernel
+ * @create 2025/4/23
+ * @Version 1.0
+ **/
+public class ScalarResampleKernel implements ResampleKernel {
+    @Override
+    public float dot (float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName () {
+        return "scalar";
+    }
+}
@@ -0,0 +1,44 @@
+package xyz.dowob.audiototext.component.audio;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 使用 Vector API 的重新採樣核心，以平台偏好的向量寬度進行乘加運算
+ * 此類別只能經由 {@link ResampleKernel#getInstance()} 在確認 jdk.incubator.vector 模組存在後載入
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName VectorResampleKernel
+ * @create 2025/4/23
+ * @Version 1.0
+ **/
+public class VectorResampleKernel implements ResampleKernel {
+    /**
+     * 平台偏好的向量寬度
+     */
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot (float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector accumulator = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            accumulator = va.fma(vb, accumulator);
+        }
+        float sum = accumulator.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String getName () {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
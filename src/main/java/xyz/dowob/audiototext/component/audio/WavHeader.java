@@ -0,0 +1,181 @@
+package xyz.dowob.audiototext.component.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+
+/**
+ * WAV 檔案的標頭資訊，只讀取 RIFF 標頭中的 fmt 與 data 區塊，不讀取任何音訊資料
+ * 用於在轉換音檔前快速判斷上傳的檔案是否已經是標準格式，或只需要簡單的 PCM 轉換
+ *
+ * @param formatTag     音訊格式代碼，1 為 PCM，0xFFFE 為 WAVE_FORMAT_EXTENSIBLE
+ * @param pcm           音訊資料是否為整數 PCM，WAVE_FORMAT_EXTENSIBLE 時依照子格式判斷
+ * @param channels      聲道數量
+ * @param sampleRate    採樣率，單位為Hz
+ * @param bitsPerSample 每個樣本的位元數
+ * @param blockAlign    每個音框的位元組數量
+ * @param dataOffset    音訊資料在檔案中的起點
+ * @param dataLength    音訊資料的長度，已依照檔案實際大小修正並對齊音框
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName WavHeader
+ * @create 2025/4/22
+ * @Version 1.0
+ **/
+public record WavHeader(int formatTag, boolean pcm, int channels, int sampleRate, int bitsPerSample, int blockAlign, long dataOffset,
+                        long dataLength) {
+    /**
+     * 標準 WAV 標頭的長度，只包含 RIFF、fmt 與 data 區塊
+     */
+    public static final int CANONICAL_HEADER_SIZE = 44;
+
+    /**
+     * PCM 的格式代碼
+     */
+    private static final int WAVE_FORMAT_PCM = 1;
+
+    /**
+     * WAVE_FORMAT_EXTENSIBLE 的格式代碼，實際格式由子格式 GUID 的前兩個位元組決定
+     */
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    /**
+     * 串流寫入時未知長度的 data 區塊大小
+     */
+    private static final long UNKNOWN_DATA_SIZE = 0xFFFFFFFFL;
+
+    /**
+     * 讀取標頭時最多檢查的區塊數量，避免損壞的檔案造成過多的讀取
+     */
+    private static final int MAX_CHUNKS = 64;
+
+    /**
+     * 讀取檔案的 RIFF 標頭，依序檢查區塊直到找到 data 區塊為止
+     * 不是 WAV 檔案、標頭損壞或缺少 fmt、data 區塊時返回空值
+     * 串流寫入的檔案在結束前不知道長度，data 區塊的長度為 0 或 0xFFFFFFFF，此時與超過檔案結尾的長度相同，視為延伸至檔案結尾
+     *
+     * @param file 音訊檔案
+     *
+     * @return WAV 標頭資訊
+     */
+    public static Optional<WavHeader> probe (File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            long fileLength = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            if (read(channel, buffer, 0, 12) < 12 || buffer.getInt(0) != 0x46464952 || buffer.getInt(8) != 0x45564157) {
+                return Optional.empty();
+            }
+            long position = 12;
+            int formatTag = -1, channels = 0, sampleRate = 0, bitsPerSample = 0, blockAlign = 0;
+            boolean pcm = false;
+            for (int i = 0; i < MAX_CHUNKS && position + 8 <= fileLength; i++) {
+                if (read(channel, buffer, position, 8) < 8) {
+                    return Optional.empty();
+                }
+                int chunkId = buffer.getInt(0);
+                long chunkSize = Integer.toUnsignedLong(buffer.getInt(4));
+                long body = position + 8;
+                if (chunkId == 0x20746d66) {
+                    int length = (int) Math.min(chunkSize, 40);
+                    if (length < 16 || read(channel, buffer, body, length) < length) {
+                        return Optional.empty();
+                    }
+                    formatTag = Short.toUnsignedInt(buffer.getShort(0));
+                    channels = Short.toUnsignedInt(buffer.getShort(2));
+                    sampleRate = buffer.getInt(4);
+                    blockAlign = Short.toUnsignedInt(buffer.getShort(12));
+                    bitsPerSample = Short.toUnsignedInt(buffer.getShort(14));
+                    pcm = formatTag == WAVE_FORMAT_PCM || (formatTag == WAVE_FORMAT_EXTENSIBLE && length >= 26 && buffer.getShort(24) == WAVE_FORMAT_PCM);
+                } else if (chunkId == 0x61746164) {
+                    if (formatTag < 0 || channels == 0 || blockAlign == 0 || sampleRate <= 0) {
+                        return Optional.empty();
+                    }
+                    long available = fileLength - body;
+                    long dataLength = chunkSize == 0 || chunkSize == UNKNOWN_DATA_SIZE || chunkSize > available ? available : chunkSize;
+                    dataLength -= dataLength % blockAlign;
+                    return Optional.of(new WavHeader(formatTag, pcm, channels, sampleRate, bitsPerSample, blockAlign, body, dataLength));
+                }
+                position = body + chunkSize + (chunkSize & 1);
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 是否為指定格式的 16 位元 PCM
+     *
+     * @param sampleRate 採樣率
+     * @param channels   聲道數量
+     *
+     * @return 是否符合
+     */
+    public boolean isPcm16 (int sampleRate, int channels) {
+        return pcm && bitsPerSample == 16 && blockAlign == 2 * channels && this.sampleRate == sampleRate && this.channels == channels;
+    }
+
+    /**
+     * 是否可以在 Java 中直接轉換為指定格式，即位元數為 8/16/24/32 的整數 PCM
+     * 聲道數量相同，或目標為單聲道時可以平均各聲道混合，採樣率不同時需要 {@link PolyphaseResampler} 支援該比例
+     *
+     * @param sampleRate 目標採樣率
+     * @param channels   目標聲道數量
+     *
+     * @return 是否可以直接轉換
+     */
+    public boolean isConvertible (int sampleRate, int channels) {
+        boolean supportedBits = bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32;
+        return pcm && supportedBits && blockAlign == bitsPerSample / 8 * this.channels && PolyphaseResampler.isSupported(this.sampleRate, sampleRate)
+               && (this.channels == channels || channels == 1);
+    }
+
+    /**
+     * 是否為標準的 WAV 標頭，即 PCM 格式、音訊資料緊接在 44 位元組的標頭之後並延伸至檔案結尾
+     * 標準標頭的檔案可以直接被 Java Sound 讀取，不需要重新寫入
+     *
+     * @param fileLength 檔案大小
+     *
+     * @return 是否為標準標頭
+     */
+    public boolean isCanonical (long fileLength) {
+        return formatTag == WAVE_FORMAT_PCM && dataOffset == CANONICAL_HEADER_SIZE && dataOffset + dataLength == fileLength;
+    }
+
+    /**
+     * 取得整數 PCM 音訊資料的編碼名稱，與 FFmpeg 的命名相同
+     * WAV 的 8 位元 PCM 為無號數，其餘位元數為有號的小端序
+     *
+     * @return 編碼名稱，例如 pcm_u8、pcm_s16le
+     */
+    public String codecName () {
+        return bitsPerSample == 8 ? "pcm_u8" : String.format("pcm_s%dle", bitsPerSample);
+    }
+
+    /**
+     * 從檔案的指定位置讀取內容至緩衝區的開頭
+     *
+     * @param channel  檔案通道
+     * @param buffer   緩衝區
+     * @param position 讀取的起點
+     * @param length   讀取的長度
+     *
+     * @return 實際讀取的長度
+     *
+     * @throws IOException 讀取時錯誤
+     */
+    private static int read (FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+}
@@ -0,0 +1,93 @@
+package xyz.dowob.audiototext.component.codec;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 使用 JDK 內建的 Deflater 壓縮任務結果
+ * 轉譯結果為重複性高的 JSON 文字，壓縮後通常只剩原本的一小部分
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName DeflatePayloadCodec
+ * @create 2025/4/14
+ * @Version 1.0
+ **/
+@Component
+public class DeflatePayloadCodec implements PayloadCodec {
+    /**
+     * 壓縮及還原時使用的緩衝區大小
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 取得編碼方式的名稱
+     *
+     * @return deflate
+     */
+    @Override
+    public String getName () {
+        return "deflate";
+    }
+
+    /**
+     * 使用 Deflater 壓縮內容
+     *
+     * @param data 原始內容
+     *
+     * @return 壓縮後的內容
+     */
+    @Override
+    public byte[] encode (byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 使用 Inflater 還原內容
+     *
+     * @param data 壓縮後的內容
+     *
+     * @return 原始內容
+     *
+     * @throws IOException 壓縮內容損毀時拋出
+     */
+    @Override
+    public byte[] decode (byte[] data) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("壓縮內容不完整");
+                }
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("壓縮內容格式錯誤", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package xyz.dowob.audiototext.component.codec;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 不壓縮任務結果，直接保存原始內容
+ * 用於關閉壓縮，或是需要直接在資料庫中查看結果時使用
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName NonePayloadCodec
+ * @create 2025/4/14
+ * @Version 1.0
+ **/
+@Component
+public class NonePayloadCodec implements PayloadCodec {
+    /**
+     * 取得編碼方式的名稱
+     *
+     * @return none
+     */
+    @Override
+    public String getName () {
+        return "none";
+    }
+
+    /**
+     * 直接返回原始內容
+     *
+     * @param data 原始內容
+     *
+     * @return 原始內容
+     */
+    @Override
+    public byte[] encode (byte[] data) {
+        return data;
+    }
+
+    /**
+     * 直接返回原始內容
+     *
+     * @param data 原始內容
+     *
+     * @return 原始內容
+     */
+    @Override
+    public byte[] decode (byte[] data) {
+        return data;
+    }
+}
@@ -0,0 +1,44 @@
+package xyz.dowob.audiototext.component.codec;
+
+import java.io.IOException;
+
+/**
+ * 任務結果的編碼方式，用於在保存任務結果前壓縮內容，並在讀取時還原
+ * 每一種編碼方式以名稱識別，名稱會與結果一起保存，讀取時依照保存的名稱選擇對應的編碼方式
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName PayloadCodec
+ * @create 2025/4/14
+ * @Version 1.0
+ **/
+public interface PayloadCodec {
+    /**
+     * 取得編碼方式的名稱，會保存於資料庫中作為標記，因此不可變更
+     *
+     * @return 編碼方式的名稱
+     */
+    String getName ();
+
+    /**
+     * 將原始內容編碼
+     *
+     * @param data 原始內容
+     *
+     * @return 編碼後的內容
+     *
+     * @throws IOException 編碼時錯誤
+     */
+    byte[] encode (byte[] data) throws IOException;
+
+    /**
+     * 將編碼後的內容還原
+     *
+     * @param data 編碼後的內容
+     *
+     * @return 原始內容
+     *
+     * @throws IOException 還原時錯誤
+     */
+    byte[] decode (byte[] data) throws IOException;
+}
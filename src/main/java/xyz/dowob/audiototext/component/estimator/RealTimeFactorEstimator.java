@@ -0,0 +1,110 @@
+package xyz.dowob.audiototext.component.estimator;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轉譯即時率 (real-time factor) 估計器，即時率為處理耗時除以音檔長度，小於 1 代表處理速度快於播放速度
+ * 以指數移動平均保存近期已完成任務的即時率，用於任務開始前預估處理時間
+ * 任務進行中則優先使用該任務自身觀察到的即時率，並依照已處理的比例逐漸取代移動平均
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName RealTimeFactorEstimator
+ * @create 2025/4/24
+ * @Version 1.0
+ **/
+@Component
+public class RealTimeFactorEstimator {
+    /**
+     * 指數移動平均的權重，每個完成的任務佔新平均值的比例
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * 尚未有任何完成任務時使用的即時率
+     */
+    private static final double INITIAL_FACTOR = 0.5;
+
+    /**
+     * 目前的即時率移動平均，以 double 的位元保存以便原子更新
+     */
+    private final AtomicLong averageFactorBits = new AtomicLong(Double.doubleToLongBits(INITIAL_FACTOR));
+
+    /**
+     * 每個任務的即時率分佈
+     */
+    private final DistributionSummary factorSummary;
+
+    /**
+     * RealTimeFactorEstimator 構造方法，並註冊即時率相關的指標
+     *
+     * @param meterRegistry 指標註冊器
+     */
+    public RealTimeFactorEstimator (MeterRegistry meterRegistry) {
+        Gauge.builder("task.transcription.realtime.factor.average", this, RealTimeFactorEstimator::getAverageFactor)
+             .description("近期轉譯任務的即時率移動平均")
+             .register(meterRegistry);
+        this.factorSummary = DistributionSummary.builder("task.transcription.realtime.factor").description("轉譯任務的即時率").register(meterRegistry);
+    }
+
+    /**
+     * 記錄一個已完成任務的即時率，並更新移動平均
+     *
+     * @param audioMillis  已處理的音檔長度，單位為毫秒
+     * @param elapsedNanos 處理耗時，單位為奈秒
+     */
+    public void record (long audioMillis, long elapsedNanos) {
+        if (audioMillis <= 0) {
+            return;
+        }
+        double factor = elapsedNanos / 1e6 / audioMillis;
+        factorSummary.record(factor);
+        averageFactorBits.getAndUpdate(bits -> Double.doubleToLongBits((1 - SMOOTHING) * Double.longBitsToDouble(bits) + SMOOTHING * factor));
+    }
+
+    /**
+     * 取得目前的即時率移動平均
+     *
+     * @return 即時率
+     */
+    public double getAverageFactor () {
+        return Double.longBitsToDouble(averageFactorBits.get());
+    }
+
+    /**
+     * 任務開始前，依照移動平均預估處理時間
+     *
+     * @param durationMillis 音檔長度，單位為毫秒
+     *
+     * @return 預估處理時間，單位為毫秒，音檔長度未知時為 -1
+     */
+    public long estimate (long durationMillis) {
+        return durationMillis <= 0 ? -1 : Math.round(durationMillis * getAverageFactor());
+    }
+
+    /**
+     * 任務進行中，依照已處理的比例混合任務自身的即時率與移動平均，預估剩餘處理時間
+     * 剛開始處理時自身的即時率受模型載入等因素影響較大，因此以已處理的比例作為權重逐漸取代移動平均
+     *
+     * @param durationMillis  音檔長度，單位為毫秒
+     * @param processedMillis 已處理的音檔長度，單位為毫秒
+     * @param elapsedNanos    已經過的處理時間，單位為奈秒
+     *
+     * @return 預估的剩餘處理時間，單位為毫秒，音檔長度未知時為 -1
+     */
+    public long estimateRemaining (long durationMillis, long processedMillis, long elapsedNanos) {
+        if (durationMillis <= 0) {
+            return -1;
+        }
+        long remainingMillis = Math.max(0, durationMillis - processedMillis);
+        double weight = Math.min(1, (double) processedMillis / durationMillis);
+        double observed = processedMillis > 0 ? elapsedNanos / 1e6 / processedMillis : getAverageFactor();
+        double factor = weight * observed + (1 - weight) * getAverageFactor();
+        return Math.round(remainingMillis * factor);
+    }
+}
@@ -70,7 +70,7 @@ public class DocxWriter implements FileWriter {
      */
     @Override
     public File outputToFile (String result, String taskId) throws IOException {
-        Path outputPath = Path.of(audioProperties.getPath().getOutputDirectory(), String.format("%s_output.docx", taskId));
+        Path outputPath = FileWriter.resolveOutputPath(audioProperties.getPath().getOutputDirectory(), taskId, getType());
 
         try (XWPFDocument document = new XWPFDocument(); FileOutputStream out = new FileOutputStream(outputPath.toFile())) {
 
@@ -4,6 +4,8 @@ import xyz.dowob.audiototext.type.OutputType;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * 將處理後的文字內容輸出到檔案
@@ -33,4 +35,22 @@ public interface FileWriter {
      * @throws IOException 檔案寫入時錯誤
      */
     File outputToFile (String result, String taskId) throws IOException;
+
+    /**
+     * 取得任務的輸出檔案路徑，每個任務的輸出檔案保存於以任務 ID 命名的資料夾中
+     * 格式為 輸出資料夾/任務ID/任務ID_output.副檔名，資料夾不存在時會自動建立
+     * 清理過期檔案時可以直接刪除任務的資料夾，不需要掃描整個輸出資料夾
+     *
+     * @param outputDirectory 輸出資料夾
+     * @param taskId          任務ID
+     * @param type            輸出類型
+     *
+     * @return 輸出檔案路徑
+     *
+     * @throws IOException 建立資料夾時錯誤
+     */
+    static Path resolveOutputPath (String outputDirectory, String taskId, OutputType type) throws IOException {
+        Path taskDirectory = Files.createDirectories(Path.of(outputDirectory, taskId));
+        return taskDirectory.resolve(String.format("%s_output.%s", taskId, type.getType()));
+    }
 }
@@ -80,7 +80,7 @@ public class PdfWriter implements FileWriter {
      */
     public File outputToFile (String result, String taskId) throws IOException {
         Document document = new Document();
-        Path outputPath = Path.of(audioProperties.getPath().getOutputDirectory(), String.format("%s_output.pdf", taskId));
+        Path outputPath = FileWriter.resolveOutputPath(audioProperties.getPath().getOutputDirectory(), taskId, getType());
         try (OutputStream ops = new FileOutputStream(outputPath.toFile())) {
             com.itextpdf.text.pdf.PdfWriter.getInstance(document, ops);
             document.open();
@@ -52,7 +52,7 @@ public class TxtWriter implements FileWriter {
      */
     @Override
     public File outputToFile (String result, String taskId) throws IOException {
-        Path outputPath = Path.of(audioProperties.getPath().getOutputDirectory(), String.format("%s_output.txt", taskId));
+        Path outputPath = FileWriter.resolveOutputPath(audioProperties.getPath().getOutputDirectory(), taskId, getType());
         try (BufferedWriter writer = new BufferedWriter(new java.io.FileWriter(outputPath.toFile()))) {
             JsonNode rootNode = objectMapper.readTree(result);
 
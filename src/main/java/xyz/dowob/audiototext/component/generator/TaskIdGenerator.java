@@ -0,0 +1,64 @@
+package xyz.dowob.audiototext.component.generator;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任務 ID 產生器，產生依照時間排序的 UUID 第 7 版 (RFC 9562)
+ * 前 48 位元為毫秒時間戳，之後的 12 位元作為同一毫秒內的遞增序號，其餘 62 位元為安全亂數
+ * 新任務的 ID 會依序寫入索引的尾端，避免隨機 UUID 造成 B-tree 頁面分裂，同時保留足夠的亂數避免 ID 被猜測
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskIdGenerator
+ * @create 2025/4/15
+ * @Version 1.0
+ **/
+@Component
+public class TaskIdGenerator {
+    /**
+     * 序號所佔的位元數
+     */
+    private static final int SEQUENCE_BITS = 12;
+
+    /**
+     * 安全亂數產生器，用於產生 UUID 的亂數部分
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 上一次產生的時間戳與序號，格式為 (毫秒時間戳 << 12) | 序號
+     * 同一毫秒內序號遞增，序號用盡時借用下一毫秒，確保產生的 ID 嚴格遞增
+     */
+    private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+    /**
+     * 產生新的任務 ID
+     *
+     * @return 任務 ID 字串
+     */
+    public String nextId () {
+        return nextUuid().toString();
+    }
+
+    /**
+     * 產生新的 UUID 第 7 版
+     *
+     * @return UUID
+     */
+    public UUID nextUuid () {
+        long timestampAndSequence = lastTimestampAndSequence.updateAndGet(last -> {
+            long candidate = System.currentTimeMillis() << SEQUENCE_BITS;
+            return candidate > last ? candidate : last + 1;
+        });
+        long timestamp = timestampAndSequence >>> SEQUENCE_BITS;
+        long sequence = timestampAndSequence & ((1L << SEQUENCE_BITS) - 1);
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | sequence;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
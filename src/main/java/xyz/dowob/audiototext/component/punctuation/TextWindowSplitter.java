@@ -0,0 +1,97 @@
+package xyz.dowob.audiototext.component.punctuation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 將長文本依照單字切分為互相重疊的文字視窗，以便平行進行標點符號恢復，並在完成後依照重疊部分拼接結果
+ * 每個視窗只保留遠離兩端的單字，重疊部分的前半段取自前一個視窗、後半段取自後一個視窗，使每個保留的單字兩側皆有上下文
+ * 標點符號恢復只會在單字後方加上標點或改變大小寫，不會增減單字，因此可以依照單字的位置拼接結果
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TextWindowSplitter
+ * @create 2025/4/26
+ * @Version 1.0
+ **/
+public final class TextWindowSplitter {
+    /**
+     * 相鄰視窗最少重疊的單字數量，使每個視窗至少捨棄開頭一個單字 (模型必定將其大寫) 以及結尾一個單字 (沒有右側的上下文)
+     */
+    public static final int MIN_OVERLAP = 2;
+
+    private TextWindowSplitter () {
+    }
+
+    /**
+     * 將文本切分為文字視窗，文本的單字數量不超過視窗大小時只會產生一個視窗
+     *
+     * @param text       文本
+     * @param windowSize 每個視窗的最大單字數量
+     * @param overlap    相鄰視窗重疊的單字數量，必須介於 {@link #MIN_OVERLAP} 與視窗大小之間
+     *
+     * @return 文字視窗列表，依照在文本中的順序排列
+     */
+    public static List<Window> split (String text, int windowSize, int overlap) {
+        if (overlap < MIN_OVERLAP || overlap >= windowSize) {
+            throw new IllegalArgumentException(String.format("視窗重疊的單字數量必須介於 %d 與視窗大小之間: %d/%d", MIN_OVERLAP, overlap, windowSize));
+        }
+        String[] words = text.trim().split("\\s+");
+        if (words.length <= windowSize) {
+            return List.of(new Window(text, words.length, 0, words.length));
+        }
+        int step = windowSize - overlap;
+        int head = overlap / 2;
+        List<Window> windowList = new ArrayList<>();
+        for (int start = 0; ; start += step) {
+            int end = Math.min(words.length, start + windowSize);
+            boolean first = start == 0;
+            boolean last = end == words.length;
+            int keepFrom = first ? 0 : head;
+            int keepTo = last ? end - start : windowSize - (overlap - head);
+            windowList.add(new Window(String.join(" ", List.of(words).subList(start, end)), end - start, keepFrom, keepTo));
+            if (last) {
+                return windowList;
+            }
+        }
+    }
+
+    /**
+     * 拼接各視窗的標點符號恢復結果，每個視窗只取保留範圍內的單字
+     * 結果的單字數量與視窗不同時 (例如模型移除了只由符號組成的單字)，保留範圍會被限制在結果的長度內
+     *
+     * @param windowList 文字視窗列表
+     * @param resultList 各視窗的標點符號恢復結果，順序與視窗列表相同
+     *
+     * @return 拼接後的文本
+     */
+    public static String stitch (List<Window> windowList, List<String> resultList) {
+        if (windowList.size() == 1) {
+            return resultList.getFirst();
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < windowList.size(); i++) {
+            Window window = windowList.get(i);
+            String[] tokens = resultList.get(i).trim().split("\\s+");
+            int to = Math.min(tokens.length, window.keepTo());
+            for (int j = Math.min(window.keepFrom(), to); j < to; j++) {
+                if (!builder.isEmpty()) {
+                    builder.append(' ');
+                }
+                builder.append(tokens[j]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 文字視窗
+     *
+     * @param text      視窗的文本
+     * @param wordCount 視窗的單字數量
+     * @param keepFrom  拼接時保留的第一個單字在視窗中的位置
+     * @param keepTo    拼接時保留的最後一個單字在視窗中的下一個位置
+     */
+    public record Window(String text, int wordCount, int keepFrom, int keepTo) {
+    }
+}
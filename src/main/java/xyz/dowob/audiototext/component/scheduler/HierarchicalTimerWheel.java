@@ -0,0 +1,281 @@
+package xyz.dowob.audiototext.component.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 階層式時間輪，用於在記憶體中排程大量的到期事件
+ * 共有 4 層，每層 64 格，第 0 層每格為一個刻度，往上每層每格涵蓋下一層的整圈
+ * 以 1 秒為刻度時，第 0 層涵蓋 64 秒，第 3 層涵蓋約 194 天，超過的事件暫存於溢出列表，並在最高層輪轉時重新放入
+ * 排程以及推進的成本與事件總數無關，每個刻度只處理到期的格子，高層的格子在輪轉時才會下放至低層
+ * 同一個事件內容只會保留最後一次排程，取消的事件僅標記為已取消，在下放或到期時才從格子中移除
+ * 此類別的方法皆為同步方法，可由多個線程排程，並由單一線程推進
+ *
+ * @param <T> 事件內容的類型
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName HierarchicalTimerWheel
+ * @create 2025/4/19
+ * @Version 1.0
+ **/
+public class HierarchicalTimerWheel<T> {
+    /**
+     * 每層格數的位元數
+     */
+    private static final int WHEEL_BITS = 6;
+
+    /**
+     * 每層的格數
+     */
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    /**
+     * 格子索引的遮罩
+     */
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * 時間輪的層數
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * 每個刻度的毫秒數
+     */
+    private final long tickMillis;
+
+    /**
+     * 各層的格子，每個格子保存該格到期的事件
+     */
+    private final List<List<Entry<T>>> slots = new ArrayList<>(LEVELS * WHEEL_SIZE);
+
+    /**
+     * 超過最高層範圍的事件
+     */
+    private List<Entry<T>> overflow = new ArrayList<>();
+
+    /**
+     * 已到期但尚未被取出的事件，例如排程時到期時間已經過去，或下放時剛好到期的事件
+     */
+    private final List<Entry<T>> due = new ArrayList<>();
+
+    /**
+     * 事件內容與尚未到期的事件對應，用於取消以及重新排程
+     */
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+
+    /**
+     * 目前已推進到的刻度
+     */
+    private long currentTick;
+
+    /**
+     * 時間輪中尚未取消的事件數量
+     */
+    private int size;
+
+    /**
+     * HierarchicalTimerWheel 構造方法
+     *
+     * @param tickMillis  每個刻度的毫秒數
+     * @param startMillis 起始時間，單位為毫秒
+     */
+    public HierarchicalTimerWheel (long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("刻度必須大於 0");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * WHEEL_SIZE; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 排程一個事件，到期時間以刻度為單位無條件進位，若事件已經排程則以新的到期時間取代
+     *
+     * @param item           事件內容
+     * @param deadlineMillis 到期時間，單位為毫秒
+     */
+    public synchronized void schedule (T item, long deadlineMillis) {
+        long deadlineTick = Math.ceilDiv(deadlineMillis, tickMillis);
+        Entry<T> entry = new Entry<>(item, deadlineTick);
+        Entry<T> previous = entries.put(item, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        } else {
+            size++;
+        }
+        place(entry);
+    }
+
+    /**
+     * 取消尚未到期的事件
+     *
+     * @param item 事件內容
+     *
+     * @return 事件是否存在並已取消
+     */
+    public synchronized boolean cancel (T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        size--;
+        return true;
+    }
+
+    /**
+     * 推進時間輪至指定時間，並取出所有已到期的事件
+     *
+     * @param nowMillis 目前時間，單位為毫秒
+     *
+     * @return 已到期的事件列表
+     */
+    public synchronized List<T> advance (long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Entry<T>> expired = new ArrayList<>(due);
+        due.clear();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Entry<T>> slot = slots.get(slotIndex(0, currentTick));
+            if (!slot.isEmpty()) {
+                expired.addAll(slot);
+                slot.clear();
+            }
+            if (!due.isEmpty()) {
+                expired.addAll(due);
+                due.clear();
+            }
+        }
+        List<T> items = new ArrayList<>(expired.size());
+        for (Entry<T> entry : expired) {
+            if (!entry.cancelled) {
+                entries.remove(entry.item);
+                items.add(entry.item);
+            }
+        }
+        size -= items.size();
+        return items;
+    }
+
+    /**
+     * 取得時間輪中的事件數量
+     *
+     * @return 事件數量
+     */
+    public synchronized int size () {
+        return size;
+    }
+
+    /**
+     * 清空時間輪中的所有事件
+     */
+    public synchronized void clear () {
+        slots.forEach(List::clear);
+        overflow.clear();
+        due.clear();
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * 將事件放入對應的層與格子
+     * 到期時間與目前刻度在第 n 層以上的位元皆相同時，放入第 n 層，確保該層輪轉到此格之前不會錯過
+     *
+     * @param entry 事件
+     */
+    private void place (Entry<T> entry) {
+        if (entry.cancelled) {
+            return;
+        }
+        long deadlineTick = entry.deadlineTick;
+        if (deadlineTick <= currentTick) {
+            due.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                slots.get(slotIndex(level, deadlineTick)).add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    /**
+     * 當目前刻度跨越高層的格子邊界時，將高層對應格子中的事件重新放入較低的層
+     * 由最高層開始處理，確保下放的事件能在同一個刻度內繼續下放
+     */
+    private void cascade () {
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Entry<T>> entries = overflow;
+            overflow = new ArrayList<>();
+            entries.forEach(this::place);
+        }
+        int highestLevel = 0;
+        while (highestLevel + 1 < LEVELS && (currentTick & ((1L << (WHEEL_BITS * (highestLevel + 1))) - 1)) == 0) {
+            highestLevel++;
+        }
+        for (int level = highestLevel; level >= 1; level--) {
+            List<Entry<T>> slot = slots.get(slotIndex(level, currentTick));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Entry<T>> entries = new ArrayList<>(slot);
+            slot.clear();
+            entries.forEach(this::place);
+        }
+    }
+
+    /**
+     * 計算指定層與刻度對應的格子索引
+     *
+     * @param level 層
+     * @param tick  刻度
+     *
+     * @return 格子索引
+     */
+    private int slotIndex (int level, long tick) {
+        return level * WHEEL_SIZE + (int) ((tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+    }
+
+    /**
+     * 時間輪中的事件
+     *
+     * @param <T> 事件內容的類型
+     */
+    private static final class Entry<T> {
+        /**
+         * 事件內容
+         */
+        private final T item;
+
+        /**
+         * 到期刻度
+         */
+        private final long deadlineTick;
+
+        /**
+         * 事件是否已被取消或重新排程
+         */
+        private boolean cancelled;
+
+        /**
+         * Entry 構造方法
+         *
+         * @param item         事件內容
+         * @param deadlineTick 到期刻度
+         */
+        private Entry (T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
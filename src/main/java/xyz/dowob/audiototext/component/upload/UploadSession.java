@@ -0,0 +1,277 @@
+package xyz.dowob.audiototext.component.upload;
+
+import lombok.Getter;
+import xyz.dowob.audiototext.type.ModelType;
+import xyz.dowob.audiototext.type.OutputType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 可續傳的分段上傳，保存上傳的目標檔案以及已接收的位元組範圍
+ * 建立時預先配置完整大小的檔案，每個分段以位置寫入的方式直接寫入檔案中對應的位置，因此多個分段可以同時上傳
+ * 已接收的範圍以起點排序並合併相鄰的範圍，用於查詢上傳進度以及判斷是否已接收完整的檔案
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadSession
+ * @create 2025/4/21
+ * @Version 1.0
+ **/
+public class UploadSession implements Closeable {
+    /**
+     * 寫入分段時使用的緩衝區大小
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 上傳 ID，同時作為完成上傳後的任務 ID
+     */
+    @Getter
+    private final String uploadId;
+
+    /**
+     * 上傳的目標檔案
+     */
+    @Getter
+    private final File file;
+
+    /**
+     * 檔案的完整大小，單位為位元組
+     */
+    @Getter
+    private final long size;
+
+    /**
+     * 上傳檔案的 SHA-256 雜湊值，由客戶端提供，完成上傳時用於驗證，可為 null
+     */
+    @Getter
+    private final String sha256;
+
+    /**
+     * 模型類型
+     */
+    @Getter
+    private final ModelType modelType;
+
+    /**
+     * 輸出格式類型
+     */
+    @Getter
+    private final OutputType outputType;
+
+    /**
+     * 是否需要分段
+     */
+    @Getter
+    private final boolean isNeedSegment;
+
+    /**
+     * 寫入檔案的通道，位置寫入為線程安全，多個分段可以同時寫入
+     */
+    private final FileChannel channel;
+
+    /**
+     * 已接收的位元組範圍，Key 為起點(包含)，Value 為終點(不包含)，相鄰或重疊的範圍會被合併
+     */
+    private final TreeMap<Long, Long> receivedRanges = new TreeMap<>();
+
+    /**
+     * 分段寫入時持有讀鎖，完成或取消上傳時持有寫鎖，確保關閉通道時沒有正在寫入的分段
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 最後一次接收分段內容的時間，寫入分段時每讀取一個緩衝區即更新，用於清理閒置的上傳
+     */
+    @Getter
+    private volatile Instant lastActiveTime = Instant.now();
+
+    /**
+     * 正在寫入的分段數量，有分段正在寫入的上傳不會被視為閒置
+     */
+    private final AtomicInteger activeWrites = new AtomicInteger();
+
+    /**
+     * 上傳是否已關閉，關閉後不再接受分段
+     */
+    private boolean closed;
+
+    /**
+     * UploadSession 構造方法，預先配置完整大小的檔案並開啟寫入通道
+     *
+     * @param uploadId      上傳 ID
+     * @param file          上傳的目標檔案
+     * @param size          檔案的完整大小
+     * @param sha256        上傳檔案的 SHA-256 雜湊值，可為 null
+     * @param modelType     模型類型
+     * @param outputType    輸出格式類型
+     * @param isNeedSegment 是否需要分段
+     *
+     * @throws IOException 無法配置或開啟檔案
+     */
+    public UploadSession (String uploadId, File file, long size, String sha256, ModelType modelType, OutputType outputType, boolean isNeedSegment) throws IOException {
+        this.uploadId = uploadId;
+        this.file = file;
+        this.size = size;
+        this.sha256 = sha256;
+        this.modelType = modelType;
+        this.outputType = outputType;
+        this.isNeedSegment = isNeedSegment;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 將分段內容寫入檔案中指定的位置，並記錄實際寫入的範圍
+     * 分段內容比宣告的範圍短時，只記錄實際寫入的部分，客戶端可以查詢後補傳缺少的範圍
+     *
+     * @param start       分段的起點(包含)
+     * @param end         分段的終點(不包含)
+     * @param inputStream 分段內容
+     *
+     * @return 實際寫入的位元組數量
+     *
+     * @throws IOException 寫入時錯誤，或分段內容超過宣告的範圍
+     */
+    public long write (long start, long end, InputStream inputStream) throws IOException {
+        if (start < 0 || end > size || start >= end) {
+            throw new IllegalArgumentException(String.format("分段範圍錯誤: %d-%d/%d", start, end - 1, size));
+        }
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("上傳已結束: " + uploadId);
+            }
+            activeWrites.incrementAndGet();
+            lastActiveTime = Instant.now();
+            byte[] array = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(array);
+            long position = start;
+            int length;
+            try {
+                while ((length = inputStream.read(array)) != -1) {
+                    lastActiveTime = Instant.now();
+                    if (position + length > end) {
+                        throw new IOException(String.format("分段內容超過宣告的範圍: %d-%d", start, end - 1));
+                    }
+                    buffer.clear().limit(length);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                }
+            } finally {
+                addRange(start, position);
+                lastActiveTime = Instant.now();
+                activeWrites.decrementAndGet();
+            }
+            return position - start;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 是否已閒置，即沒有正在寫入的分段，且指定時間之後沒有接收任何分段內容
+     * 緩慢但持續傳輸的大分段在寫入期間會持續更新活動時間，不會被視為閒置
+     *
+     * @param expireTime 閒置的判斷時間
+     *
+     * @return 是否已閒置
+     */
+    public boolean isIdleSince (Instant expireTime) {
+        return activeWrites.get() == 0 && !lastActiveTime.isAfter(expireTime);
+    }
+
+    /**
+     * 是否已接收完整的檔案
+     *
+     * @return 是否已接收完整的檔案
+     */
+    public synchronized boolean isComplete () {
+        Map.Entry<Long, Long> first = receivedRanges.firstEntry();
+        return first != null && first.getKey() == 0 && first.getValue() == size;
+    }
+
+    /**
+     * 取得已接收的位元組數量
+     *
+     * @return 已接收的位元組數量
+     */
+    public synchronized long getReceivedBytes () {
+        long received = 0;
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            received += range.getValue() - range.getKey();
+        }
+        return received;
+    }
+
+    /**
+     * 取得已接收的範圍，格式為 起點-終點(皆包含)，與 HTTP Range 的格式相同
+     *
+     * @return 已接收的範圍列表
+     */
+    public synchronized List<String> getReceivedRangeList () {
+        List<String> ranges = new ArrayList<>(receivedRanges.size());
+        receivedRanges.forEach((start, end) -> ranges.add(String.format("%d-%d", start, end - 1)));
+        return ranges;
+    }
+
+    /**
+     * 關閉上傳，等待正在寫入的分段完成後關閉寫入通道，關閉後不再接受分段
+     *
+     * @throws IOException 關閉通道時錯誤
+     */
+    @Override
+    public void close () throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 記錄已接收的範圍，並與相鄰或重疊的範圍合併
+     *
+     * @param start 範圍起點(包含)
+     * @param end   範圍終點(不包含)
+     */
+    private synchronized void addRange (long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        Map.Entry<Long, Long> floor = receivedRanges.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            start = floor.getKey();
+            end = Math.max(end, floor.getValue());
+        }
+        Map.Entry<Long, Long> next = receivedRanges.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            receivedRanges.remove(next.getKey());
+            next = receivedRanges.ceilingEntry(start);
+        }
+        receivedRanges.put(start, end);
+    }
+}
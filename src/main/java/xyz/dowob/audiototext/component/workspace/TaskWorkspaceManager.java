@@ -0,0 +1,397 @@
+package xyz.dowob.audiototext.component.workspace;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.service.TaskService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 任務暫存工作區管理器，每個任務在暫存資料夾中擁有獨立的工作區資料夾
+ * 任務結束時直接刪除整個工作區，不需要掃描共用的暫存資料夾
+ * 啟動時以及定時清理沒有對應存活任務的工作區，回收異常中斷的任務所留下的暫存檔案
+ * 設定記憶體暫存路徑 (tmpfs) 時，可依照檔案的預估大小在記憶體預算內配置記憶體工作區，預算不足時自動改用磁碟工作區
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskWorkspaceManager
+ * @create 2025/4/18
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+public class TaskWorkspaceManager {
+    /**
+     * 任務 ID 的格式，只清理名稱符合任務 ID 的工作區，以及舊版以任務 ID 開頭的暫存檔案，避免誤刪暫存資料夾中的其他檔案
+     */
+    private static final Pattern TASK_ENTRY_PATTERN = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(_.*)?$");
+
+    /**
+     * 音檔配置類，用於取得暫存資料夾的路徑以及任務的最長處理時間
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 任務服務類，用於判斷工作區對應的任務是否仍在處理中
+     */
+    private final TaskService taskService;
+
+    /**
+     * 目前使用中的工作區，Key 為任務 ID，Value 為工作區建立或最後活動的時間
+     * 任務狀態尚未登記前的工作區，在最後活動後的寬限時間內視為存活
+     */
+    private final Map<String, Instant> activeWorkspaces = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次清理時統計的暫存資料夾使用量，單位為位元組
+     */
+    private final AtomicLong tempDiskUsage = new AtomicLong();
+
+    /**
+     * 各任務在記憶體工作區中預留的空間，單位為位元組
+     */
+    private final Map<String, Long> memoryReservations = new ConcurrentHashMap<>();
+
+    /**
+     * 所有任務在記憶體工作區中預留的空間總和，單位為位元組
+     */
+    private final AtomicLong memoryUsage = new AtomicLong();
+
+    /**
+     * 配置於記憶體工作區的次數
+     */
+    private final Counter memoryAllocationCounter;
+
+    /**
+     * 因記憶體預算不足而改用磁碟工作區的次數
+     */
+    private final Counter memorySpillCounter;
+
+    /**
+     * 清理的工作區數量
+     */
+    private final Counter sweptWorkspaceCounter;
+
+    /**
+     * 清理釋放的位元組數量
+     */
+    private final Counter sweptBytesCounter;
+
+    /**
+     * TaskWorkspaceManager 構造方法，並註冊工作區相關的指標
+     *
+     * @param audioProperties 音檔配置類
+     * @param taskService     任務服務類
+     * @param meterRegistry   指標註冊器
+     */
+    public TaskWorkspaceManager (AudioProperties audioProperties, TaskService taskService, MeterRegistry meterRegistry) {
+        this.audioProperties = audioProperties;
+        this.taskService = taskService;
+        Gauge.builder("task.workspace.active", activeWorkspaces, Map::size).description("使用中的任務工作區數量").register(meterRegistry);
+        Gauge.builder("task.workspace.disk.usage", tempDiskUsage, AtomicLong::get)
+             .description("上一次清理時統計的暫存資料夾使用量")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        this.sweptWorkspaceCounter = Counter.builder("task.workspace.swept").description("清理的孤立工作區數量").register(meterRegistry);
+        this.sweptBytesCounter = Counter.builder("task.workspace.swept.bytes").description("清理孤立工作區所釋放的空間").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("task.workspace.memory.used", memoryUsage, AtomicLong::get).description("記憶體工作區已預留的空間").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("task.workspace.memory.budget", this, TaskWorkspaceManager::getMemoryBudget)
+             .description("記憶體工作區的預算")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+        this.memoryAllocationCounter = Counter.builder("task.workspace.memory.allocated").description("配置於記憶體工作區的次數").register(meterRegistry);
+        this.memorySpillCounter = Counter.builder("task.workspace.memory.spill").description("記憶體預算不足而改用磁碟工作區的次數").register(meterRegistry);
+    }
+
+    /**
+     * 建立任務的工作區，先登記為使用中再建立資料夾，避免建立後立即被清理
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 工作區路徑
+     *
+     * @throws IOException 無法建立工作區資料夾
+     */
+    public Path create (String taskId) throws IOException {
+        activeWorkspaces.putIfAbsent(taskId, Instant.now());
+        return Files.createDirectories(getWorkspace(taskId));
+    }
+
+    /**
+     * 為即將寫入的暫存檔案配置工作區，並返回檔案應建立的資料夾
+     * 已設定記憶體暫存路徑且預估大小在記憶體預算內時，預留空間並返回記憶體工作區，否則返回磁碟工作區
+     * 同一個任務的檔案可以分別位於記憶體與磁碟工作區，釋放任務時兩者皆會被刪除
+     *
+     * @param taskId        任務 ID
+     * @param expectedBytes 暫存檔案的預估大小，未知時為 0 或負數，此時一律使用磁碟工作區
+     *
+     * @return 暫存檔案應建立的資料夾
+     *
+     * @throws IOException 無法建立工作區資料夾
+     */
+    public Path allocate (String taskId, long expectedBytes) throws IOException {
+        if (!isMemoryEnabled()) {
+            return create(taskId);
+        }
+        if (expectedBytes > 0 && reserveMemory(taskId, expectedBytes)) {
+            activeWorkspaces.putIfAbsent(taskId, Instant.now());
+            try {
+                Path workspace = Files.createDirectories(getMemoryWorkspace(taskId));
+                memoryAllocationCounter.increment();
+                return workspace;
+            } catch (IOException e) {
+                log.warn("無法建立記憶體工作區，改用磁碟工作區: {}", taskId, e);
+                releaseMemory(taskId);
+            }
+        }
+        memorySpillCounter.increment();
+        log.debug("記憶體預算不足或大小未知，使用磁碟工作區: {}, 預估大小: {}", taskId, expectedBytes);
+        return create(taskId);
+    }
+
+    /**
+     * 更新工作區的活動時間，用於仍在使用但尚未登記任務狀態的工作區，例如分段上傳中的工作區
+     *
+     * @param taskId 任務 ID
+     */
+    public void touch (String taskId) {
+        activeWorkspaces.computeIfPresent(taskId, (key, time) -> Instant.now());
+    }
+
+    /**
+     * 取得任務的工作區路徑
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 工作區路徑
+     */
+    public Path getWorkspace (String taskId) {
+        return Path.of(audioProperties.getPath().getTempFileDirectory(), taskId);
+    }
+
+    /**
+     * 取得任務的記憶體工作區路徑
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 記憶體工作區路徑
+     */
+    public Path getMemoryWorkspace (String taskId) {
+        return Path.of(audioProperties.getPath().getMemoryTempFileDirectory(), taskId);
+    }
+
+    /**
+     * 釋放任務的工作區，直接刪除整個工作區資料夾，並歸還記憶體工作區預留的空間
+     *
+     * @param taskId 任務 ID
+     */
+    public void release (String taskId) {
+        activeWorkspaces.remove(taskId);
+        try {
+            deleteRecursively(getWorkspace(taskId));
+            if (isMemoryEnabled()) {
+                deleteRecursively(getMemoryWorkspace(taskId));
+            }
+            log.debug("已刪除任務工作區: {}", taskId);
+        } catch (IOException e) {
+            log.error("刪除任務工作區失敗: {}", taskId, e);
+        } finally {
+            releaseMemory(taskId);
+        }
+    }
+
+    /**
+     * 應用程式啟動完成後清理一次暫存資料夾，此時沒有任何存活的任務，上次執行所留下的工作區都會被清理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepOnStartup () {
+        sweep();
+    }
+
+    /**
+     * 定時清理沒有存活任務的工作區，並統計暫存資料夾的使用量，已設定記憶體暫存路徑時一併清理
+     * 工作區在任務狀態中存在，或最後活動後尚未超過寬限時間時，視為存活
+     * 每 10 分鐘執行一次
+     */
+    @Scheduled(fixedDelay = 10, initialDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void sweep () {
+        long usage = sweepDirectory(Path.of(audioProperties.getPath().getTempFileDirectory()));
+        if (usage >= 0) {
+            tempDiskUsage.set(usage);
+        }
+        if (isMemoryEnabled()) {
+            sweepDirectory(Path.of(audioProperties.getPath().getMemoryTempFileDirectory()));
+        }
+    }
+
+    /**
+     * 清理暫存資料夾中沒有存活任務的工作區，清理時一併歸還該任務預留的記憶體空間
+     *
+     * @param directory 暫存資料夾
+     *
+     * @return 清理後暫存資料夾的使用量，無法讀取時為 -1
+     */
+    private long sweepDirectory (Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return -1;
+        }
+        List<Path> entries;
+        try (Stream<Path> stream = Files.list(directory)) {
+            entries = stream.toList();
+        } catch (IOException e) {
+            log.error("無法讀取暫存資料夾: {}", directory, e);
+            return -1;
+        }
+
+        long usage = 0;
+        int sweptCount = 0;
+        long sweptBytes = 0;
+        for (Path entry : entries) {
+            String name = entry.getFileName().toString();
+            long size = sizeOf(entry);
+            if (!TASK_ENTRY_PATTERN.matcher(name).matches() || isAlive(name.substring(0, 36))) {
+                usage += size;
+                continue;
+            }
+            try {
+                deleteRecursively(entry);
+                activeWorkspaces.remove(name);
+                releaseMemory(name.substring(0, 36));
+                sweptCount++;
+                sweptBytes += size;
+            } catch (IOException e) {
+                usage += size;
+                log.error("清理孤立工作區失敗: {}", name, e);
+            }
+        }
+        sweptWorkspaceCounter.increment(sweptCount);
+        sweptBytesCounter.increment(sweptBytes);
+        if (sweptCount > 0) {
+            log.info("清理孤立工作區: {} 個，共釋放 {} bytes ({})", sweptCount, sweptBytes, directory);
+        }
+        return usage;
+    }
+
+    /**
+     * 在記憶體預算內為任務預留空間
+     *
+     * @param taskId 任務 ID
+     * @param bytes  預留的空間，單位為位元組
+     *
+     * @return 是否預留成功
+     */
+    private boolean reserveMemory (String taskId, long bytes) {
+        long budget = getMemoryBudget();
+        long used;
+        do {
+            used = memoryUsage.get();
+            if (used + bytes > budget) {
+                return false;
+            }
+        } while (!memoryUsage.compareAndSet(used, used + bytes));
+        memoryReservations.merge(taskId, bytes, Long::sum);
+        return true;
+    }
+
+    /**
+     * 歸還任務預留的所有記憶體空間
+     *
+     * @param taskId 任務 ID
+     */
+    private void releaseMemory (String taskId) {
+        Long reserved = memoryReservations.remove(taskId);
+        if (reserved != null) {
+            memoryUsage.addAndGet(-reserved);
+        }
+    }
+
+    /**
+     * 是否已設定記憶體暫存路徑
+     *
+     * @return 是否啟用記憶體工作區
+     */
+    private boolean isMemoryEnabled () {
+        String directory = audioProperties.getPath().getMemoryTempFileDirectory();
+        return directory != null && !directory.isBlank();
+    }
+
+    /**
+     * 取得記憶體工作區的預算，未啟用時為 0
+     *
+     * @return 記憶體工作區的預算，單位為位元組
+     */
+    private long getMemoryBudget () {
+        return isMemoryEnabled() ? audioProperties.getThreshold().getMemoryWorkspaceBudget() * 1024 * 1024 : 0;
+    }
+
+    /**
+     * 判斷任務是否存活，任務狀態存在，或工作區最後活動後尚未超過寬限時間
+     * 寬限時間為任務的最長處理時間與分段上傳的閒置保存時間兩者中較長者
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 是否存活
+     */
+    private boolean isAlive (String taskId) {
+        if (taskService.getTaskStatus(taskId).isPresent()) {
+            return true;
+        }
+        Instant activeAt = activeWorkspaces.get(taskId);
+        AudioProperties.Threshold threshold = audioProperties.getThreshold();
+        Duration grace = Duration.ofSeconds(Math.max(threshold.getMaxProcessingTime(), threshold.getUploadSessionExpireTime()));
+        return activeAt != null && activeAt.plus(grace).isAfter(Instant.now());
+    }
+
+    /**
+     * 計算檔案或資料夾的大小
+     *
+     * @param path 檔案或資料夾路徑
+     *
+     * @return 大小，單位為位元組，無法讀取時為 0
+     */
+    private long sizeOf (Path path) {
+        try (Stream<Path> stream = Files.walk(path)) {
+            return stream.filter(p -> Files.isRegularFile(p, LinkOption.NOFOLLOW_LINKS)).mapToLong(p -> p.toFile().length()).sum();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 刪除檔案或整個資料夾
+     *
+     * @param path 檔案或資料夾路徑
+     *
+     * @throws IOException 刪除時錯誤
+     */
+    private void deleteRecursively (Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path p : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
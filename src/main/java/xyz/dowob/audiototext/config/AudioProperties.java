@@ -46,6 +46,12 @@ public class AudioProperties {
          */
         public String tempFileDirectory = "./temp/audio/";
 
+        /**
+         * 記憶體暫存路徑，應為 tmpfs 等記憶體檔案系統 (例如 /dev/shm/audio/)，預設為空字串代表不使用
+         * 設定後，預估大小在記憶體預算內的暫存檔案會寫入此路徑，超過預算時自動改為寫入 tempFileDirectory
+         */
+        public String memoryTempFileDirectory = "";
+
         /**
          * 轉譯模型的路徑
          */
@@ -93,15 +99,69 @@ public class AudioProperties {
         private int chunkBufferSize = 2048;
 
         /**
-         * 音檔處理的最大序列長度 (超過此長度則會進行分割)，單位為byte 預設為 512
+         * 標點符號恢復的最大序列長度 (超過此長度則會進行分割)，單位為單字 預設為 512
+         * 超過此長度的文本會切分為互相重疊的文字視窗，平行交由各個 Python 處理器處理
          */
         private int maxSequenceLength = 512;
 
+        /**
+         * 標點符號恢復時相鄰文字視窗重疊的單字數量 預設為 32，必須至少為 2 且小於 {@link #maxSequenceLength}
+         * 拼接時重疊部分兩側各取一半，使視窗邊界附近的單字也有足夠的上下文
+         */
+        private int punctuationWindowOverlap = 32;
+
+        /**
+         * 標點符號恢復時每個批次最多合併的請求數量 預設為 8，設定為 1 時不合併
+         * 不同任務的請求會被合併為一個批次，由 Python 進程以單次模型推論處理
+         */
+        private int punctuationBatchSize = 8;
+
+        /**
+         * 標點符號恢復的批次最長等待時間，單位為毫秒 預設為 10
+         * 沒有空閒的 Python 處理器時不會額外等待，此值只影響負載較低時的延遲
+         */
+        private int punctuationBatchLinger = 10;
+
+        /**
+         * Python 處理進程的健康檢查間隔，單位為秒 預設為 30
+         * 進程已終止、有請求時超過 {@link #maxProcessingTime} 沒有回應，或閒置時心跳請求沒有回應的進程會被重新啟動
+         */
+        private int pythonHeartbeatInterval = 30;
+
+        /**
+         * Python 處理進程心跳請求的等待時間，單位為秒 預設為 10
+         */
+        private int pythonHeartbeatTimeout = 10;
+
+        /**
+         * Python 處理進程重新啟動失敗後的初始等待時間，單位為秒 預設為 5
+         * 每次連續失敗後加倍，最長為 300 秒
+         */
+        private int pythonRestartBackoff = 5;
+
         /**
          * 最大 Python 處理進程數量，預設為 1
          */
         private int maxPythonProcess = 1;
 
+        /**
+         * 最小 Python 處理進程數量，預設為 1
+         * 啟動時只建立此數量的進程，任務等待時間過長時增加至 {@link #maxPythonProcess}，閒置時縮減回此數量
+         */
+        private int minPythonProcess = 1;
+
+        /**
+         * 增加 Python 處理進程的等待時間門檻，單位為毫秒 預設為 2000
+         * 任務等待空閒 Python 處理器超過此時間時，在背景啟動一個新的進程
+         */
+        private int pythonScaleUpWait = 2000;
+
+        /**
+         * Python 處理進程的閒置冷卻時間，單位為秒 預設為 600
+         * 進程數量多於 {@link #minPythonProcess} 時，閒置超過此時間的進程會被退役以釋放模型佔用的記憶體
+         */
+        private int pythonIdleTimeout = 600;
+
         /**
          * 最大處理時間，單位為秒 預設為 300
          */
@@ -112,6 +172,76 @@ public class AudioProperties {
          * 當任務數量大於{@link #maxPythonProcess}時，會將任務加入列隊等待處理，當列隊數量大於此值時，則會拒絕處理
          */
         private int maxTaskQueue = 100;
+
+        /**
+         * 等待空閒 Python 處理器的最長時間，單位為秒 預設為 300
+         * 超過此時間仍未取得處理器的任務會被拒絕
+         */
+        private int pythonCheckoutTimeout = 300;
+
+        /**
+         * 每個 Python 處理進程同時等待處理的請求數量 預設為 2
+         * 大於 1 時，Python 進程處理當前請求的同時下一個請求已在等待，可以隱藏通訊的延遲，但單一請求的等待時間可能變長
+         */
+        private int pythonInFlightWindow = 2;
+
+        /**
+         * 任務事件串流 (Server-Sent Events) 的最長連線時間，單位為秒 預設為 1800
+         * 超過此時間後連線會被關閉，前端需要重新連線
+         */
+        private int eventStreamTimeout = 1800;
+
+        /**
+         * 查詢任務狀態時長輪詢的最長等待時間，單位為秒 預設為 60
+         * 請求中的 wait 參數超過此值時，以此值為準
+         */
+        private int maxLongPollWait = 60;
+
+        /**
+         * 已結束任務快取的最大容量，單位為 MB 預設為 64
+         * 每個任務依照任務結果的字元數計算權重，長時間音檔的轉譯結果佔用較多容量
+         */
+        private int finishedTaskCacheMaxSize = 64;
+
+        /**
+         * 已結束任務快取的保存時間，單位為秒 預設為 600
+         */
+        private int finishedTaskCacheExpireTime = 600;
+
+        /**
+         * 定時清理任務時每批次處理的任務數量 預設為 500
+         * 每批次只查詢任務主鍵並以單一語句更新或刪除，記憶體使用量與此值成正比
+         */
+        private int maintenanceBatchSize = 500;
+
+        /**
+         * 清理過期輸出檔案時同時進行刪除的任務數量 預設為 4
+         */
+        private int outputCleanupConcurrency = 4;
+
+        /**
+         * 串流上傳的檔案大小上限，單位為 MB 預設為 2048
+         * 串流上傳不經過 multipart 解析，因此不受 spring.servlet.multipart.max-file-size 限制，當設定為0時，則不限制大小
+         */
+        private long maxUploadSize = 2048;
+
+        /**
+         * 分段上傳的閒置保存時間，單位為秒 預設為 3600
+         * 超過此時間沒有接收任何分段的上傳將被取消並刪除已接收的內容
+         */
+        private int uploadSessionExpireTime = 3600;
+
+        /**
+         * 音檔長度上限，單位為秒 預設為 14400
+         * 上傳時探測音檔長度，超過此長度的音檔在佔用轉譯資源之前即被拒絕，當設定為0時，則不限制長度
+         */
+        private int maxAudioDuration = 14400;
+
+        /**
+         * 記憶體暫存路徑的使用量上限，單位為 MB 預設為 512
+         * 所有任務在記憶體暫存路徑中預留的空間總和不會超過此上限，應小於 tmpfs 的大小
+         */
+        private long memoryWorkspaceBudget = 512;
     }
 
     @Data
@@ -133,5 +263,11 @@ public class AudioProperties {
          * 超過此時間的檔案將會被刪除
          */
         private int outputFileExpiredTime = 72;
+
+        /**
+         * 保存任務結果時使用的編碼方式，可選 deflate、none 預設為 deflate
+         * 變更後只影響新保存的結果，已保存的結果會依照保存時的編碼方式讀取
+         */
+        private String resultCodec = "deflate";
     }
 }
@@ -1,5 +1,6 @@
 package xyz.dowob.audiototext.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import xyz.dowob.audiototext.dto.ApiResponseDTO;
 
@@ -78,5 +79,28 @@ public interface ApiController {
         return ResponseEntity.status(response.getStatus()).body(response);
     }
 
+    /**
+     * 根據 API 響應 DTO 創建帶有 ETag 標頭的 ResponseEntity
+     *
+     * @param response API 響應 DTO
+     * @param eTag     響應內容的 ETag
+     *
+     * @return ResponseEntity 控制器返回的響應
+     */
+    default ResponseEntity<?> createResponseEntity(ApiResponseDTO response, String eTag) {
+        return ResponseEntity.status(response.getStatus()).eTag(eTag).body(response);
+    }
+
+    /**
+     * 創建內容未變更的響應，狀態碼為 304，不包含響應內容
+     *
+     * @param eTag 響應內容的 ETag
+     *
+     * @return ResponseEntity 控制器返回的響應
+     */
+    default ResponseEntity<?> createNotModifiedResponseEntity(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
 
 }
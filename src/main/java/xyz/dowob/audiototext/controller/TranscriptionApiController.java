@@ -3,12 +3,19 @@ package xyz.dowob.audiototext.controller;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.FinishedTaskDTO;
 import xyz.dowob.audiototext.dto.ModelInfoDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
-import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.handler.TaskLongPollHandler;
+import xyz.dowob.audiototext.handler.TaskSseHandler;
 import xyz.dowob.audiototext.service.AudioService;
 import xyz.dowob.audiototext.service.TaskService;
 import xyz.dowob.audiototext.type.ModelType;
@@ -16,6 +23,11 @@ import xyz.dowob.audiototext.type.OutputType;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 /**
  * 音訊轉文字的 API 控制器，處理音訊轉文字的請求
@@ -34,6 +46,10 @@ import java.util.List;
 @RequiredArgsConstructor
 @Log4j2
 public class TranscriptionApiController implements ApiController {
+    /**
+     * 任務狀態中可以被投影的欄位
+     */
+    private static final Set<String> TASK_STATUS_FIELDS = Set.of("taskId", "progress", "status", "result", "downloadUrl", "duration", "eta");
 
     /**
      * 音訊服務類，處理音訊轉文字的相關邏輯
@@ -45,6 +61,21 @@ public class TranscriptionApiController implements ApiController {
      */
     private final TaskService taskService;
 
+    /**
+     * 任務事件串流處理器，處理任務事件的訂閱
+     */
+    private final TaskSseHandler taskSseHandler;
+
+    /**
+     * 任務狀態長輪詢處理器，保存等待任務狀態變更的請求
+     */
+    private final TaskLongPollHandler taskLongPollHandler;
+
+    /**
+     * 音檔配置類，用於取得長輪詢的等待時間上限
+     */
+    private final AudioProperties audioProperties;
+
 
     /**
      * 音訊轉文字的 API 接口，接收音訊檔案和模型類型，返回音訊轉文字的結果
@@ -79,6 +110,37 @@ public class TranscriptionApiController implements ApiController {
         }
     }
 
+    /**
+     * 串流上傳音訊轉文字的 API 接口，請求內容直接為音訊檔案的原始資料
+     * 不經過 multipart 解析以及暫存，只讀取一次請求內容並直接寫入任務的工作區，同時計算檔案大小與 SHA-256 雜湊值
+     * 僅接受 application/octet-stream 以及 audio/* 的請求內容，表單類型的請求內容會在解析參數時被讀取，無法再作為音訊串流
+     *
+     * @param modelType     模型類型
+     * @param isNeedSegment 是否需要分段
+     * @param formatType    輸出格式類型
+     * @param request       HTTP 請求，請求內容為音訊檔案
+     *
+     * @return 任務ID以及上傳檔案的大小與雜湊值
+     */
+    @PostMapping(value = "/transcription/stream", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "audio/*"})
+    public ResponseEntity<?> transcribeAudioStream (
+            @RequestParam("model") String modelType,
+            @RequestParam(value = "is_need_segment", required = false, defaultValue = "true") boolean isNeedSegment,
+            @RequestParam(value = "format_type") String formatType, HttpServletRequest request) {
+        try {
+            if (modelType == null || modelType.isEmpty()) {
+                return createResponseEntity(createErrorResponse(request.getRequestURI(), "模型類型為空", 400));
+            }
+            ModelType type = ModelType.getModelTypeByCode(modelType);
+            OutputType outputType = OutputType.getOutputTypeByType(formatType);
+            Object result = audioService.audioToText(request.getInputStream(), type, outputType, isNeedSegment, request);
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "轉換請求成功", result));
+        } catch (Exception e) {
+            log.error("轉換失敗: ", e);
+            return createResponseEntity(createErrorResponse(request.getRequestURI(), String.format("轉換失敗: %s", e.getMessage()), 400));
+        }
+    }
+
     /**
      * 取得可用的模型列表
      *
@@ -113,31 +175,180 @@ public class TranscriptionApiController implements ApiController {
 
     /**
      * 取得任務狀態
+     * 支援條件請求以及長輪詢，減少重複查詢的成本:
+     * 1. 響應帶有 ETag，由任務狀態的版本號以及投影欄位產生，請求帶有相同的 If-None-Match 時返回 304
+     * 2. 當 If-None-Match 與當前狀態相同且帶有 wait 參數時，請求會以非同步的方式等待任務狀態變更，逾時則返回 304
+     * 3. fields 參數可指定需要返回的欄位，例如 fields=taskId,status,progress 可略過龐大的轉譯結果，包含未知的欄位時返回 400 並列出可用的欄位
+     * 只有需要等待時才使用非同步處理，其餘的請求直接返回響應，避免每次輪詢都經過非同步派發
      *
      * @param taskId  任務 ID
+     * @param wait    長輪詢的等待時間，單位為秒，預設為 0 不等待
+     * @param fields  需要返回的欄位，未指定時返回所有欄位
      * @param request HTTP 請求
      *
-     * @return 任務狀態
+     * @return 任務狀態的 {@link ResponseEntity}，需要等待任務狀態變更時為 {@link DeferredResult}
      */
     @GetMapping("/getTaskStatus")
-    public ResponseEntity<?> getTaskStatus(@RequestParam("task_id") String taskId, HttpServletRequest request) {
+    public Object getTaskStatus(
+            @RequestParam("task_id") String taskId,
+            @RequestParam(value = "wait", required = false, defaultValue = "0") int wait,
+            @RequestParam(value = "fields", required = false) List<String> fields, HttpServletRequest request) {
+        String path = request.getRequestURI();
+        Set<String> projection;
         try {
-            HashMap<String, Object> result = new HashMap<>();
-            Task task = taskService.findTaskByTaskId(taskId, TaskStatusDTO.Status.SUCCESS, TaskStatusDTO.Status.FAILED);
-
-            if (task != null) {
-                result.put("taskId", task.getTaskId());
-                result.put("downloadUrl", task.getDownloadUrl());
-                result.put("status", task.getStatus());
-                result.put("result", task.getResult());
-                return createResponseEntity(createSuccessResponse(request.getRequestURI(), "取得任務狀態成功", result));
-            } else {
-                TaskStatusDTO taskStatus = taskService.getTaskStatus(taskId).orElseThrow(() -> new RuntimeException("任務不存在"));
-                return createResponseEntity(createSuccessResponse(request.getRequestURI(), "取得任務狀態成功", taskStatus));
+            projection = resolveProjection(fields);
+        } catch (IllegalArgumentException e) {
+            return createResponseEntity(createErrorResponse(path, e.getMessage(), 400));
+        }
+        try {
+            Optional<TaskStatusDTO> taskStatus = taskService.getTaskStatus(taskId);
+            if (taskStatus.isPresent()) {
+                TaskStatusDTO statusDTO = taskStatus.get();
+                long version = statusDTO.getVersion();
+                String eTag = createTaskStatusETag(String.valueOf(version), projection);
+                if (!isNotModified(request, eTag)) {
+                    return createTaskStatusResponse(path, statusDTO, projection);
+                }
+                int waitSeconds = Math.min(wait, audioProperties.getThreshold().getMaxLongPollWait());
+                if (waitSeconds <= 0) {
+                    return createNotModifiedResponseEntity(eTag);
+                }
+
+                DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>(waitSeconds * 1000L, createNotModifiedResponseEntity(eTag));
+                Runnable onUpdate = () -> deferredResult.setResult(createTaskStatusResponse(path, statusDTO, projection));
+                taskLongPollHandler.await(taskId, deferredResult, onUpdate);
+                if (statusDTO.getVersion() != version) {
+                    onUpdate.run();
+                }
+                return deferredResult;
+            }
+
+            FinishedTaskDTO task = taskService.findFinishedTask(taskId).orElseThrow(() -> new RuntimeException("任務不存在"));
+            String eTag = createTaskStatusETag("final-" + task.status().name(), projection);
+            if (isNotModified(request, eTag)) {
+                return createNotModifiedResponseEntity(eTag);
             }
+            HashMap<String, Object> result = new HashMap<>();
+            putIfProjected(result, projection, "taskId", task::taskId);
+            putIfProjected(result, projection, "downloadUrl", task::downloadUrl);
+            putIfProjected(result, projection, "status", task::status);
+            putIfProjected(result, projection, "result", task.taskStatus()::getResult);
+            return createResponseEntity(createSuccessResponse(path, "取得任務狀態成功", result), eTag);
         } catch (Exception e) {
             log.error("取得任務狀態失敗: ", e);
-            return createResponseEntity(createErrorResponse(request.getRequestURI(), String.format("取得任務狀態失敗: %s", e.getMessage()), 400));
+            return createResponseEntity(createErrorResponse(path, String.format("取得任務狀態失敗: %s", e.getMessage()), 400));
         }
     }
+
+    /**
+     * 訂閱任務事件串流，使用 Server-Sent Events 推送任務的進度、轉譯片段以及完成結果
+     * 可同時訂閱多個任務，任務 ID 之間以逗號分隔，所有任務結束後串流會自動關閉
+     *
+     * @param taskIds 任務 ID 列表
+     *
+     * @return 任務事件串流
+     */
+    @GetMapping(value = "/getTaskEvents", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getTaskEvents(@RequestParam("task_id") List<String> taskIds) {
+        return taskSseHandler.subscribe(taskIds);
+    }
+
+    /**
+     * 建立處理中任務的狀態響應，只包含投影欄位
+     *
+     * @param path       請求的路徑
+     * @param statusDTO  任務狀態
+     * @param projection 需要返回的欄位，為 null 時返回所有欄位
+     *
+     * @return 帶有 ETag 的任務狀態響應
+     */
+    private ResponseEntity<?> createTaskStatusResponse(String path, TaskStatusDTO statusDTO, Set<String> projection) {
+        TaskStatusDTO.Snapshot snapshot = statusDTO.snapshot();
+        String eTag = createTaskStatusETag(String.valueOf(snapshot.version()), projection);
+        Object data = snapshot;
+        if (projection != null) {
+            HashMap<String, Object> result = new HashMap<>();
+            putIfProjected(result, projection, "taskId", snapshot::taskId);
+            putIfProjected(result, projection, "progress", snapshot::progress);
+            putIfProjected(result, projection, "status", snapshot::status);
+            putIfProjected(result, projection, "result", snapshot::result);
+            putIfProjected(result, projection, "duration", snapshot::duration);
+            putIfProjected(result, projection, "eta", snapshot::eta);
+            data = result;
+        }
+        return createResponseEntity(createSuccessResponse(path, "取得任務狀態成功", data), eTag);
+    }
+
+    /**
+     * 解析 fields 參數，空白的欄位名稱會被忽略
+     *
+     * @param fields fields 參數
+     *
+     * @return 需要返回的欄位，未指定時為 null
+     *
+     * @throws IllegalArgumentException 包含任務狀態中不存在的欄位
+     */
+    private Set<String> resolveProjection(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        Set<String> projection = new TreeSet<>();
+        Set<String> unknown = new TreeSet<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (TASK_STATUS_FIELDS.contains(trimmed)) {
+                projection.add(trimmed);
+            } else {
+                unknown.add(trimmed);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException(String.format("未知的欄位: %s，可用的欄位: %s", String.join(",", unknown), String.join(",", new TreeSet<>(TASK_STATUS_FIELDS))));
+        }
+        return projection;
+    }
+
+    /**
+     * 當欄位在投影中時，將欄位加入結果
+     *
+     * @param result     結果
+     * @param projection 需要返回的欄位，為 null 時返回所有欄位
+     * @param field      欄位名稱
+     * @param value      欄位值的取得方法，只有在欄位需要返回時才會呼叫
+     */
+    private void putIfProjected(Map<String, Object> result, Set<String> projection, String field, Supplier<Object> value) {
+        if (projection == null || projection.contains(field)) {
+            result.put(field, value.get());
+        }
+    }
+
+    /**
+     * 建立任務狀態的 ETag，由任務狀態的版本以及投影欄位組成
+     * 響應內容包含時間戳，因此使用弱 ETag
+     *
+     * @param version    任務狀態的版本
+     * @param projection 需要返回的欄位
+     *
+     * @return ETag
+     */
+    private String createTaskStatusETag(String version, Set<String> projection) {
+        String fieldsKey = projection == null ? "all" : String.join("+", projection);
+        return String.format("W/\"%s-%s\"", version, fieldsKey);
+    }
+
+    /**
+     * 判斷請求的 If-None-Match 是否與 ETag 相符，由 {@link ServletWebRequest#checkNotModified(String)} 進行弱比較，支援多個值以及 *
+     * 建立不帶響應的 ServletWebRequest，只進行判斷而不修改響應，長輪詢時相符的請求仍可以等待後返回新的狀態
+     *
+     * @param request HTTP 請求
+     * @param eTag    當前的 ETag
+     *
+     * @return 是否相符
+     */
+    private boolean isNotModified(HttpServletRequest request, String eTag) {
+        return new ServletWebRequest(request).checkNotModified(eTag);
+    }
 }
@@ -0,0 +1,166 @@
+package xyz.dowob.audiototext.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import xyz.dowob.audiototext.dto.UploadStatusDTO;
+import xyz.dowob.audiototext.service.UploadService;
+import xyz.dowob.audiototext.type.ModelType;
+import xyz.dowob.audiototext.type.OutputType;
+
+import java.util.NoSuchElementException;
+
+/**
+ * 分段上傳的 API 控制器，提供可續傳的分段上傳接口
+ * 建立上傳後以 PUT 與 Content-Range 上傳各個分段，分段可以同時上傳，中斷後可查詢已接收的範圍並補傳缺少的部分
+ * 全部接收後完成上傳，上傳 ID 即為任務 ID，可直接用於查詢任務狀態
+ * 實現 ApiController 接口，提供了一些常用的方法
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadApiController
+ * @create 2025/4/21
+ * @Version 1.0
+ **/
+@RestController
+@RequestMapping("/api/upload")
+@RequiredArgsConstructor
+@Log4j2
+public class UploadApiController implements ApiController {
+    /**
+     * 分段上傳服務類，處理分段上傳的相關邏輯
+     */
+    private final UploadService uploadService;
+
+    /**
+     * 建立分段上傳
+     *
+     * @param size          檔案的完整大小，單位為位元組
+     * @param modelType     模型類型
+     * @param isNeedSegment 是否需要分段
+     * @param formatType    輸出格式類型
+     * @param sha256        上傳檔案的 SHA-256 雜湊值，完成上傳時用於驗證
+     * @param request       HTTP 請求
+     *
+     * @return 上傳狀態，包含上傳 ID
+     */
+    @PostMapping
+    public ResponseEntity<?> createUpload (
+            @RequestParam("size") long size,
+            @RequestParam("model") String modelType,
+            @RequestParam(value = "is_need_segment", required = false, defaultValue = "true") boolean isNeedSegment,
+            @RequestParam(value = "format_type") String formatType,
+            @RequestParam(value = "sha256", required = false) String sha256, HttpServletRequest request) {
+        try {
+            if (modelType == null || modelType.isEmpty()) {
+                return createResponseEntity(createErrorResponse(request.getRequestURI(), "模型類型為空", 400));
+            }
+            ModelType type = ModelType.getModelTypeByCode(modelType);
+            OutputType outputType = OutputType.getOutputTypeByType(formatType);
+            UploadStatusDTO status = uploadService.createUpload(size, sha256, type, outputType, isNeedSegment);
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "建立上傳成功", status));
+        } catch (Exception e) {
+            log.error("建立上傳失敗: ", e);
+            return createResponseEntity(createErrorResponse(request.getRequestURI(), String.format("建立上傳失敗: %s", e.getMessage()), 400));
+        }
+    }
+
+    /**
+     * 上傳一個分段，請求內容為分段的原始資料，Content-Range 指定分段在檔案中的範圍
+     *
+     * @param uploadId     上傳 ID
+     * @param contentRange 請求標頭 Content-Range，格式為 bytes 起點-終點/總大小
+     * @param request      HTTP 請求，請求內容為分段資料
+     *
+     * @return 上傳狀態
+     */
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<?> uploadChunk (
+            @PathVariable("uploadId") String uploadId,
+            @RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange, HttpServletRequest request) {
+        try {
+            UploadStatusDTO status = uploadService.writeChunk(uploadId, contentRange, request.getInputStream());
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "上傳分段成功", status));
+        } catch (Exception e) {
+            log.error("上傳分段失敗: ", e);
+            return createUploadErrorResponse(request, "上傳分段失敗", e);
+        }
+    }
+
+    /**
+     * 取得上傳狀態，包含已接收的範圍，用於中斷後決定需要補傳的分段
+     *
+     * @param uploadId 上傳 ID
+     * @param request  HTTP 請求
+     *
+     * @return 上傳狀態
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUploadStatus (@PathVariable("uploadId") String uploadId, HttpServletRequest request) {
+        try {
+            UploadStatusDTO status = uploadService.getUploadStatus(uploadId);
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "取得上傳狀態成功", status));
+        } catch (Exception e) {
+            return createUploadErrorResponse(request, "取得上傳狀態失敗", e);
+        }
+    }
+
+    /**
+     * 完成上傳並開始轉換
+     *
+     * @param uploadId 上傳 ID
+     * @param request  HTTP 請求
+     *
+     * @return 轉換請求的結果，包含任務ID
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload (@PathVariable("uploadId") String uploadId, HttpServletRequest request) {
+        try {
+            Object result = uploadService.completeUpload(uploadId, request);
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "轉換請求成功", result));
+        } catch (Exception e) {
+            log.error("完成上傳失敗: ", e);
+            return createUploadErrorResponse(request, "完成上傳失敗", e);
+        }
+    }
+
+    /**
+     * 取消上傳，並刪除已接收的內容
+     *
+     * @param uploadId 上傳 ID
+     * @param request  HTTP 請求
+     *
+     * @return 取消的結果
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> cancelUpload (@PathVariable("uploadId") String uploadId, HttpServletRequest request) {
+        try {
+            uploadService.cancelUpload(uploadId);
+            return createResponseEntity(createSuccessResponse(request.getRequestURI(), "取消上傳成功"));
+        } catch (Exception e) {
+            return createUploadErrorResponse(request, "取消上傳失敗", e);
+        }
+    }
+
+    /**
+     * 根據例外類型建立錯誤響應，上傳不存在時為 404，上傳狀態不允許此操作時為 409，其他錯誤為 400
+     *
+     * @param request HTTP 請求
+     * @param message 錯誤訊息的前綴
+     * @param e       例外
+     *
+     * @return 錯誤響應
+     */
+    private ResponseEntity<?> createUploadErrorResponse (HttpServletRequest request, String message, Exception e) {
+        int status = 400;
+        if (e instanceof NoSuchElementException) {
+            status = 404;
+        } else if (e instanceof IllegalStateException) {
+            status = 409;
+        }
+        return createResponseEntity(createErrorResponse(request.getRequestURI(), String.format("%s: %s", message, e.getMessage()), status));
+    }
+}
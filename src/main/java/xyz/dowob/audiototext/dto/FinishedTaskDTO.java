@@ -0,0 +1,23 @@
+package xyz.dowob.audiototext.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已結束任務的快取內容，保存任務的基本資料以及已解析的任務狀態
+ * 已結束的任務不會再變更，因此可以在查詢後快取，避免重複查詢資料庫以及重複解析任務結果
+ *
+ * @param taskId        任務 ID
+ * @param status        任務狀態
+ * @param downloadUrl   下載地址
+ * @param finishTime    完成時間
+ * @param taskStatus    已解析任務結果的任務狀態，用於推送給前端
+ * @param contentLength 任務結果解碼後的字元數，作為快取的權重
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName FinishedTaskDTO
+ * @create 2025/4/12
+ * @Version 1.0
+ **/
+public record FinishedTaskDTO(String taskId, TaskStatusDTO.Status status, String downloadUrl, LocalDateTime finishTime, TaskStatusDTO taskStatus,
+                              int contentLength) {}
@@ -0,0 +1,18 @@
+package xyz.dowob.audiototext.dto;
+
+/**
+ * 音檔資訊 DTO，保存上傳時探測到的音檔長度與格式
+ *
+ * @param durationMillis 音檔長度，單位為毫秒，無法取得時為 -1
+ * @param format         容器格式，例如 wav、mp3
+ * @param codec          音訊編碼，例如 pcm_s16le、mp3
+ * @param sampleRate     採樣率，單位為Hz
+ * @param channels       聲道數量
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName MediaInfoDTO
+ * @create 2025/4/24
+ * @Version 1.0
+ **/
+public record MediaInfoDTO(long durationMillis, String format, String codec, int sampleRate, int channels) {}
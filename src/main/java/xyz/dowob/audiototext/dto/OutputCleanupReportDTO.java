@@ -0,0 +1,18 @@
+package xyz.dowob.audiototext.dto;
+
+import java.util.List;
+
+/**
+ * 輸出檔案清理結果 DTO，用於返回一批過期任務的輸出檔案清理結果
+ *
+ * @param cleanedKeys  已清理完成的任務鍵值，任務的輸出檔案已不存在
+ * @param deletedFiles 刪除的檔案數量
+ * @param deletedBytes 刪除的檔案大小總和，單位為位元組
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName OutputCleanupReportDTO
+ * @create 2025/4/17
+ * @Version 1.0
+ **/
+public record OutputCleanupReportDTO(List<TaskKeyDTO> cleanedKeys, long deletedFiles, long deletedBytes) {}
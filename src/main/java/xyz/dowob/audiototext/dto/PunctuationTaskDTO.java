@@ -38,6 +38,11 @@ public class PunctuationTaskDTO {
      */
     private CompletableFuture<String> future;
 
+    /**
+     * 任務建立的時間，單位為奈秒 ({@link System#nanoTime()})，用於計算批次的等待時間
+     */
+    private final long createNanos = System.nanoTime();
+
     /**
      * 重寫 hashCode 和 equals 方法，用於比較任務 ID
      *
@@ -0,0 +1,18 @@
+package xyz.dowob.audiototext.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任務到期 DTO，重建輸出檔案到期排程時只查詢任務的主鍵、任務 ID 以及完成時間
+ *
+ * @param id         任務主鍵
+ * @param taskId     任務 ID
+ * @param finishTime 完成時間
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskExpiryDTO
+ * @create 2025/4/19
+ * @Version 1.0
+ **/
+public record TaskExpiryDTO(long id, String taskId, LocalDateTime finishTime) {}
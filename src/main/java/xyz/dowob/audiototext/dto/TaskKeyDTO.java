@@ -0,0 +1,20 @@
+package xyz.dowob.audiototext.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任務鍵值 DTO，定時任務分批處理時只查詢任務的主鍵、任務 ID 以及結果主鍵
+ * 避免載入完整的任務實體，並以排序時間以及主鍵作為下一批次查詢的起點
+ *
+ * @param id       任務主鍵
+ * @param taskId   任務 ID
+ * @param resultId 任務結果主鍵，沒有結果時為 null
+ * @param sortTime 查詢的排序時間，依照查詢為建立時間或完成時間，與主鍵組成下一批次查詢的起點
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskKeyDTO
+ * @create 2025/4/16
+ * @Version 1.0
+ **/
+public record TaskKeyDTO(long id, String taskId, Long resultId, LocalDateTime sortTime) {}
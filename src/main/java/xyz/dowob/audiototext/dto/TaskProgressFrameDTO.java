@@ -0,0 +1,43 @@
+package xyz.dowob.audiototext.dto;
+
+/**
+ * 精簡的任務進度訊框，用於 WebSocket 推送處理中的進度更新
+ * 只包含任務索引、進度(萬分比)以及任務狀態，不包含任務結果
+ * 格式為 {"i":任務索引,"p":進度萬分比,"s":"任務狀態"}，訂閱時的第一個訊框會額外帶上 "t" 任務 ID，供前端建立索引與任務 ID 的對應
+ * 訊框只會序列化一次，並由同一任務的所有訂閱者共用
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskProgressFrameDTO
+ * @create 2025/4/8
+ * @Version 1.0
+ **/
+public record TaskProgressFrameDTO(int index, int progressBasisPoints, TaskStatusDTO.Status status) {
+
+    /**
+     * 將訊框轉換為精簡的 JSON 字串，不經過 Jackson 以避免多餘的物件分配
+     *
+     * @return 精簡的 JSON 字串
+     */
+    public String toJson () {
+        return toJson(null);
+    }
+
+    /**
+     * 將訊框轉換為精簡的 JSON 字串，若帶有任務 ID 則一併輸出 "t" 欄位
+     *
+     * @param taskId 任務 ID，可為 null
+     *
+     * @return 精簡的 JSON 字串
+     */
+    public String toJson (String taskId) {
+        StringBuilder builder = new StringBuilder(taskId == null ? 40 : 80);
+        builder.append("{\"i\":").append(index);
+        if (taskId != null) {
+            builder.append(",\"t\":\"").append(taskId).append('"');
+        }
+        builder.append(",\"p\":").append(progressBasisPoints);
+        builder.append(",\"s\":\"").append(status.name()).append("\"}");
+        return builder.toString();
+    }
+}
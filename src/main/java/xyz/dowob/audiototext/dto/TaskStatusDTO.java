@@ -1,16 +1,25 @@
 package xyz.dowob.audiototext.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonValue;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.Setter;
 import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.entity.TaskResult;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 任務狀態 DTO，用於返回任務的狀態，用於前端查詢任務的狀態
+ * 任務由工作線程更新，同時由其他線程讀取，因此進度、狀態、結果、版本號以及預估剩餘時間保存在同一個不可變的 {@link Snapshot} 中
+ * 更新時產生新的快照並以 CAS 替換，讀取時透過 {@link #snapshot()} 取得的快照中所有欄位必定屬於同一個版本
+ * 序列化時輸出快照，JSON 格式維持 {"taskId", "progress", "status", "result"}，其中進度為 0.00 ~ 100.00 的數值
+ * 已知音檔長度以及預估剩餘時間時，另外輸出 duration 與 eta，單位皆為秒
  *
  * @author yuan
  * @program AudioToText
@@ -19,38 +28,171 @@ import java.util.HashMap;
  * @create 2024-12-21 12:18
  * @Version 1.0
  **/
-@Setter
-@Getter
-@AllArgsConstructor
 public class TaskStatusDTO {
     /**
-     * 任務 ID
+     * 進度的最大萬分比，代表 100%
      */
-    private String taskId;
+    public static final int MAX_PROGRESS_BASIS_POINTS = 10000;
 
     /**
-     * 任務進度，默認為 0.0
+     * 更新時代表不變更進度的萬分比
      */
-    private BigDecimal progress = BigDecimal.valueOf(0.0);
+    public static final int KEEP_PROGRESS = -1;
 
     /**
-     * 任務狀態，默認為處理中
+     * 更新時代表不變更預估剩餘處理時間
      */
-    private Status status = Status.PROCESSING;
+    public static final long KEEP_ETA = Long.MIN_VALUE;
 
     /**
-     * 任務結果
+     * 任務 ID
      */
-    private Object result;
+    @Getter
+    private final String taskId;
 
+    /**
+     * 目前的任務狀態快照，版本號在每次更新時遞增，用於產生 ETag 以及長輪詢判斷狀態是否變更
+     */
+    private final AtomicReference<Snapshot> state;
 
     /**
-     * 帶參數的構造方法
+     * 帶參數的構造方法，任務進度為 0，狀態為處理中
      *
      * @param taskId 任務 ID
      */
     public TaskStatusDTO(String taskId) {
+        this(taskId, 0, Status.PROCESSING, null);
+    }
+
+    /**
+     * 帶參數的構造方法，任務進度為 0，狀態為處理中，並帶有音檔長度以及預估的處理時間
+     *
+     * @param taskId         任務 ID
+     * @param durationMillis 音檔長度，單位為毫秒，未知時為 -1
+     * @param etaMillis      預估的處理時間，單位為毫秒，未知時為 -1
+     */
+    public TaskStatusDTO(String taskId, long durationMillis, long etaMillis) {
         this.taskId = taskId;
+        this.state = new AtomicReference<>(new Snapshot(taskId, 0, Status.PROCESSING, null, 0, durationMillis, etaMillis));
+    }
+
+    /**
+     * 帶參數的構造方法
+     *
+     * @param taskId              任務 ID
+     * @param progressBasisPoints 任務進度，單位為萬分比
+     * @param status              任務狀態
+     * @param result              任務結果
+     */
+    public TaskStatusDTO(String taskId, int progressBasisPoints, Status status, Object result) {
+        this.taskId = taskId;
+        this.state = new AtomicReference<>(new Snapshot(taskId, clampProgress(progressBasisPoints), status, result, 0, -1, -1));
+    }
+
+    /**
+     * 更新任務狀態並遞增版本號，預估剩餘處理時間不變
+     *
+     * @param progressBasisPoints 任務進度，單位為萬分比，為 {@link #KEEP_PROGRESS} 時不變更
+     * @param status              任務狀態，為 null 時不變更
+     * @param result              任務結果，為 null 時不變更
+     *
+     * @return 狀態是否有變更
+     */
+    public boolean update(int progressBasisPoints, Status status, Object result) {
+        return update(progressBasisPoints, status, result, KEEP_ETA);
+    }
+
+    /**
+     * 更新任務狀態並遞增版本號，所有欄位在同一個快照中一起發布
+     * 進度萬分比、狀態、結果 (以參考比較) 以及預估剩餘處理時間皆與目前快照相同時不產生新的快照，版本號不變
+     *
+     * @param progressBasisPoints 任務進度，單位為萬分比，為 {@link #KEEP_PROGRESS} 時不變更
+     * @param status              任務狀態，為 null 時不變更
+     * @param result              任務結果，為 null 時不變更
+     * @param etaMillis           預估的剩餘處理時間，單位為毫秒，為 {@link #KEEP_ETA} 時不變更
+     *
+     * @return 狀態是否有變更
+     */
+    public boolean update(int progressBasisPoints, Status status, Object result, long etaMillis) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = state.get();
+            int nextProgress = progressBasisPoints == KEEP_PROGRESS ? current.progressBasisPoints() : clampProgress(progressBasisPoints);
+            Status nextStatus = status == null ? current.status() : status;
+            Object nextResult = result == null ? current.result() : result;
+            long nextEta = etaMillis == KEEP_ETA ? current.etaMillis() : etaMillis;
+            if (nextProgress == current.progressBasisPoints() && nextStatus == current.status() && nextResult == current.result()
+                && nextEta == current.etaMillis()) {
+                return false;
+            }
+            next = new Snapshot(taskId, nextProgress, nextStatus, nextResult, current.version() + 1, current.durationMillis(), nextEta);
+        } while (!state.compareAndSet(current, next));
+        return true;
+    }
+
+    /**
+     * 取得任務狀態的一致快照
+     *
+     * @return 任務狀態快照
+     */
+    @JsonValue
+    public Snapshot snapshot() {
+        return state.get();
+    }
+
+    /**
+     * 取得音檔長度
+     *
+     * @return 音檔長度，單位為毫秒，未知時為 -1
+     */
+    public long getDurationMillis() {
+        return state.get().durationMillis();
+    }
+
+    /**
+     * 取得任務進度，單位為萬分比
+     *
+     * @return 任務進度
+     */
+    public int getProgressBasisPoints() {
+        return state.get().progressBasisPoints();
+    }
+
+    /**
+     * 取得任務進度，範圍為 0.00 ~ 100.00
+     *
+     * @return 任務進度
+     */
+    public double getProgress() {
+        return getProgressBasisPoints() / 100.0;
+    }
+
+    /**
+     * 取得任務狀態
+     *
+     * @return 任務狀態
+     */
+    public Status getStatus() {
+        return state.get().status();
+    }
+
+    /**
+     * 取得任務結果
+     *
+     * @return 任務結果
+     */
+    public Object getResult() {
+        return state.get().result();
+    }
+
+    /**
+     * 取得任務狀態的版本號
+     *
+     * @return 版本號
+     */
+    public long getVersion() {
+        return state.get().version();
     }
 
     /**
@@ -60,11 +202,12 @@ public class TaskStatusDTO {
      */
     @Override
     public String toString() {
+        Snapshot snapshot = snapshot();
         HashMap<String, Object> map = new HashMap<>();
         map.put("taskId", taskId);
-        map.put("progress", progress);
-        map.put("status", status);
-        map.put("result", result);
+        map.put("progress", snapshot.progress());
+        map.put("status", snapshot.status());
+        map.put("result", snapshot.result());
         return map.toString();
     }
 
@@ -101,11 +244,12 @@ public class TaskStatusDTO {
      * @return Task 對象
      */
     public Task toTask(boolean isFinish) {
+        Snapshot snapshot = snapshot();
         Task task = new Task();
-        task.setStatus(status);
+        task.setStatus(snapshot.status());
         task.setTaskId(taskId);
-        if (result != null) {
-            task.setResult(result.toString());
+        if (snapshot.result() != null) {
+            task.setTaskResult(new TaskResult(snapshot.result().toString()));
         }
         if (isFinish) {
             task.setFinishTime(LocalDateTime.now());
@@ -113,6 +257,65 @@ public class TaskStatusDTO {
         return task;
     }
 
+    /**
+     * 將進度限制在 0 ~ {@link #MAX_PROGRESS_BASIS_POINTS} 之間
+     *
+     * @param progressBasisPoints 進度萬分比
+     *
+     * @return 限制後的進度萬分比
+     */
+    private static int clampProgress(int progressBasisPoints) {
+        return Math.max(0, Math.min(MAX_PROGRESS_BASIS_POINTS, progressBasisPoints));
+    }
+
+    /**
+     * 任務狀態的不可變快照，用於序列化以及跨線程讀取
+     * 序列化的 JSON 與原本的 TaskStatusDTO 相容
+     *
+     * @param taskId              任務 ID
+     * @param progressBasisPoints 任務進度，單位為萬分比
+     * @param status              任務狀態
+     * @param result              任務結果
+     * @param version             任務狀態的版本號
+     * @param durationMillis      音檔長度，單位為毫秒，未知時為 -1
+     * @param etaMillis           預估的剩餘處理時間，單位為毫秒，未知時為 -1
+     */
+    @JsonPropertyOrder({"taskId", "progress", "status", "result", "duration", "eta"})
+    public record Snapshot(String taskId, @JsonIgnore int progressBasisPoints, Status status, Object result, @JsonIgnore long version,
+                           @JsonIgnore long durationMillis, @JsonIgnore long etaMillis) {
+        /**
+         * 取得任務進度，範圍為 0.00 ~ 100.00
+         *
+         * @return 任務進度
+         */
+        @JsonProperty("progress")
+        public double progress() {
+            return progressBasisPoints / 100.0;
+        }
+
+        /**
+         * 取得音檔長度
+         *
+         * @return 音檔長度，單位為秒，未知時為 null
+         */
+        @JsonProperty("duration")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Double duration() {
+            return durationMillis < 0 ? null : durationMillis / 1000.0;
+        }
+
+        /**
+         * 取得預估的剩餘處理時間，任務結束後不再輸出
+         *
+         * @return 預估的剩餘處理時間，單位為秒，未知時為 null
+         */
+        @JsonProperty("eta")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Double eta() {
+            return etaMillis < 0 || status != Status.PROCESSING ? null : etaMillis / 1000.0;
+        }
+    }
+
     /**
      * 任務狀態枚舉，包含處理中、成功、失敗
      * 用於標記任務的狀態
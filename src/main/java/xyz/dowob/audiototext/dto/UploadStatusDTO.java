@@ -0,0 +1,20 @@
+package xyz.dowob.audiototext.dto;
+
+import java.util.List;
+
+/**
+ * 分段上傳狀態 DTO，用於返回分段上傳的進度
+ *
+ * @param uploadId       上傳 ID，完成上傳後同時作為任務 ID
+ * @param size           檔案的完整大小，單位為位元組
+ * @param receivedBytes  已接收的位元組數量
+ * @param receivedRanges 已接收的範圍，格式為 起點-終點(皆包含)
+ * @param complete       是否已接收完整的檔案
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadStatusDTO
+ * @create 2025/4/21
+ * @Version 1.0
+ **/
+public record UploadStatusDTO(String uploadId, long size, long receivedBytes, List<String> receivedRanges, boolean complete) {}
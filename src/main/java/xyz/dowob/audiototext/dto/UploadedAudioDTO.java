@@ -0,0 +1,18 @@
+package xyz.dowob.audiototext.dto;
+
+import java.io.File;
+
+/**
+ * 上傳音檔 DTO，保存寫入工作區的音檔以及上傳時計算的大小與雜湊值
+ *
+ * @param file   寫入工作區的音檔
+ * @param size   音檔大小，單位為位元組
+ * @param sha256 音檔的 SHA-256 雜湊值，以十六進位字串表示
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadedAudioDTO
+ * @create 2025/4/20
+ * @Version 1.0
+ **/
+public record UploadedAudioDTO(File file, long size, String sha256) {}
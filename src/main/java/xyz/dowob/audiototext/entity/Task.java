@@ -11,8 +11,10 @@ import java.util.HashMap;
 
 /**
  * 伺服器任務實體，用於保存任務的相關信息
- * 用於保存任務的 ID、狀態、結果、下載地址、創建時間、完成時間
+ * 用於保存任務的 ID、狀態、下載地址、音檔資訊、創建時間、完成時間，任務結果另外保存於 {@link TaskResult}
  * 使用 JPA 標註，將實體映射到數據庫中
+ * 建立與 {@link xyz.dowob.audiototext.repository.TaskRepository} 中定時任務查詢條件對應的複合索引，避免全表掃描
+ * 索引依序為等值條件、範圍條件以及主鍵，分批查詢依照索引順序排序並以索引欄位作為下一批次的起點，每批次都不需要額外排序
  *
  * @author yuan
  * @program AudioToText
@@ -25,6 +27,11 @@ import java.util.HashMap;
 @Setter
 @Entity
 @NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_task_status_create_time_id", columnList = "status, create_time, id"),
+        @Index(name = "idx_task_deleted_finish_time_id", columnList = "is_deleted, finish_time, id"),
+        @Index(name = "idx_task_status_deleted_id", columnList = "status, is_deleted, id")
+})
 public class Task {
     /**
      * 任務 ID，主鍵，自增
@@ -34,7 +41,7 @@ public class Task {
     private long id;
 
     /**
-     * 任務 ID，唯一，不可為空
+     * 任務 ID，唯一，不可為空，由 {@link xyz.dowob.audiototext.component.generator.TaskIdGenerator} 產生依照時間排序的 UUID
      */
     @Column(name = "task_id", nullable = false, unique = true)
     private String taskId;
@@ -47,10 +54,12 @@ public class Task {
     private TaskStatusDTO.Status status;
 
     /**
-     * 任務結果，使用 MEDIUMTEXT 類型保存(最大 16MB, 16*1024*1024)
+     * 任務結果，保存於獨立的 {@link TaskResult} 資料表中，並延遲載入
+     * 查詢任務狀態時不會一併載入完整的轉譯內容，需要時使用 {@link xyz.dowob.audiototext.repository.TaskRepository#findResultByTaskId} 查詢
      */
-    @Column(name = "result", columnDefinition = "MEDIUMTEXT")
-    private String result;
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "result_id")
+    private TaskResult taskResult;
 
     /**
      * 下載地址，保存結果的下載地址
@@ -58,6 +67,30 @@ public class Task {
     @Column(name = "download_url")
     private String downloadUrl;
 
+    /**
+     * 音檔長度，單位為毫秒，上傳時探測，無法取得時為 null
+     */
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+
+    /**
+     * 音訊編碼，例如 pcm_s16le、mp3
+     */
+    @Column(name = "codec", length = 32)
+    private String codec;
+
+    /**
+     * 原始音檔的採樣率，單位為Hz
+     */
+    @Column(name = "sample_rate")
+    private Integer sampleRate;
+
+    /**
+     * 原始音檔的聲道數量
+     */
+    @Column(name = "channels")
+    private Integer channels;
+
     /**
      * 創建時間，不可為空
      */
@@ -113,9 +146,6 @@ public class Task {
         map.put("downloadUrl", downloadUrl);
         map.put("createTime", createTime);
         map.put("finishTime", finishTime);
-
-        String truncatedResult = result != null && result.length() > 100 ? result.substring(0, 100) + "..." : result;
-        map.put("result", truncatedResult);
         return map.toString();
     }
 
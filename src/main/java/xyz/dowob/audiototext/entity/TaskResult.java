@@ -0,0 +1,71 @@
+package xyz.dowob.audiototext.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 任務結果實體，用於保存任務的完整轉譯結果
+ * 與 {@link Task} 分開保存，避免查詢任務狀態或執行定時任務時一併載入大量的轉譯內容
+ * 由 {@link Task} 以延遲載入的方式引用，只有在需要結果時才會查詢
+ * 結果預設會經過壓縮後保存於 payload 中，並以 codec 標記編碼方式，未標記的舊資料則保存於 content 中
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskResult
+ * @create 2025/4/13
+ * @Version 1.0
+ **/
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+public class TaskResult {
+    /**
+     * 結果 ID，主鍵，自增
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    /**
+     * 未編碼的任務結果內容，使用 MEDIUMTEXT 類型保存(最大 16MB, 16*1024*1024)
+     * 只有舊版資料或編碼失敗時使用，此時 codec 為 null
+     */
+    @Column(name = "content", columnDefinition = "MEDIUMTEXT")
+    private String content;
+
+    /**
+     * 任務結果的編碼名稱，對應 {@link xyz.dowob.audiototext.component.codec.PayloadCodec#getName()}
+     * 為 null 時表示結果未編碼，保存於 content 中
+     */
+    @Column(name = "codec", length = 16)
+    private String codec;
+
+    /**
+     * 編碼後的任務結果內容，使用 MEDIUMBLOB 類型保存
+     */
+    @Column(name = "payload", columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
+    /**
+     * TaskResult 構造方法，保存未編碼的任務結果
+     *
+     * @param content 任務結果內容
+     */
+    public TaskResult (String content) {
+        this.content = content;
+    }
+
+    /**
+     * TaskResult 構造方法，保存編碼後的任務結果
+     *
+     * @param codec   編碼名稱
+     * @param payload 編碼後的任務結果內容
+     */
+    public TaskResult (String codec, byte[] payload) {
+        this.codec = codec;
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,35 @@
+package xyz.dowob.audiototext.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import xyz.dowob.audiototext.entity.Task;
+
+/**
+ * 任務結束事件，任務成功或失敗並保存至資料庫後發布
+ * 用於通知需要在任務結束後進行處理的元件，例如排程輸出檔案的到期時間
+ * 繼承 ApplicationEvent 事件類，使用已保存的 Task 作為事件的數據
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskFinishedEvent
+ * @create 2025/4/19
+ * @Version 1.0
+ **/
+@Getter
+public class TaskFinishedEvent extends ApplicationEvent {
+    /**
+     * 已保存的任務 {@link Task}，具有主鍵以及完成時間
+     */
+    private final Task task;
+
+    /**
+     * 任務結束事件構造方法
+     *
+     * @param source 事件源
+     * @param task   已保存的任務
+     */
+    public TaskFinishedEvent(Object source, Task task) {
+        super(source);
+        this.task = task;
+    }
+}
@@ -3,6 +3,7 @@ package xyz.dowob.audiototext.event;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
+import xyz.dowob.audiototext.entity.TranscriptionSegment;
 
 /**
  * 任務更新事件，用於通知 WebSocketHandler 進行 WebSocket 通知
@@ -24,6 +25,11 @@ public class TaskUpdateEvent extends ApplicationEvent {
      */
     private final TaskStatusDTO taskStatusDTO;
 
+    /**
+     * 此次更新新辨識出的轉譯片段，沒有新片段時為 null
+     */
+    private final TranscriptionSegment segment;
+
     /**
      * 任務更新事件構造方法
      *
@@ -31,7 +37,19 @@ public class TaskUpdateEvent extends ApplicationEvent {
      * @param taskStatusDTO 任務的狀態信息
      */
     public TaskUpdateEvent(Object source, TaskStatusDTO taskStatusDTO) {
+        this(source, taskStatusDTO, null);
+    }
+
+    /**
+     * 任務更新事件構造方法，帶有新辨識出的轉譯片段
+     *
+     * @param source        事件源
+     * @param taskStatusDTO 任務的狀態信息
+     * @param segment       新辨識出的轉譯片段
+     */
+    public TaskUpdateEvent(Object source, TaskStatusDTO taskStatusDTO, TranscriptionSegment segment) {
         super(source);
         this.taskStatusDTO = taskStatusDTO;
+        this.segment = segment;
     }
 }
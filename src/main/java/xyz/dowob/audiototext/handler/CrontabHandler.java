@@ -5,11 +5,15 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import xyz.dowob.audiototext.config.AudioProperties;
-import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.dto.OutputCleanupReportDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
+import xyz.dowob.audiototext.service.ProcessingService;
 import xyz.dowob.audiototext.service.TaskService;
+import xyz.dowob.audiototext.service.UploadService;
 
-import java.io.File;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Crontab 任務處理器，處理定時任務
@@ -25,6 +29,11 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class CrontabHandler {
+    /**
+     * 未完成任務的最短保留時間，單位為秒
+     */
+    private static final long MIN_UNFINISHED_SECONDS = 3600;
+
     /**
      * 任務服務類，用於操作任務的增刪改查
      */
@@ -36,63 +45,88 @@ public class CrontabHandler {
     private final AudioProperties audioProperties;
 
     /**
-     * 定時清理未完成任務，清理 1 小時後尚未完成的任務
-     * 當前時間 - 任務創建時間 > 1 小時的任務將被清理，用於處理無法完成的任務
+     * 音訊處理服務類，用於刪除過期任務的輸出檔案
+     */
+    private final ProcessingService processingService;
+
+    /**
+     * 分段上傳服務類，用於清理閒置的上傳
+     */
+    private final UploadService uploadService;
+
+    /**
+     * 定時清理未完成任務，用於處理無法完成的任務
+     * 當前時間 - 任務創建時間超過音檔長度上限加上最大處理時間 (至少 1 小時) 的任務將被清理，仍在處理中的長音檔任務不會被誤刪
+     * 以分批的方式刪除，每批次只查詢任務主鍵，仍在記憶體中處理的任務一律跳過
      * 每天凌晨 1 點執行
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void cleanCanNotFinishTasks() {
-        List<Task> tasks = taskService.findAllCanNotFinishTasks(1);
-        log.info("清理未完成任務: {}", tasks);
-        tasks.forEach(taskService::deleteTaskStatus);
+        AudioProperties.Threshold threshold = audioProperties.getThreshold();
+        long cutoffSeconds = Math.max(MIN_UNFINISHED_SECONDS, (long) threshold.getMaxAudioDuration() + threshold.getMaxProcessingTime());
+        int deleted = taskService.deleteCanNotFinishTasks(cutoffSeconds);
+        log.info("清理未完成任務: {} 筆", deleted);
     }
 
     /**
      * 定時清理過期任務的下載檔案
      * 當前時間 - 任務結束時間 > 設定清理時間的任務將被清理
      * 清理時間設定於 AudioProperties 中的 {@link AudioProperties.Service} 中
-     * 每小時執行一次
+     * 以分批的方式查詢過期任務，直接刪除每個任務的輸出資料夾，再將整批任務一次標記為刪除
+     * 到期的檔案平時由 {@link OutputExpiryHandler} 在到期時刪除，此處作為每日的對帳，處理刪除失敗或排程遺漏的任務
+     * 每天凌晨 3 點執行
      */
-    @Scheduled(cron = "0 0 */1 * * ?")
+    @Scheduled(cron = "0 0 3 * * ?")
     public void cleanExpireTasks() {
         int expireTimeHour = audioProperties.getService().getOutputFileExpiredTime();
         if (expireTimeHour <= 0) {
             return;
         }
-        List<Task> tasks = taskService.findAllByExpireTasks(expireTimeHour);
-        log.info("清理過期任務: {}", tasks);
-        File outputDirectory = new File(audioProperties.getPath().getOutputDirectory());
-        File[] files = outputDirectory.listFiles();
-        if (files == null) {
-            return;
-        }
-        tasks.forEach(task -> {
-            String taskId = task.getTaskId();
-            for (File file : files) {
-                if (file.getName().contains(taskId)) {
-                    if (file.delete()) {
-                        task.setDeleted(true);
-                        taskService.saveTaskStatus(task);
-                        log.info("刪除過期檔案: {}", file.getName());
-                    } else {
-                        log.error("刪除過期檔案失敗: {}", file.getName());
-                    }
-                }
+        LocalDateTime time = LocalDateTime.now().minusHours(expireTimeHour);
+        int batchSize = audioProperties.getThreshold().getMaintenanceBatchSize();
+        int total = 0;
+        long deletedFiles = 0;
+        long deletedBytes = 0;
+        LocalDateTime lastTime = null;
+        long lastId = 0;
+        List<TaskKeyDTO> keys;
+        do {
+            keys = taskService.findExpireTaskKeys(time, lastTime, lastId, batchSize);
+            if (keys.isEmpty()) {
+                break;
             }
-        });
+            OutputCleanupReportDTO report = processingService.deleteOutputFiles(keys);
+            total += taskService.markTasksDeleted(report.cleanedKeys());
+            deletedFiles += report.deletedFiles();
+            deletedBytes += report.deletedBytes();
+            lastTime = keys.getLast().sortTime();
+            lastId = keys.getLast().id();
+        } while (keys.size() == batchSize);
+        log.info("清理過期任務: {} 筆，刪除檔案 {} 個，共釋放 {} bytes", total, deletedFiles, deletedBytes);
     }
 
     /**
      * 定時檢查任務狀態，將失敗的任務標記為刪除
-     * 每小時執行一次
+     * 以分批的方式標記，每批次只查詢任務主鍵
+     * 每天凌晨 1 點執行
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void checkTaskStatus() {
-        List<Task> tasks = taskService.findAllFailAndNotDeletedTasks();
-        log.info("檢查失敗任務狀態 {}", tasks);
-        tasks.forEach(task -> {
-            task.setDeleted(true);
-            taskService.saveTaskStatus(task);
-        });
+        int marked = taskService.markFailedTasksDeleted();
+        log.info("檢查失敗任務狀態: 已標記 {} 筆為刪除", marked);
+    }
+
+    /**
+     * 定時清理閒置的分段上傳
+     * 超過閒置保存時間沒有接收任何分段內容，且沒有正在寫入的分段的上傳將被取消
+     * 閒置保存時間設定於 AudioProperties 中的 {@link AudioProperties.Threshold} 中
+     * 每 5 分鐘執行一次
+     */
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void cleanIdleUploads() {
+        int cleaned = uploadService.cleanIdleUploads();
+        if (cleaned > 0) {
+            log.info("清理閒置的分段上傳: {} 筆", cleaned);
+        }
     }
 }
@@ -14,6 +14,7 @@ import xyz.dowob.audiototext.service.TaskService;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -46,9 +47,10 @@ public class GlobalExceptionHandler implements ApiController {
     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
-     * 正則表達式模式，用於匹配文件路徑
+     * 正則表達式模式，用於從文件路徑中取得任務 ID
+     * 支援 /files/任務ID/任務ID_output.副檔名 以及舊版的 /files/任務ID_output.副檔名
      */
-    Pattern pattern = Pattern.compile("/files/|_output\\.[^/]+");
+    Pattern pattern = Pattern.compile("^/files/([^/_]+)");
 
     /**
      * 全局異常處理器，處理 NoResourceFoundException 異常
@@ -62,7 +64,8 @@ public class GlobalExceptionHandler implements ApiController {
     public ResponseEntity<?> handleNoHandlerFoundException(HttpServletRequest request) {
         String requestURI = request.getRequestURI();
         if (requestURI.startsWith("/file")) {
-            String taskId = pattern.matcher(requestURI).replaceAll("");
+            Matcher matcher = pattern.matcher(requestURI);
+            String taskId = matcher.find() ? matcher.group(1) : requestURI;
             Task task = taskService.findTaskByTaskId(taskId);
             if (task == null || task.getStatus() == TaskStatusDTO.Status.FAILED) {
                 String errorMessage = String.format("沒有找到此任務的檔案: %s", taskId);
@@ -0,0 +1,207 @@
+package xyz.dowob.audiototext.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import xyz.dowob.audiototext.component.scheduler.HierarchicalTimerWheel;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.OutputCleanupReportDTO;
+import xyz.dowob.audiototext.dto.TaskExpiryDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
+import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.service.ProcessingService;
+import xyz.dowob.audiototext.service.TaskService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 輸出檔案到期處理器，使用階層式時間輪排程每個任務輸出檔案的到期時間
+ * 任務完成時排程到期事件，啟動時從資料庫重建所有尚未刪除的任務，每秒推進時間輪並刪除到期的輸出檔案
+ * 檔案在到期後數秒內即被刪除，且刪除分散於各個時間點，不需要定時掃描整個任務歷史
+ * 刪除檔案以及更新資料庫交由專用的清理線程依序執行，避免大量任務同時到期時佔用排程線程，延誤其他排程任務
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName OutputExpiryHandler
+ * @create 2025/4/19
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+public class OutputExpiryHandler {
+    /**
+     * 時間輪的刻度，單位為毫秒
+     */
+    private static final long TICK_MILLIS = 1000;
+
+    /**
+     * 任務服務類，用於查詢任務以及標記任務為刪除
+     */
+    private final TaskService taskService;
+
+    /**
+     * 音訊處理服務類，用於刪除輸出檔案
+     */
+    private final ProcessingService processingService;
+
+    /**
+     * 音檔配置類，用於取得輸出檔案的保存時間
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 輸出檔案到期的時間輪
+     */
+    private final HierarchicalTimerWheel<TaskKeyDTO> timerWheel = new HierarchicalTimerWheel<>(TICK_MILLIS, System.currentTimeMillis());
+
+    /**
+     * 時間輪是否已從資料庫重建完成，重建完成前不推進時間輪
+     */
+    private final AtomicBoolean ready = new AtomicBoolean(false);
+
+    /**
+     * 刪除到期輸出檔案的單一線程，依序處理每個刻度取出的到期任務
+     */
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("output-expiry-cleanup").daemon().factory());
+
+    /**
+     * 到期刪除的任務數量
+     */
+    private final Counter expiredTaskCounter;
+
+    /**
+     * OutputExpiryHandler 構造方法，並註冊時間輪相關的指標
+     *
+     * @param taskService       任務服務類
+     * @param processingService 音訊處理服務類
+     * @param audioProperties   音檔配置類
+     * @param meterRegistry     指標註冊器
+     */
+    public OutputExpiryHandler (TaskService taskService, ProcessingService processingService, AudioProperties audioProperties, MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.processingService = processingService;
+        this.audioProperties = audioProperties;
+        Gauge.builder("task.output.expiry.scheduled", timerWheel, HierarchicalTimerWheel::size).description("已排程到期的任務數量").register(meterRegistry);
+        this.expiredTaskCounter = Counter.builder("task.output.expiry.expired").description("到期刪除輸出檔案的任務數量").register(meterRegistry);
+    }
+
+    /**
+     * 應用程式啟動完成後，從資料庫分批載入所有已完成且未刪除的任務，重建時間輪
+     * 已經到期的任務會在下一次推進時立即刪除
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild () {
+        if (!isEnabled()) {
+            return;
+        }
+        int batchSize = audioProperties.getThreshold().getMaintenanceBatchSize();
+        int total = 0;
+        LocalDateTime lastTime = null;
+        long lastId = 0;
+        List<TaskExpiryDTO> expiries;
+        try {
+            do {
+                expiries = taskService.findNotDeleteExpiries(lastTime, lastId, batchSize);
+                if (expiries.isEmpty()) {
+                    break;
+                }
+                for (TaskExpiryDTO expiry : expiries) {
+                    schedule(expiry.id(), expiry.taskId(), expiry.finishTime());
+                }
+                total += expiries.size();
+                lastTime = expiries.getLast().finishTime();
+                lastId = expiries.getLast().id();
+            } while (expiries.size() == batchSize);
+            log.info("已重建輸出檔案到期排程: {} 筆", total);
+        } catch (Exception e) {
+            log.error("重建輸出檔案到期排程失敗，將由每日的清理任務處理: ", e);
+        } finally {
+            ready.set(true);
+        }
+    }
+
+    /**
+     * 排程已完成任務的輸出檔案到期事件，任務必須已經保存並且具有完成時間
+     *
+     * @param task 已完成的任務
+     */
+    public void schedule (Task task) {
+        if (!isEnabled() || task.getFinishTime() == null) {
+            return;
+        }
+        schedule(task.getId(), task.getTaskId(), task.getFinishTime());
+    }
+
+    /**
+     * 每秒推進時間輪，並將到期的任務交由清理線程刪除輸出檔案，排程線程不等待刪除完成
+     * 刪除失敗的任務不會重新排程，由每日的清理任務處理
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void tick () {
+        if (!ready.get() || cleanupExecutor.isShutdown()) {
+            return;
+        }
+        List<TaskKeyDTO> expired = timerWheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+        cleanupExecutor.execute(() -> deleteExpired(expired));
+    }
+
+    /**
+     * 關閉清理線程，尚未執行的刪除由下次啟動時重建的時間輪或每日的清理任務處理
+     */
+    @PreDestroy
+    public void shutdown () {
+        cleanupExecutor.shutdownNow();
+    }
+
+    /**
+     * 刪除到期任務的輸出檔案，並將成功刪除的任務標記為刪除
+     *
+     * @param expired 到期的任務
+     */
+    private void deleteExpired (List<TaskKeyDTO> expired) {
+        try {
+            OutputCleanupReportDTO report = processingService.deleteOutputFiles(expired);
+            int marked = taskService.markTasksDeleted(report.cleanedKeys());
+            expiredTaskCounter.increment(marked);
+            log.info("刪除到期任務的輸出檔案: {} 筆，刪除檔案 {} 個，共釋放 {} bytes", marked, report.deletedFiles(), report.deletedBytes());
+        } catch (Exception e) {
+            log.error("刪除到期任務的輸出檔案失敗: ", e);
+        }
+    }
+
+    /**
+     * 根據完成時間以及輸出檔案保存時間，排程任務的到期事件
+     *
+     * @param id         任務主鍵
+     * @param taskId     任務 ID
+     * @param finishTime 完成時間
+     */
+    private void schedule (long id, String taskId, LocalDateTime finishTime) {
+        LocalDateTime expireTime = finishTime.plusHours(audioProperties.getService().getOutputFileExpiredTime());
+        long deadline = expireTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timerWheel.schedule(new TaskKeyDTO(id, taskId, null, finishTime), deadline);
+    }
+
+    /**
+     * 輸出檔案保存時間設定為 0 時不會刪除任何檔案
+     *
+     * @return 是否啟用到期刪除
+     */
+    private boolean isEnabled () {
+        return audioProperties.getService().getOutputFileExpiredTime() > 0;
+    }
+}
@@ -6,18 +6,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
 import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.PunctuationTaskDTO;
 
 import java.io.*;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Python 進程處理器，用於處理與 Python 進程的通訊
  * 用於與 Python 進程通訊，發送文本，接收處理結果，並返回結果
- * 在初始化時，會啟動 Python 進程，並監聽 Python 進程的輸出
+ * 在初始化時，會啟動 Python 進程，並監聽 Python 進程的標準輸出與標準錯誤輸出
+ * 進程終止或無回應時，可以由 {@link xyz.dowob.audiototext.provider.PythonServiceProvider} 呼叫 {@link #restart()} 重新啟動，處理器本身與其在處理器池中的位置保持不變
  * {@link xyz.dowob.audiototext.provider.PythonServiceProvider} 用於提供 Python 進程處理器以及初始化此類
  *
  * @author yuan
@@ -30,19 +37,29 @@ import java.util.concurrent.TimeoutException;
 @Log4j2
 public class PythonProcessHandler {
     /**
-     * Python 線程類，管理 Python 進程
+     * 重新啟動失敗後的最長等待時間，單位為秒
      */
-    private final Process pythonProcess;
+    private static final long MAX_RESTART_BACKOFF_SECONDS = 300;
 
     /**
-     * Python 輸出流處理器，用於向 Python 進程發送輸入
+     * Python 線程類，管理 Python 進程，重新啟動時會被替換
      */
-    private final BufferedWriter bufferedWriter;
+    private volatile Process pythonProcess;
 
     /**
-     * Python 輸入流處理器，用於讀取 Python 進程的輸出
+     * Python 輸出流處理器，用於向 Python 進程發送輸入，重新啟動時會被替換
      */
-    private final BufferedReader bufferedReader;
+    private volatile BufferedWriter bufferedWriter;
+
+    /**
+     * Python 腳本與虛擬環境所在的目錄
+     */
+    private final File venvDirectory;
+
+    /**
+     * 重新啟動失敗後的初始等待時間，單位為秒，每次連續失敗後加倍
+     */
+    private final int restartBackoff;
 
     /**
      * Json 映射器，用於解析 Python 進程的輸出並轉換為 Json格式
@@ -66,9 +83,40 @@ public class PythonProcessHandler {
     private final int processHandlerId;
 
     /**
-     * 當前處理任務的異步返回值，用於等待 Python 進程的返回結果
+     * 已發送但尚未收到回應的請求，Key 為請求 ID，監聽器依照回應中的請求 ID 完成對應的異步返回值
+     * 同一個 Python 進程可以同時有多個請求等待處理，數量由 {@link xyz.dowob.audiototext.provider.PythonServiceProvider} 限制
+     */
+    private final Map<Long, CompletableFuture<JsonNode>> pendingResponseMap = new ConcurrentHashMap<>();
+
+    /**
+     * 請求 ID 產生器
+     */
+    private final AtomicLong requestIdSequence = new AtomicLong();
+
+    /**
+     * 最後一次與 Python 進程有往來的時間 (收到回應，或在沒有等待中請求時發送請求)，單位為奈秒，用於判斷進程是否卡住
+     */
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    /**
+     * 最後一次完成標點符號請求的時間，單位為奈秒，心跳請求不列入計算，用於判斷處理器是否閒置
+     */
+    private volatile long lastWorkNanos = System.nanoTime();
+
+    /**
+     * 是否正在重新啟動，重新啟動期間處理器不接受新的請求
+     */
+    private final AtomicBoolean restarting = new AtomicBoolean(false);
+
+    /**
+     * 連續重新啟動失敗的次數
+     */
+    private volatile int restartFailures;
+
+    /**
+     * 下一次允許重新啟動的時間，單位為奈秒
      */
-    private CompletableFuture<JsonNode> responseFuture;
+    private volatile long nextRestartNanos = System.nanoTime();
 
 
     /**
@@ -81,27 +129,148 @@ public class PythonProcessHandler {
     public PythonProcessHandler (File venvDirectory, AudioProperties audioProperties, String pythonName, int processHandlerId) throws IOException {
         this.processHandlerId = processHandlerId;
         this.pythonName = pythonName;
+        this.venvDirectory = venvDirectory;
         this.maxProcessingTime = audioProperties.getThreshold().getMaxProcessingTime();
+        this.restartBackoff = Math.max(1, audioProperties.getThreshold().getPythonRestartBackoff());
+        start();
+    }
+
+    /**
+     * 啟動 Python 進程，並啟動標準輸出的監聽器與標準錯誤輸出的讀取線程，最後測試與 Python 進程的通訊
+     * 標準錯誤輸出必須持續讀取，否則管道緩衝區寫滿後 Python 進程會被阻塞
+     *
+     * @throws IOException 啟動 Python 進程或測試通訊時出現錯誤
+     */
+    private void start () throws IOException {
         ProcessBuilder pb = new ProcessBuilder(getProgramPath(venvDirectory), "PunctuationRestoration.py");
         pb.directory(venvDirectory);
         pb.redirectErrorStream(false);
-        this.pythonProcess = pb.start();
-        this.bufferedWriter = new BufferedWriter(new OutputStreamWriter(pythonProcess.getOutputStream()));
-        this.bufferedReader = new BufferedReader(new InputStreamReader(pythonProcess.getInputStream()));
-        startListener();
-        testCommunication();
+        Process process = pb.start();
+        this.pythonProcess = process;
+        this.bufferedWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        this.lastActivityNanos = System.nanoTime();
+        startListener(process);
+        startErrorReader(process);
+        try {
+            testCommunication();
+        } catch (IOException e) {
+            stopProcess(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 重新啟動 Python 進程，等待中的請求皆以異常結束，重新啟動期間 {@link #isReady()} 返回 false
+     * 失敗時依照連續失敗次數加倍下一次允許重新啟動的等待時間，成功時重設
+     *
+     * @throws IOException 重新啟動失敗
+     */
+    public void restart () throws IOException {
+        if (!restarting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            stopProcess(new IOException("Python 進程重新啟動"));
+            start();
+            restartFailures = 0;
+            log.info("Python 處理器 [{}] 已重新啟動", processHandlerId);
+        } catch (IOException e) {
+            restartFailures++;
+            long backoff = Math.min(MAX_RESTART_BACKOFF_SECONDS, (long) restartBackoff << Math.min(restartFailures - 1, 16));
+            nextRestartNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(backoff);
+            log.error("Python 處理器 [{}] 重新啟動失敗，{} 秒後重試: {}", processHandlerId, backoff, e.getMessage());
+            throw e;
+        } finally {
+            restarting.set(false);
+        }
+    }
+
+    /**
+     * 是否已超過重新啟動失敗後的等待時間，可以再次重新啟動
+     *
+     * @return 是否可以重新啟動
+     */
+    public boolean isRestartDue () {
+        return !restarting.get() && System.nanoTime() - nextRestartNanos >= 0;
+    }
+
+    /**
+     * 處理器是否可以接受新的請求，即 Python 進程存活且不在重新啟動中
+     *
+     * @return 是否可以接受新的請求
+     */
+    public boolean isReady () {
+        return !restarting.get() && pythonProcess.isAlive();
+    }
+
+    /**
+     * 檢查 Python 進程是否健康
+     * 進程已終止時不健康；有等待中的請求時，超過最大處理時間沒有任何回應即視為卡住；
+     * 沒有等待中的請求時發送心跳請求，在指定時間內收到回應，或等待期間收到其他回應即視為健康
+     *
+     * @param heartbeatTimeout 心跳請求的等待時間，單位為秒
+     *
+     * @return 是否健康
+     */
+    public boolean checkHealth (int heartbeatTimeout) {
+        if (restarting.get()) {
+            return true;
+        }
+        if (!pythonProcess.isAlive()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (!pendingResponseMap.isEmpty()) {
+            return now - lastActivityNanos < TimeUnit.SECONDS.toNanos(maxProcessingTime);
+        }
+        try {
+            request(Map.of("type", "ping"), heartbeatTimeout);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (IOException | ExecutionException e) {
+            return lastActivityNanos - now > 0;
+        }
+    }
+
+    /**
+     * 停止目前的 Python 進程，關閉輸入流並等待進程結束，逾時則強制終止，所有等待中的請求以指定的異常結束
+     *
+     * @param cause 等待中請求的異常
+     */
+    private void stopProcess (Throwable cause) {
+        Process process = pythonProcess;
+        try {
+            bufferedWriter.close();
+        } catch (IOException e) {
+            log.debug("關閉 Python Process 輸入流失敗: {}", e.getMessage());
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        failPending(cause);
     }
 
     /**
      * 測試與 Python 進程的通訊，在初始化時，測試與 Python 進程的通訊是否正常
+     * 會等待測試的回應，避免測試的回應被當作第一個任務的結果
      *
      * @throws IOException 測試 Python通訊出現錯誤
      */
     private void testCommunication () throws IOException {
         try {
-            String testInput = objectMapper.writeValueAsString(Map.of("text", "test", "taskId", "test-init"));
-            bufferedWriter.write(testInput + "\n");
-            bufferedWriter.flush();
+            String restoredText = sendText("test", "test-init");
+            log.debug("Python 通訊測試完成: {}", restoredText);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("測試 Python通訊被中斷");
         } catch (Exception e) {
             log.error("測試 Python通訊出現錯誤: {}", e.getMessage());
             throw new IOException("測試 Python通訊出現錯誤: " + e.getMessage());
@@ -127,43 +296,97 @@ public class PythonProcessHandler {
      * 啟動 Python 進程監聽器，用於監聽 Python 進程的輸出
      * 當 Python 進程輸出有新的輸出時，解析輸出並處理
      * 分成兩種情況，一種是 Python 進程返回結果，另一種是 Python 進程返回錯誤
-     * 當 Python 進程返回結果時，將結果返回給當前處理的任務
+     * 當 Python 進程返回結果時，依照回應中的請求 ID 將結果返回給對應的任務，已超時的請求的回應會被忽略
+     * 當 Python 進程結束輸出時，若該進程仍是目前的進程，所有等待中的請求皆以異常結束
+     *
+     * @param process 監聽的 Python 進程
      */
-    private void startListener () {
+    private void startListener (Process process) {
         log.debug("Python Process 監聽器已啟動");
         Thread listenerThread = new Thread(() -> {
             String line;
-            try {
+            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                 while ((line = bufferedReader.readLine()) != null) {
-                    JsonNode node = objectMapper.readTree(line);
-                    if (responseFuture != null && node.has("taskId")) {
-                        responseFuture.complete(node);
-                        responseFuture = null;
+                    JsonNode node;
+                    try {
+                        node = objectMapper.readTree(line);
+                    } catch (JsonProcessingException e) {
+                        log.debug("非Json格式訊息: {}", e.getMessage());
+                        continue;
+                    }
+                    if (!node.hasNonNull("requestId")) {
+                        continue;
+                    }
+                    lastActivityNanos = System.nanoTime();
+                    CompletableFuture<JsonNode> future = pendingResponseMap.remove(node.get("requestId").asLong());
+                    if (future != null) {
+                        future.complete(node);
+                    } else {
+                        log.debug("忽略已超時的請求回應: {}", node.get("requestId").asLong());
                     }
                 }
-            } catch (JsonProcessingException e) {
-                log.debug("非Json格式訊息: {}", e.getMessage());
+                if (process == pythonProcess) {
+                    failPending(new IOException("Python 進程已終止"));
+                }
             } catch (IOException e) {
-                log.warn("無法讀取 Python Process 輸出: {}", e.getMessage());
-                if (responseFuture != null) {
-                    responseFuture.completeExceptionally(e);
-                    responseFuture = null;
+                if (restarting.get() || process != pythonProcess) {
+                    log.debug("Python Process 輸出已關閉: {}", e.getMessage());
+                } else {
+                    log.warn("無法讀取 Python Process 輸出: {}", e.getMessage());
+                }
+                if (process == pythonProcess) {
+                    failPending(e);
                 }
             } catch (Exception e) {
                 log.error("Python Process 監聽器錯誤: {}", e.getMessage());
-                if (responseFuture != null) {
-                    responseFuture.completeExceptionally(e);
-                    responseFuture = null;
+                if (process == pythonProcess) {
+                    failPending(e);
                 }
             }
         });
+        listenerThread.setName(String.format("Python-Listener-%d", processHandlerId));
         listenerThread.setDaemon(true);
         listenerThread.start();
     }
 
+    /**
+     * 啟動標準錯誤輸出的讀取線程，將 Python 進程的標準錯誤輸出逐行寫入日誌
+     *
+     * @param process Python 進程
+     */
+    private void startErrorReader (Process process) {
+        Thread errorThread = new Thread(() -> {
+            String line;
+            try (BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
+                while ((line = errorReader.readLine()) != null) {
+                    log.info("Python 處理器 [{}]: {}", processHandlerId, line);
+                }
+            } catch (IOException e) {
+                log.debug("Python Process 標準錯誤輸出已關閉: {}", e.getMessage());
+            }
+        });
+        errorThread.setName(String.format("Python-Stderr-%d", processHandlerId));
+        errorThread.setDaemon(true);
+        errorThread.start();
+    }
+
+    /**
+     * 以異常結束所有等待中的請求
+     *
+     * @param throwable 異常
+     */
+    private void failPending (Throwable throwable) {
+        pendingResponseMap.keySet().forEach(requestId -> {
+            CompletableFuture<JsonNode> future = pendingResponseMap.remove(requestId);
+            if (future != null) {
+                future.completeExceptionally(throwable);
+            }
+        });
+    }
+
     /**
      * 發送文本給 Python 進程，並等待 Python 進程返回結果
-     * 獲取 Python 進程處理後的文本，並返回給任務中CompletableFuture
+     * 每個請求附帶唯一的請求 ID，多個線程可以同時發送請求，不需要等待前一個請求完成，Python 進程依序處理並以請求 ID 回應
      *
      * @param text   文本
      * @param taskId 任務 ID
@@ -174,48 +397,151 @@ public class PythonProcessHandler {
      * @throws ExecutionException   等待 Python 進程返回結果時出現異常
      * @throws InterruptedException 等待 Python 進程返回結果時被中斷
      */
-    public synchronized String sendText (String text, String taskId) throws IOException, ExecutionException, InterruptedException {
+    public String sendText (String text, String taskId) throws IOException, ExecutionException, InterruptedException {
+        JsonNode node;
+        try {
+            node = request(Map.of("text", text, "taskId", taskId));
+        } finally {
+            lastWorkNanos = System.nanoTime();
+        }
+        if (node.get("isSuccess").asBoolean()) {
+            return node.get("restoredText").asText();
+        } else {
+            throw new IOException("Python腳本在處理時發生異常: " + node.get("error").asText());
+        }
+    }
+
+    /**
+     * 將多個任務合併為一個批次請求發送給 Python 進程，Python 進程以單次模型推論處理所有文本，並返回各任務的結果
+     * 結果直接完成各任務的異步返回值，整個批次失敗時所有任務皆以異常結束，只有一個任務時以一般請求發送
+     *
+     * @param batch 批次中的任務
+     */
+    public void sendBatch (List<PunctuationTaskDTO> batch) {
+        try {
+            if (batch.size() == 1) {
+                PunctuationTaskDTO task = batch.getFirst();
+                task.getFuture().complete(sendText(task.getText(), task.getTaskId()));
+                return;
+            }
+            List<Map<String, String>> items = batch.stream().map(task -> Map.of("text", task.getText(), "taskId", task.getTaskId())).toList();
+            JsonNode node;
+            try {
+                node = request(Map.of("batch", items, "taskId", batch.getFirst().getTaskId()));
+            } finally {
+                lastWorkNanos = System.nanoTime();
+            }
+            if (!node.get("isSuccess").asBoolean()) {
+                throw new IOException("Python腳本在處理時發生異常: " + node.get("error").asText());
+            }
+            JsonNode results = node.get("results");
+            if (results == null || results.size() != batch.size()) {
+                throw new IOException("Python腳本返回的批次結果數量不符");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                JsonNode result = results.get(i);
+                if (result.get("isSuccess").asBoolean()) {
+                    batch.get(i).getFuture().complete(result.get("restoredText").asText());
+                } else {
+                    batch.get(i).getFuture().completeExceptionally(new IOException("Python腳本在處理時發生異常: " + result.get("error").asText()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(task -> task.getFuture().completeExceptionally(e));
+        } catch (Exception e) {
+            log.error("Python 處理錯誤: {}", e.getMessage());
+            batch.forEach(task -> task.getFuture().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 發送請求給 Python 進程，並等待對應請求 ID 的回應
+     *
+     * @param payload 請求內容，會附加請求 ID
+     *
+     * @return Python 進程的回應
+     *
+     * @throws IOException          發送請求時出現 IO 錯誤或處理時間超過限制
+     * @throws ExecutionException   等待 Python 進程返回結果時出現異常
+     * @throws InterruptedException 等待 Python 進程返回結果時被中斷
+     */
+    private JsonNode request (Map<String, Object> payload) throws IOException, ExecutionException, InterruptedException {
+        return request(payload, maxProcessingTime);
+    }
+
+    /**
+     * 發送請求給 Python 進程，並在指定時間內等待對應請求 ID 的回應
+     *
+     * @param payload        請求內容，會附加請求 ID
+     * @param timeoutSeconds 等待時間，單位為秒
+     *
+     * @return Python 進程的回應
+     *
+     * @throws IOException          發送請求時出現 IO 錯誤或處理時間超過限制
+     * @throws ExecutionException   等待 Python 進程返回結果時出現異常
+     * @throws InterruptedException 等待 Python 進程返回結果時被中斷
+     */
+    private JsonNode request (Map<String, Object> payload, int timeoutSeconds) throws IOException, ExecutionException, InterruptedException {
         if (!pythonProcess.isAlive()) {
             throw new IOException("Python 進程已終止");
         }
 
-        responseFuture = new CompletableFuture<>();
-        String input = objectMapper.writeValueAsString(Map.of("text", text, "taskId", taskId));
+        long requestId = requestIdSequence.incrementAndGet();
+        CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        Map<String, Object> message = new HashMap<>(payload);
+        message.put("requestId", requestId);
+        String input = objectMapper.writeValueAsString(message);
+        if (pendingResponseMap.isEmpty()) {
+            lastActivityNanos = System.nanoTime();
+        }
+        pendingResponseMap.put(requestId, future);
 
         try {
-            bufferedWriter.write(input + "\n");
-            bufferedWriter.flush();
-
-            JsonNode node = responseFuture.get(maxProcessingTime, TimeUnit.SECONDS);
-            if (node.get("isSuccess").asBoolean()) {
-                return node.get("restoredText").asText();
-            } else {
-                throw new IOException("Python腳本在處理時發生異常: " + node.get("error").asText());
+            synchronized (bufferedWriter) {
+                bufferedWriter.write(input + "\n");
+                bufferedWriter.flush();
             }
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
         } catch (TimeoutException e) {
             throw new IOException("處理文檔時間超過限制");
+        } finally {
+            pendingResponseMap.remove(requestId);
         }
     }
 
     /**
-     * 判斷 Python 進程是否可用
+     * 取得處理器已閒置的時間，有等待中的請求時為 0
      *
-     * @return Python 進程是否可用
+     * @return 閒置時間，單位為奈秒
      */
-    public boolean isAvailable () {
-        return responseFuture == null;
+    public long getIdleNanos () {
+        return pendingResponseMap.isEmpty() ? Math.max(0, System.nanoTime() - lastWorkNanos) : 0;
     }
 
     /**
-     * 銷毀 Python 進程，關閉 Python 進程的輸入流，輸出流，並銷毀 Python 進程
+     * 取得目前 Python 進程的 PID
+     *
+     * @return PID
+     */
+    public long getPid () {
+        return pythonProcess.pid();
+    }
+
+    /**
+     * 取得已發送但尚未收到回應的請求數量
+     *
+     * @return 請求數量
+     */
+    public int getPendingCount () {
+        return pendingResponseMap.size();
+    }
+
+    /**
+     * 銷毀 Python 進程，關閉 Python 進程的輸入流並銷毀 Python 進程，輸出流會在進程結束後由讀取線程關閉
      */
     public void destroy () {
-        try {
-            bufferedWriter.close();
-            bufferedReader.close();
-            pythonProcess.destroy();
-        } catch (IOException e) {
-            log.error("Python Process 銷毀失敗: {}", e.getMessage());
-        }
+        restarting.set(true);
+        stopProcess(new IOException("Python 處理器已銷毀"));
     }
 }
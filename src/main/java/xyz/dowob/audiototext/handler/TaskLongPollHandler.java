@@ -0,0 +1,68 @@
+package xyz.dowob.audiototext.handler;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import xyz.dowob.audiototext.event.TaskUpdateEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任務狀態長輪詢處理器，保存等待任務狀態變更的請求
+ * 當任務狀態更新時，喚醒所有等待此任務的請求，讓請求以非同步的方式返回最新的任務狀態
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskLongPollHandler
+ * @create 2025/4/10
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+public class TaskLongPollHandler {
+    /**
+     * 等待中的請求 Map，Key 為任務 ID，Value 為任務狀態更新時要執行的回調
+     */
+    private final Map<String, Set<Runnable>> waiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 登記等待任務狀態變更的請求，當請求完成(包含逾時)時自動移除
+     * 呼叫者在登記後應再次檢查任務版本，避免在檢查與登記之間發生的更新被遺漏
+     *
+     * @param taskId         任務 ID
+     * @param deferredResult 非同步請求結果
+     * @param onUpdate       任務狀態更新時要執行的回調
+     */
+    public void await (String taskId, DeferredResult<?> deferredResult, Runnable onUpdate) {
+        waiterMap.compute(taskId, (key, waiters) -> {
+            Set<Runnable> set = waiters == null ? ConcurrentHashMap.newKeySet() : waiters;
+            set.add(onUpdate);
+            return set;
+        });
+        deferredResult.onCompletion(() -> waiterMap.computeIfPresent(taskId, (key, waiters) -> {
+            waiters.remove(onUpdate);
+            return waiters.isEmpty() ? null : waiters;
+        }));
+    }
+
+    /**
+     * 處理任務更新事件，喚醒所有等待此任務的請求
+     *
+     * @param event 任務更新事件
+     */
+    public void onTaskUpdate (TaskUpdateEvent event) {
+        Set<Runnable> waiters = waiterMap.remove(event.getTaskStatusDTO().getTaskId());
+        if (waiters == null) {
+            return;
+        }
+        for (Runnable waiter : waiters) {
+            try {
+                waiter.run();
+            } catch (Exception e) {
+                log.error("喚醒長輪詢請求失敗: {}", e.getMessage());
+            }
+        }
+    }
+}
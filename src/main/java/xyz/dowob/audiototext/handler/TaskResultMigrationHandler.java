@@ -0,0 +1,98 @@
+package xyz.dowob.audiototext.handler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務結果遷移處理器，將舊版保存於 task.result 欄位中的任務結果搬移至 task_result 資料表
+ * 舊版的任務結果與任務狀態保存在同一列中，新版改為獨立保存並由 task.result_id 引用
+ * 應用程式啟動完成後執行一次，若資料庫中不存在舊欄位則直接略過，遷移失敗不影響服務啟動
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskResultMigrationHandler
+ * @create 2025/4/13
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class TaskResultMigrationHandler {
+    /**
+     * 每批次遷移的任務數量
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * JDBC 操作類，遷移時直接操作舊欄位，因此不經過 JPA 實體
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 交易模板，每批次的新增結果與更新引用在同一個交易中執行
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 在應用程式啟動完成後，遷移舊版保存於 task.result 欄位中的任務結果
+     * 每批次查詢尚未遷移的任務，新增結果至 task_result 資料表，並將舊欄位清空
+     * 每批次在同一個交易中執行，中斷時不會留下沒有任務引用的結果，重新執行時也不會重複遷移
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyResults () {
+        try {
+            Integer columnCount = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'task' AND COLUMN_NAME = 'result'",
+                    Integer.class);
+            if (columnCount == null || columnCount == 0) {
+                return;
+            }
+            int migrated = 0;
+            List<Map<String, Object>> rows;
+            do {
+                rows = jdbcTemplate.queryForList("SELECT id, result FROM task WHERE result IS NOT NULL AND result_id IS NULL LIMIT ?", BATCH_SIZE);
+                List<Map<String, Object>> batch = rows;
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(
+                        row -> migrateRow(((Number) row.get("id")).longValue(), (String) row.get("result"))));
+                migrated += rows.size();
+            } while (rows.size() == BATCH_SIZE);
+            if (migrated > 0) {
+                log.info("已遷移 {} 筆舊版任務結果至 task_result 資料表，確認無誤後可手動移除 task.result 欄位", migrated);
+            }
+        } catch (Exception e) {
+            log.error("遷移舊版任務結果失敗: ", e);
+        }
+    }
+
+    /**
+     * 遷移單一任務的結果，新增結果並更新任務的引用，同時清空舊欄位
+     *
+     * @param id      任務主鍵
+     * @param content 任務結果內容
+     */
+    private void migrateRow (long id, String content) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO task_result (content) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, content);
+            return statement;
+        }, keyHolder);
+        Number resultId = keyHolder.getKey();
+        if (resultId == null) {
+            throw new IllegalStateException("無法取得任務結果的主鍵: " + id);
+        }
+        jdbcTemplate.update("UPDATE task SET result_id = ?, result = NULL WHERE id = ?", resultId.longValue(), id);
+    }
+}
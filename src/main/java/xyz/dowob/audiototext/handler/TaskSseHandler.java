@@ -0,0 +1,308 @@
+package xyz.dowob.audiototext.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.TaskStatusDTO;
+import xyz.dowob.audiototext.entity.TranscriptionSegment;
+import xyz.dowob.audiototext.event.TaskUpdateEvent;
+import xyz.dowob.audiototext.service.TaskService;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任務事件串流處理器，使用 Server-Sent Events 推送任務的進度、轉譯片段以及完成結果
+ * 提供無法維持 WebSocket 連線的前端使用，取代輪詢查詢任務狀態
+ * 一個串流可以同時訂閱多個任務，當所有訂閱的任務都結束時，串流會自動關閉
+ * 事件種類:
+ * 1. status: 訂閱時任務的當前狀態
+ * 2. progress: 任務進度更新，包含任務 ID、進度以及狀態
+ * 3. segment: 新辨識出的轉譯片段
+ * 4. complete: 任務結束，包含完整的任務狀態
+ * 5. error: 訂閱的任務不存在
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskSseHandler
+ * @create 2025/4/9
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+public class TaskSseHandler {
+    /**
+     * 任務服務類，用於查詢任務狀態
+     */
+    private final TaskService taskService;
+
+    /**
+     * Jackson ObjectMapper 類，用於將對象轉換為 JSON 字符串
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 音檔配置類，用於取得串流的連線時間上限
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 訂閱 Map，Key 為任務 ID，Value 為訂閱此任務的所有串流
+     */
+    private final Map<String, Set<Subscription>> subscriptionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 所有連線中的串流，用於發送心跳
+     */
+    private final Set<Subscription> activeSubscriptions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * TaskSseHandler 構造方法
+     *
+     * @param taskService     任務服務類
+     * @param objectMapper    Jackson ObjectMapper 類
+     * @param audioProperties 音檔配置類
+     */
+    public TaskSseHandler (TaskService taskService, ObjectMapper objectMapper, AudioProperties audioProperties) {
+        this.taskService = taskService;
+        this.objectMapper = objectMapper;
+        this.audioProperties = audioProperties;
+    }
+
+    /**
+     * 訂閱一個或多個任務的事件串流
+     * 先登記訂閱再查詢任務狀態，避免在查詢與登記之間結束的任務遺漏完成事件
+     * 已結束的任務會直接發送完成事件，不存在的任務會發送錯誤事件
+     *
+     * @param taskIds 任務 ID 列表
+     *
+     * @return 事件串流
+     */
+    public SseEmitter subscribe (List<String> taskIds) {
+        SseEmitter emitter = new SseEmitter(audioProperties.getThreshold().getEventStreamTimeout() * 1000L);
+        Subscription subscription = new Subscription(emitter);
+        emitter.onCompletion(() -> removeSubscription(subscription));
+        emitter.onTimeout(() -> removeSubscription(subscription));
+        emitter.onError(e -> removeSubscription(subscription));
+
+        if (taskIds.isEmpty()) {
+            emitter.complete();
+            return emitter;
+        }
+
+        activeSubscriptions.add(subscription);
+        for (String taskId : taskIds) {
+            subscription.pendingTaskIds().add(taskId);
+            subscriptionMap.computeIfAbsent(taskId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+
+        for (String taskId : taskIds) {
+            try {
+                Optional<TaskStatusDTO> currentStatus = taskService.getTaskStatus(taskId);
+                if (currentStatus.isPresent()) {
+                    send(subscription, "status", objectMapper.writeValueAsString(currentStatus.get()));
+                    continue;
+                }
+                Optional<TaskStatusDTO> finishedStatus = taskService.findFinishedTaskStatus(taskId);
+                if (finishedStatus.isPresent()) {
+                    send(subscription, "complete", objectMapper.writeValueAsString(finishedStatus.get()));
+                } else {
+                    send(subscription, "error", objectMapper.writeValueAsString(Map.of("taskId", taskId, "message", "任務不存在")));
+                }
+                finishTask(subscription, taskId);
+            } catch (Exception e) {
+                log.error("訂閱任務事件失敗: {}", e.getMessage());
+                emitter.completeWithError(e);
+                return emitter;
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 處理任務更新事件，將進度、轉譯片段以及完成結果推送給訂閱此任務的串流
+     * 每種事件只會序列化一次，並由所有訂閱者共用
+     *
+     * @param event 任務更新事件
+     */
+    public void onTaskUpdate (TaskUpdateEvent event) {
+        TaskStatusDTO taskStatusDTO = event.getTaskStatusDTO();
+        String taskId = taskStatusDTO.getTaskId();
+        Set<Subscription> subscriptions = subscriptionMap.get(taskId);
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            return;
+        }
+
+        try {
+            TaskStatusDTO.Snapshot snapshot = taskStatusDTO.snapshot();
+            boolean isFinish = snapshot.status() != TaskStatusDTO.Status.PROCESSING;
+            String segmentData = event.getSegment() == null ? null : toSegmentJson(taskId, event.getSegment());
+            String data = isFinish ? objectMapper.writeValueAsString(snapshot) : toProgressJson(snapshot);
+            for (Subscription subscription : subscriptions) {
+                if (segmentData != null) {
+                    send(subscription, "segment", segmentData);
+                }
+                send(subscription, isFinish ? "complete" : "progress", data);
+                if (isFinish) {
+                    finishTask(subscription, taskId);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.error("序列化任務事件失敗: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定時發送心跳註解，避免代理伺服器關閉閒置的串流連線
+     * 每 15 秒執行一次
+     */
+    @Scheduled(fixedRate = 15000)
+    public void sendHeartbeat () {
+        for (Subscription subscription : activeSubscriptions) {
+            try {
+                subscription.emitter().send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("發送心跳失敗: {}", e.getMessage());
+                removeSubscription(subscription);
+            }
+        }
+    }
+
+    /**
+     * 發送事件給串流，發送失敗時移除此串流的所有訂閱
+     *
+     * @param subscription 串流訂閱
+     * @param name         事件名稱
+     * @param data         事件內容
+     */
+    private void send (Subscription subscription, String name, String data) {
+        try {
+            subscription.emitter().send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("發送任務事件失敗: {}", e.getMessage());
+            removeSubscription(subscription);
+        }
+    }
+
+    /**
+     * 標記串流中的任務已結束，當串流中所有任務都結束時，關閉串流
+     *
+     * @param subscription 串流訂閱
+     * @param taskId       任務 ID
+     */
+    private void finishTask (Subscription subscription, String taskId) {
+        subscription.pendingTaskIds().remove(taskId);
+        Set<Subscription> subscriptions = subscriptionMap.get(taskId);
+        if (subscriptions != null) {
+            subscriptions.remove(subscription);
+            if (subscriptions.isEmpty()) {
+                subscriptionMap.remove(taskId, subscriptions);
+            }
+        }
+        if (subscription.pendingTaskIds().isEmpty()) {
+            activeSubscriptions.remove(subscription);
+            subscription.emitter().complete();
+        }
+    }
+
+    /**
+     * 移除串流的所有訂閱
+     *
+     * @param subscription 串流訂閱
+     */
+    private void removeSubscription (Subscription subscription) {
+        activeSubscriptions.remove(subscription);
+        for (String taskId : subscription.pendingTaskIds()) {
+            Set<Subscription> subscriptions = subscriptionMap.get(taskId);
+            if (subscriptions != null) {
+                subscriptions.remove(subscription);
+                if (subscriptions.isEmpty()) {
+                    subscriptionMap.remove(taskId, subscriptions);
+                }
+            }
+        }
+        subscription.pendingTaskIds().clear();
+    }
+
+    /**
+     * 將任務進度轉換為 JSON 字串，不包含任務結果
+     *
+     * @param snapshot 任務狀態快照
+     *
+     * @return 進度的 JSON 字串
+     *
+     * @throws JsonProcessingException 序列化失敗
+     */
+    private String toProgressJson (TaskStatusDTO.Snapshot snapshot) throws JsonProcessingException {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("taskId", snapshot.taskId());
+        progress.put("progress", snapshot.progress());
+        progress.put("status", snapshot.status());
+        if (snapshot.eta() != null) {
+            progress.put("eta", snapshot.eta());
+        }
+        return objectMapper.writeValueAsString(progress);
+    }
+
+    /**
+     * 將轉譯片段轉換為 JSON 字串
+     *
+     * @param taskId  任務 ID
+     * @param segment 轉譯片段
+     *
+     * @return 轉譯片段的 JSON 字串
+     *
+     * @throws JsonProcessingException 序列化失敗
+     */
+    private String toSegmentJson (String taskId, TranscriptionSegment segment) throws JsonProcessingException {
+        Map<String, Object> segmentMap = new LinkedHashMap<>();
+        segmentMap.put("taskId", taskId);
+        segmentMap.put("text", segment.getText());
+        segmentMap.put("start_time", segment.getStartTime());
+        segmentMap.put("end_time", segment.getEndTime());
+        return objectMapper.writeValueAsString(segmentMap);
+    }
+
+    /**
+     * 串流訂閱，包含事件串流以及尚未結束的任務 ID
+     * 使用物件本身作為識別，尚未結束的任務 ID 會隨任務結束而改變，因此不覆寫 equals 以及 hashCode
+     */
+    private static final class Subscription {
+        /**
+         * 事件串流
+         */
+        private final SseEmitter emitter;
+
+        /**
+         * 尚未結束的任務 ID
+         */
+        private final Set<String> pendingTaskIds = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Subscription 構造方法
+         *
+         * @param emitter 事件串流
+         */
+        private Subscription (SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private SseEmitter emitter () {
+            return emitter;
+        }
+
+        private Set<String> pendingTaskIds () {
+            return pendingTaskIds;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package xyz.dowob.audiototext.handler;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.constraints.NotNull;
@@ -10,21 +9,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import xyz.dowob.audiototext.controller.ApiController;
 import xyz.dowob.audiototext.dto.ApiResponseDTO;
+import xyz.dowob.audiototext.dto.TaskProgressFrameDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
-import xyz.dowob.audiototext.entity.Task;
-import xyz.dowob.audiototext.entity.TranscriptionSegment;
 import xyz.dowob.audiototext.service.TaskService;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WebSocket 處理器，用於處理 WebSocket 的連接和訊息
@@ -43,6 +43,16 @@ import java.util.concurrent.ConcurrentHashMap;
 @Log4j2
 @Component
 public class WebsocketHandler extends TextWebSocketHandler implements ApiController {
+    /**
+     * 單次發送訊息的時間上限，單位為毫秒，超過此時間的連接將被視為異常
+     */
+    private static final int SEND_TIME_LIMIT = 10 * 1000;
+
+    /**
+     * 每個連接的發送緩衝區上限，單位為 byte
+     */
+    private static final int SEND_BUFFER_SIZE_LIMIT = 512 * 1024;
+
     /**
      * 任務服務類，用於操作任務的增刪改查
      */
@@ -54,11 +64,32 @@ public class WebsocketHandler extends TextWebSocketHandler implements ApiControl
     private final ObjectMapper objectMapper;
 
     /**
-     * WebSocket 連接 Session Map，用於保存 WebSocket 連接 Session
-     * 其中 Key 為任務 ID，Value 為 WebSocket 連接 Session
+     * WebSocket 訂閱 Map，用於保存訂閱任務的 WebSocket 連接 Session
+     * 其中 Key 為任務 ID，Value 為訂閱此任務的所有 WebSocket 連接 Session
      * 使用 ConcurrentHashMap 類，保證多線程安全
      */
-    Map<String, WebSocketSession> sessionMap = new ConcurrentHashMap<>();
+    Map<String, Set<WebSocketSession>> sessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 包裝後的 WebSocket 連接 Session，Key 為 Session ID
+     * 使用 {@link ConcurrentWebSocketSessionDecorator} 讓工作線程與訊息處理線程可以同時發送訊息
+     */
+    private final Map<String, WebSocketSession> concurrentSessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 使用精簡進度訊框的 Session ID 集合
+     */
+    private final Set<String> compactSessionIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 任務索引 Map，Key 為任務 ID，Value 為精簡進度訊框中使用的任務索引
+     */
+    private final Map<String, Integer> taskIndexMap = new ConcurrentHashMap<>();
+
+    /**
+     * 任務索引的序號產生器
+     */
+    private final AtomicInteger taskIndexSequence = new AtomicInteger();
 
     /**
      * WebSocketHandler 構造方法
@@ -72,45 +103,81 @@ public class WebsocketHandler extends TextWebSocketHandler implements ApiControl
     }
 
     /**
-     * WebSocket 連接建立時觸發，用於初始化
-     * 當 WebSocket 連接建立時，將 Session 加入 Session Map
-     * 並發送任務狀態信息給前端
+     * WebSocket 連接建立時觸發，將 Session 包裝為可併發發送的 Session
      *
      * @param session WebSocket 連接 Session
      */
     @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        concurrentSessionMap.put(session.getId(), new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, SEND_BUFFER_SIZE_LIMIT));
+    }
+
+    /**
+     * 接收到前端訊息時觸發，用於訂閱任務
+     * 訊息格式為 {"taskId": "任務 ID", "compact": 是否使用精簡進度訊框}
+     * 當任務已完成時，直接發送任務結果；否則將 Session 加入訂閱 Map，並發送任務狀態信息給前端
+     * 使用精簡進度訊框的訂閱者，訂閱時會收到帶有任務 ID 的訊框，之後的進度更新只會收到精簡訊框，任務結束時仍會收到完整的任務狀態
+     *
+     * @param session WebSocket 連接 Session
+     * @param message 前端發送的訊息
+     */
+    @Override
     protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
         log.debug("接收到訊息: {}", message.getPayload());
         String payload = message.getPayload();
+        WebSocketSession useSession = concurrentSessionMap.getOrDefault(session.getId(), session);
         try {
             JsonNode jsonNode = objectMapper.readTree(payload);
             String taskId = jsonNode.get("taskId").asText();
-            Task task = taskService.findTaskByTaskId(taskId, TaskStatusDTO.Status.SUCCESS, TaskStatusDTO.Status.FAILED);
-            if (task != null) {
-                HashMap<String, Object> result = new HashMap<>();
-                result.put("downloadUrl", task.getDownloadUrl());
-                if (task.getStatus() == TaskStatusDTO.Status.FAILED) {
-                    JsonNode errorNode = objectMapper.readTree(task.getResult());
-                    result.put("error", errorNode.get("error").asText());
-                } else {
-                    JsonNode resultNode = objectMapper.readTree(task.getResult());
-                    List<TranscriptionSegment> segments = objectMapper.convertValue(resultNode.get("segments"), new TypeReference<>() {
-                    });
-                    result.put("text", resultNode.get("text").asText());
-                    result.put("segments", segments);
-                }
-                TaskStatusDTO statusDTO = new TaskStatusDTO(taskId, new BigDecimal("100.0"), task.getStatus(), result);
-                sendTaskStatus(statusDTO, session);
+            boolean isCompact = jsonNode.path("compact").asBoolean(false);
+            Optional<TaskStatusDTO> finishedStatus = taskService.findFinishedTaskStatus(taskId);
+            if (finishedStatus.isPresent()) {
+                sendTaskStatus(finishedStatus.get(), useSession);
                 return;
             }
 
             TaskStatusDTO statusDTO = taskService
                     .getTaskStatus(taskId)
                     .orElseThrow(() -> new IllegalArgumentException("任務ID: " + taskId + " 不存在"));
-            sessionMap.put(taskId, session);
-            sendTaskStatus(statusDTO, session);
+            if (isCompact) {
+                compactSessionIds.add(session.getId());
+            }
+            sessionMap.compute(taskId, (key, sessions) -> {
+                Set<WebSocketSession> subscribers = sessions == null ? ConcurrentHashMap.newKeySet() : sessions;
+                subscribers.add(useSession);
+                return subscribers;
+            });
+            if (statusDTO.snapshot().status() != TaskStatusDTO.Status.PROCESSING) {
+                sendFinalStatusIfMissed(taskId, statusDTO, useSession);
+                return;
+            }
+            if (isCompact) {
+                TaskProgressFrameDTO frame = toProgressFrame(statusDTO.snapshot());
+                useSession.sendMessage(new TextMessage(frame.toJson(taskId)));
+            } else {
+                sendTaskStatus(statusDTO, useSession);
+            }
         } catch (Exception e) {
-            handleTransportError(session, e);
+            handleTransportError(useSession, e);
+        }
+    }
+
+    /**
+     * 訂閱後任務已經結束時，最後一次廣播可能在加入訂閱之前已經移除此任務的所有訂閱
+     * 若 Session 仍在訂閱中，代表廣播沒有發送給此 Session，由此處移除訂閱並發送最終狀態；若已被廣播移除則不重複發送
+     *
+     * @param taskId    任務 ID
+     * @param statusDTO 任務狀態信息
+     * @param session   WebSocket 連接 Session
+     */
+    private void sendFinalStatusIfMissed (String taskId, TaskStatusDTO statusDTO, WebSocketSession session) {
+        AtomicBoolean missed = new AtomicBoolean(false);
+        sessionMap.computeIfPresent(taskId, (key, sessions) -> {
+            missed.set(sessions.remove(session));
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (missed.get()) {
+            sendTaskStatus(statusDTO, session);
         }
     }
 
@@ -159,40 +226,108 @@ public class WebsocketHandler extends TextWebSocketHandler implements ApiControl
 
     /**
      * 關閉 WebSocket 連接 Session
-     * 從 Session Map 中移除 Session，並關閉 Session
+     * 從所有訂閱中移除 Session，並關閉 Session
      *
      * @param session WebSocket 連接 Session
      *
      * @throws IOException 關閉 Session 時可能拋出的異常
      */
     private void cleanSession(WebSocketSession session) throws IOException {
-        sessionMap.values().remove(session);
-        if (session != null && session.isOpen()) {
+        if (session == null) {
+            return;
+        }
+        String sessionId = session.getId();
+        sessionMap.keySet().forEach(taskId -> sessionMap.computeIfPresent(taskId, (key, sessions) -> {
+            sessions.removeIf(subscriber -> subscriber.getId().equals(sessionId));
+            return sessions.isEmpty() ? null : sessions;
+        }));
+        compactSessionIds.remove(sessionId);
+        concurrentSessionMap.remove(sessionId);
+        if (session.isOpen()) {
             session.close();
         }
     }
 
+    /**
+     * 廣播任務狀態信息給所有訂閱此任務的前端
+     * 處理中的進度更新會發送精簡進度訊框給使用精簡格式的訂閱者，其餘訂閱者發送完整的任務狀態
+     * 每種訊息只會序列化一次，並由所有訂閱者共用
+     * 當任務結束時，移除此任務的所有訂閱
+     *
+     * @param taskStatusDTO 任務狀態信息
+     */
+    public void broadcastTaskStatus(@NotNull TaskStatusDTO taskStatusDTO) {
+        String taskId = taskStatusDTO.getTaskId();
+        TaskStatusDTO.Snapshot snapshot = taskStatusDTO.snapshot();
+        boolean isFinish = snapshot.status() != TaskStatusDTO.Status.PROCESSING;
+        Set<WebSocketSession> sessions = isFinish ? sessionMap.remove(taskId) : sessionMap.get(taskId);
+        if (sessions == null || sessions.isEmpty()) {
+            if (isFinish) {
+                taskIndexMap.remove(taskId);
+            }
+            return;
+        }
+
+        TextMessage fullMessage = null;
+        TextMessage compactMessage = null;
+        for (WebSocketSession session : sessions) {
+            try {
+                if (!session.isOpen()) {
+                    continue;
+                }
+                if (!isFinish && compactSessionIds.contains(session.getId())) {
+                    if (compactMessage == null) {
+                        compactMessage = new TextMessage(toProgressFrame(snapshot).toJson());
+                    }
+                    session.sendMessage(compactMessage);
+                } else {
+                    if (fullMessage == null) {
+                        fullMessage = new TextMessage(objectMapper.writeValueAsString(snapshot));
+                    }
+                    session.sendMessage(fullMessage);
+                }
+            } catch (Exception e) {
+                log.error("發送訊息失敗: {}", e.getMessage());
+                handleTransportError(session, e);
+            }
+        }
+        if (isFinish) {
+            taskIndexMap.remove(taskId);
+        }
+    }
+
     /**
      * 發送任務狀態信息給前端
-     * 通過 WebSocketSession 發送任務狀態信息給前端
+     * 通過 WebSocketSession 發送任務狀態信息給前端，當未指定 Session 時，則廣播給所有訂閱此任務的前端
      *
      * @param taskStatusDTO 任務狀態信息
+     * @param session       WebSocket 連接 Session
      */
     public void sendTaskStatus(@NotNull TaskStatusDTO taskStatusDTO, WebSocketSession session) {
-        WebSocketSession useSession;
-        if (session != null) {
-            useSession = session;
-        } else {
-            useSession = sessionMap.get(taskStatusDTO.getTaskId());
+        if (session == null) {
+            broadcastTaskStatus(taskStatusDTO);
+            return;
         }
 
         try {
-            if (useSession != null && useSession.isOpen()) {
-                useSession.sendMessage(new TextMessage(objectMapper.writeValueAsString(taskStatusDTO)));
+            if (session.isOpen()) {
+                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(taskStatusDTO)));
             }
         } catch (Exception e) {
             log.error("發送訊息失敗: {}", e.getMessage());
-            handleTransportError(useSession, e);
+            handleTransportError(session, e);
         }
     }
+
+    /**
+     * 將任務狀態轉換為精簡進度訊框，任務索引在第一次使用時分配
+     *
+     * @param snapshot 任務狀態快照
+     *
+     * @return 精簡進度訊框
+     */
+    private TaskProgressFrameDTO toProgressFrame(TaskStatusDTO.Snapshot snapshot) {
+        int index = taskIndexMap.computeIfAbsent(snapshot.taskId(), key -> taskIndexSequence.incrementAndGet());
+        return new TaskProgressFrameDTO(index, snapshot.progressBasisPoints(), snapshot.status());
+    }
 }
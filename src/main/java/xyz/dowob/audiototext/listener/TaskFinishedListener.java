@@ -0,0 +1,37 @@
+package xyz.dowob.audiototext.listener;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+import xyz.dowob.audiototext.event.TaskFinishedEvent;
+import xyz.dowob.audiototext.handler.OutputExpiryHandler;
+
+/**
+ * 任務結束事件監聽器，用於監聽任務結束事件，並通知 OutputExpiryHandler 排程輸出檔案的到期時間
+ * 實現 ApplicationListener 介面，監聽 TaskFinishedEvent 事件
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName TaskFinishedListener
+ * @create 2025/4/19
+ * @Version 1.0
+ **/
+@Component
+@RequiredArgsConstructor
+public class TaskFinishedListener implements ApplicationListener<TaskFinishedEvent> {
+    /**
+     * OutputExpiryHandler 類，用於排程任務輸出檔案的到期時間
+     */
+    private final OutputExpiryHandler outputExpiryHandler;
+
+    /**
+     * 當接收到任務結束事件時，排程任務輸出檔案的到期時間
+     *
+     * @param event 任務結束事件
+     */
+    @Override
+    public void onApplicationEvent(@NonNull TaskFinishedEvent event) {
+        outputExpiryHandler.schedule(event.getTask());
+    }
+}
@@ -6,10 +6,12 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
 import xyz.dowob.audiototext.event.TaskUpdateEvent;
+import xyz.dowob.audiototext.handler.TaskLongPollHandler;
+import xyz.dowob.audiototext.handler.TaskSseHandler;
 import xyz.dowob.audiototext.handler.WebsocketHandler;
 
 /**
- * 任務更新事件監聽器，用於監聽任務更新事件，並通知 WebSocketHandler 進行 WebSocket 通知
+ * 任務更新事件監聽器，用於監聽任務更新事件，並通知 WebSocketHandler、TaskSseHandler 以及 TaskLongPollHandler 進行通知
  * 實現 ApplicationListener 介面，監聽 TaskUpdateEvent 事件
  *
  * @author yuan
@@ -29,11 +31,24 @@ public class TaskListener implements ApplicationListener<TaskUpdateEvent> {
     private final WebsocketHandler websocketHandler;
 
     /**
-     * 當接收到任務更新事件時，通知 WebSocketHandler 進行 WebSocket 通知
+     * TaskSseHandler 類，用於進行 Server-Sent Events 通知
+     */
+    private final TaskSseHandler taskSseHandler;
+
+    /**
+     * TaskLongPollHandler 類，用於喚醒等待任務狀態變更的長輪詢請求
+     */
+    private final TaskLongPollHandler taskLongPollHandler;
+
+    /**
+     * 當接收到任務更新事件時，通知 WebSocketHandler 以及 TaskSseHandler 推送給所有訂閱此任務的前端
+     * 並喚醒等待此任務狀態變更的長輪詢請求
      * @param event 任務更新事件
      */
     @Override
     public void onApplicationEvent(@NonNull TaskUpdateEvent event) {
-        websocketHandler.sendTaskStatus(event.getTaskStatusDTO(), null);
+        websocketHandler.broadcastTaskStatus(event.getTaskStatusDTO());
+        taskSseHandler.onTaskUpdate(event);
+        taskLongPollHandler.onTaskUpdate(event);
     }
 }
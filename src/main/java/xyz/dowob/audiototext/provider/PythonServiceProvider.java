@@ -1,10 +1,15 @@
 package xyz.dowob.audiototext.provider;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import xyz.dowob.audiototext.config.AudioProperties;
 import xyz.dowob.audiototext.config.ServiceConfig;
@@ -19,6 +24,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -38,16 +44,6 @@ import java.util.jar.JarFile;
 @ConditionalOnProperty(name = "audio.service.enable-punctuation-restoration", havingValue = "true", matchIfMissing = true)
 public class PythonServiceProvider {
 
-    /**
-     * 線程池，用於管理 Python 處理器的執行緒
-     */
-    private final ExecutorService pythonExecutor;
-
-    /**
-     * 限制量，用於限制 Python 處理器的最大數量
-     */
-    private final Semaphore semaphore;
-
     /**
      * 音訊的配置信息，用於獲取 Python 處理器的配置信息
      */
@@ -63,20 +59,103 @@ public class PythonServiceProvider {
      */
     private final int MAX_PROCESSING_NUMBER;
 
+    /**
+     * 最小 Python 處理器數量，啟動時建立此數量的處理器，縮減時至少保留此數量
+     */
+    private final int MIN_PROCESSING_NUMBER;
+
+    /**
+     * 處理器 ID 產生器，新增的處理器使用遞增的 ID
+     */
+    private final AtomicInteger handlerIdSequence = new AtomicInteger();
+
+    /**
+     * 正在啟動中的處理器數量，計入處理器數量上限
+     */
+    private final AtomicInteger spawningCount = new AtomicInteger();
+
+    /**
+     * 派發線程目前等待處理器的任務建立時間，單位為奈秒，沒有等待時為 0，用於判斷是否需要增加處理器
+     */
+    private volatile long dispatchWaitSinceNanos;
+
+    /**
+     * Python 腳本目錄，啟動後用於建立新的處理器
+     */
+    private File scriptDirectory;
+
     /**
      * Python 腳本目錄，用於 Python 腳本相關資料的目錄
      */
     private final String PYTHON_DIRECTORY;
 
     /**
-     * Python 處理器列表，用於保存 Python 處理器，當有任務時，從列表中選擇一個處理器進行處理
+     * Python 處理器列表，用於保存 Python 處理器，當有任務時，從列表中佔用一個空閒的處理器進行處理
+     */
+    private final List<PythonProcessHandler> processHandlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * 每個 Python 處理器可以同時發送的請求數量，Python 進程處理當前請求時，下一個請求已在其輸入中等待，以隱藏通訊的延遲
+     */
+    private final int IN_FLIGHT_WINDOW;
+
+    /**
+     * 空閒的 Python 處理器隊列，使用公平模式，等待中的呼叫者依照等待順序取得處理器
+     * 每個處理器在隊列中佔有 {@link #IN_FLIGHT_WINDOW} 個位置，取出一次即佔用一個請求位置，使用完畢後必定放回隊列
+     */
+    private final BlockingQueue<PythonProcessHandler> idleHandlers;
+
+    /**
+     * 等待處理的標點符號任務隊列，容量為 {@link AudioProperties.Threshold#getMaxTaskQueue()}
+     * 派發線程從隊列中取出任務並合併為批次，不同任務的請求可以合併在同一個批次中
+     */
+    private final BlockingQueue<PunctuationTaskDTO> pendingTasks;
+
+    /**
+     * 每個批次最多合併的任務數量
+     */
+    private final int BATCH_SIZE;
+
+    /**
+     * 批次的最長等待時間，單位為奈秒，從批次中第一個任務加入隊列時開始計算
+     */
+    private final long BATCH_LINGER_NANOS;
+
+    /**
+     * 批次大小的分佈
+     */
+    private final DistributionSummary batchSizeSummary;
+
+    /**
+     * 處理器工作的執行器，每個批次的發送以及每個處理器的健康檢查與重新啟動皆在獨立的虛擬線程中執行
+     */
+    private final ExecutorService handlerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 正在進行健康檢查或重新啟動的處理器，避免同一個處理器被重複檢查
+     */
+    private final Set<PythonProcessHandler> supervisingHandlers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 從空閒隊列中取出的無法接受請求的處理器請求位置數量，Key 為處理器
+     * 處理器終止或重新啟動期間，其請求位置暫時保存於此，重新啟動完成後才放回空閒隊列，避免派發線程反覆取出同一個位置
+     */
+    private final Map<PythonProcessHandler, Integer> parkedSlots = new ConcurrentHashMap<>();
+
+    /**
+     * 指標註冊器，用於記錄處理器重新啟動的次數
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 派發線程，將等待中的任務合併為批次並交給空閒的 Python 處理器
      */
-    private final List<PythonProcessHandler> processHandlers = new ArrayList<>();
+    private final Thread dispatcherThread = Thread.ofPlatform().name("Python-Batch-Dispatcher").daemon().unstarted(this::dispatchBatches);
 
     /**
-     * 任務隊列，用於保存等待處理的任務，使用併發隊列，保證多線程安全
+     * 取得 Python 處理器的等待時間計時器
      */
-    private final Queue<PunctuationTaskDTO> TASK_QUEUE = new ConcurrentLinkedQueue<>();
+    private final Timer checkoutTimer;
 
     /**
      * Python 程序名稱，用於檢查 Python 環境
@@ -88,25 +167,30 @@ public class PythonServiceProvider {
      * PythonServiceInitializer 構造方法，初始化 Python 服務提供者
      *
      * @param audioProperties 音訊的配置信息
+     * @param meterRegistry   指標註冊器，用於註冊處理器池的指標
      */
-    public PythonServiceProvider (AudioProperties audioProperties) {
+    public PythonServiceProvider (AudioProperties audioProperties, MeterRegistry meterRegistry) {
         this.audioProperties = audioProperties;
+        this.meterRegistry = meterRegistry;
         this.MAX_PROCESSING_NUMBER = audioProperties.getThreshold().getMaxPythonProcess();
+        this.MIN_PROCESSING_NUMBER = Math.clamp(audioProperties.getThreshold().getMinPythonProcess(), 1, MAX_PROCESSING_NUMBER);
         this.PYTHON_DIRECTORY = audioProperties.getPath().getPythonScriptPath();
-        this.pythonExecutor = new ThreadPoolExecutor(MAX_PROCESSING_NUMBER,
-                                                     MAX_PROCESSING_NUMBER,
-                                                     0L,
-                                                     TimeUnit.MILLISECONDS,
-                                                     new LinkedBlockingQueue<>(audioProperties.getThreshold().getMaxTaskQueue()),
-                                                     ThreadFactory -> {
-                                                         Thread thread = new Thread(ThreadFactory);
-                                                         thread.setName("Python-Service-Thread");
-                                                         thread.setDaemon(true);
-                                                         return thread;
-                                                     },
-                                                     new ThreadPoolExecutor.CallerRunsPolicy()
-        );
-        this.semaphore = new Semaphore(MAX_PROCESSING_NUMBER);
+        this.IN_FLIGHT_WINDOW = Math.max(1, audioProperties.getThreshold().getPythonInFlightWindow());
+        this.idleHandlers = new ArrayBlockingQueue<>(MAX_PROCESSING_NUMBER * IN_FLIGHT_WINDOW, true);
+        this.pendingTasks = new LinkedBlockingQueue<>(Math.max(1, audioProperties.getThreshold().getMaxTaskQueue()));
+        this.BATCH_SIZE = Math.max(1, audioProperties.getThreshold().getPunctuationBatchSize());
+        this.BATCH_LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(Math.max(0, audioProperties.getThreshold().getPunctuationBatchLinger()));
+        this.checkoutTimer = Timer.builder("python.handler.checkout.wait").description("取得 Python 處理器的等待時間").register(meterRegistry);
+        Gauge.builder("python.handler.idle", idleHandlers, Collection::size).description("空閒的 Python 處理器請求位置數量").register(meterRegistry);
+        Gauge.builder("python.handler.inflight", processHandlers, handlers -> handlers.stream().mapToInt(PythonProcessHandler::getPendingCount).sum())
+             .description("已發送給 Python 進程但尚未收到回應的請求數量")
+             .register(meterRegistry);
+        Gauge.builder("python.handler.waiting", pendingTasks, Collection::size).description("等待 Python 處理器的任務數量").register(meterRegistry);
+        Gauge.builder("python.handler.pool.size", processHandlers, List::size).description("Python 處理器數量").register(meterRegistry);
+        Gauge.builder("python.handler.ready", processHandlers, handlers -> handlers.stream().filter(PythonProcessHandler::isReady).count())
+             .description("可以接受請求的 Python 處理器數量")
+             .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("python.batch.size").description("每個批次合併的任務數量").register(meterRegistry);
     }
 
     /**
@@ -126,10 +210,51 @@ public class PythonServiceProvider {
         File punctuationScriptDirectory = getResourceDirectory();
         createVirtualEnvironment(punctuationScriptDirectory);
         installDependencies(punctuationScriptDirectory);
-        for (int i = 1; i <= MAX_PROCESSING_NUMBER; i++) {
-            processHandlers.add(new PythonProcessHandler(punctuationScriptDirectory, audioProperties, PYTHON_NAME, i));
-            log.info("初始化 PythonProcessHandler [{}]", i);
+        startProcessHandlers(punctuationScriptDirectory, PYTHON_NAME);
+    }
+
+    /**
+     * 啟動 Python 處理器，依照最小 Python 處理器數量啟動對應數量的 Python 進程，之後由 {@link #scalePool()} 依照負載增減
+     * 全部啟動後，依序將各處理器的請求位置交錯放入空閒隊列，使請求平均分配到各個處理器，並啟動派發線程
+     *
+     * @param scriptDirectory Python 腳本目錄，目錄中需包含虛擬環境
+     * @param pythonName      Python 執行檔名稱
+     *
+     * @throws IOException 啟動 Python 進程時出現 IO 錯誤
+     */
+    void startProcessHandlers (File scriptDirectory, String pythonName) throws IOException {
+        this.scriptDirectory = scriptDirectory;
+        this.PYTHON_NAME = pythonName;
+        for (int i = 1; i <= MIN_PROCESSING_NUMBER; i++) {
+            processHandlers.add(createHandler());
+        }
+        for (int slot = 0; slot < IN_FLIGHT_WINDOW; slot++) {
+            processHandlers.forEach(idleHandlers::offer);
         }
+        dispatcherThread.start();
+    }
+
+    /**
+     * 取得所有 Python 處理器目前進程的 PID
+     *
+     * @return PID 列表
+     */
+    List<Long> getProcessIds () {
+        return processHandlers.stream().map(PythonProcessHandler::getPid).toList();
+    }
+
+    /**
+     * 建立一個新的 Python 處理器，建立時會啟動 Python 進程並載入模型
+     *
+     * @return Python 處理器
+     *
+     * @throws IOException 啟動 Python 進程時出現 IO 錯誤
+     */
+    private PythonProcessHandler createHandler () throws IOException {
+        int handlerId = handlerIdSequence.incrementAndGet();
+        PythonProcessHandler handler = new PythonProcessHandler(scriptDirectory, audioProperties, PYTHON_NAME, handlerId);
+        log.info("初始化 PythonProcessHandler [{}]", handlerId);
+        return handler;
     }
 
     /**
@@ -333,84 +458,325 @@ public class PythonServiceProvider {
     }
 
     /**
-     * 獲取標點符號恢復結果，用於獲取標點符號恢復結果
+     * 獲取標點符號恢復結果，任務加入等待隊列後，由派發線程與其他任務合併為批次交給空閒的 Python 處理器
+     * 此方法不持有任何全域鎖，多個呼叫者可以同時等待各自的結果
      *
      * @param text   文本
      * @param taskId 任務ID
      *
      * @return 標點符號恢復結果
      */
-    public synchronized String getPunctuationResult (String text, String taskId) {
-        CompletableFuture<String> future = new CompletableFuture<>();
-        PunctuationTaskDTO task = new PunctuationTaskDTO(taskId, text, future);
+    public String getPunctuationResult (String text, String taskId) {
+        return await(submit(text, taskId, false));
+    }
 
-        if (semaphore.tryAcquire()) {
-            log.debug("提交任務: {}", task);
-            submitTask(task);
-        } else {
-            log.debug("任務進入等待隊列: {}", task);
-            TASK_QUEUE.offer(task);
+    /**
+     * 獲取多段文本的標點符號恢復結果，用於長文本切分後的各個文字視窗
+     * 所有文本依序加入等待隊列，隊列已滿時等待空位而不是直接拒絕，各段文本會被合併為批次並分散到各個 Python 處理器
+     * 任一段失敗時取消其餘尚未處理的文本
+     *
+     * @param textList 文本列表
+     * @param taskId   任務ID
+     *
+     * @return 標點符號恢復結果，順序與文本列表相同
+     */
+    public List<String> getPunctuationResults (List<String> textList, String taskId) {
+        List<CompletableFuture<String>> futureList = new ArrayList<>(textList.size());
+        try {
+            for (String text : textList) {
+                futureList.add(submit(text, taskId, true));
+            }
+            List<String> resultList = new ArrayList<>(futureList.size());
+            for (CompletableFuture<String> future : futureList) {
+                resultList.add(await(future));
+            }
+            return resultList;
+        } catch (RuntimeException e) {
+            futureList.forEach(future -> future.cancel(false));
+            throw e;
         }
+    }
 
+    /**
+     * 將任務加入等待隊列
+     *
+     * @param text   文本
+     * @param taskId 任務ID
+     * @param block  隊列已滿時是否等待空位，最多等待 {@link AudioProperties.Threshold#getPythonCheckoutTimeout()}
+     *
+     * @return 任務的結果取回方法
+     */
+    private CompletableFuture<String> submit (String text, String taskId, boolean block) {
+        if (processHandlers.isEmpty()) {
+            throw new RuntimeException("Python 處理器列表為空，請檢查初始化是否正確");
+        }
+        PunctuationTaskDTO task = new PunctuationTaskDTO(taskId, text, new CompletableFuture<>());
+        boolean accepted;
         try {
-            log.debug("等待任務完成: {}", task);
-            return future.get(5, TimeUnit.MINUTES);
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("獲取結果時發生錯誤: ", e);
+            accepted = block ? pendingTasks.offer(task, audioProperties.getThreshold().getPythonCheckoutTimeout(), TimeUnit.SECONDS) : pendingTasks.offer(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待 Python 處理器時被中斷", e);
+        }
+        if (!accepted) {
+            throw new RuntimeException("等待 Python 處理器的任務過多，請稍後再試");
+        }
+        log.debug("任務進入等待隊列: {}", task);
+        return task.getFuture();
+    }
+
+    /**
+     * 等待任務完成，最長等待時間為取得處理器的等待時間加上處理時間上限，超時或被中斷時取消任務
+     *
+     * @param future 任務的結果取回方法
+     *
+     * @return 標點符號恢復結果
+     */
+    private String await (CompletableFuture<String> future) {
+        AudioProperties.Threshold threshold = audioProperties.getThreshold();
+        try {
+            return future.get(threshold.getPythonCheckoutTimeout() + threshold.getMaxProcessingTime(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            log.error("獲取結果時被中斷: ", e);
             throw new RuntimeException("處理任務失敗", e);
+        } catch (ExecutionException e) {
+            log.error("獲取結果時發生錯誤: {}", e.getCause().getMessage());
+            throw new RuntimeException("處理任務失敗", e.getCause());
         } catch (TimeoutException e) {
+            future.cancel(false);
             log.error("獲取結果超時: ", e);
             throw new RuntimeException("處理任務超時", e);
         }
     }
 
     /**
-     * 提交任務，用於提交標點符號恢復任務
-     * 會檢查是否有可用的 Python 處理器，如果有則提交任務，否則將任務加入等待隊列
-     *
-     * @param task 任務
+     * 派發線程的主迴圈，取出第一個任務後先取得一個空閒的 Python 處理器，再將等待中的任務合併為批次
+     * 負載高時等待處理器的期間已累積足夠的任務，不需要額外等待；負載低時最多等待 {@link #BATCH_LINGER_NANOS}
+     * 已被呼叫者取消的任務會直接略過
      */
-    private void submitTask (PunctuationTaskDTO task) {
-        CompletableFuture.supplyAsync(() -> {
+    private void dispatchBatches () {
+        while (!Thread.currentThread().isInterrupted()) {
             try {
-                PythonProcessHandler handler = getAvailableHandler();
+                PunctuationTaskDTO first = pendingTasks.take();
+                if (first.getFuture().isDone()) {
+                    continue;
+                }
+                dispatchWaitSinceNanos = first.getCreateNanos();
+                PythonProcessHandler handler;
+                try {
+                    handler = checkout();
+                } finally {
+                    dispatchWaitSinceNanos = 0;
+                }
                 if (handler == null) {
-                    throw new RuntimeException("沒有可用的 Python 處理器");
+                    first.getFuture().completeExceptionally(new RuntimeException("等待 Python 處理器超時"));
+                    continue;
+                }
+                List<PunctuationTaskDTO> batch = collectBatch(first);
+                batchSizeSummary.record(batch.size());
+                log.debug("處理器ID: {} 處理批次，任務數量: {}", handler.getProcessHandlerId(), batch.size());
+                handlerExecutor.execute(() -> {
+                    try {
+                        handler.sendBatch(batch);
+                    } finally {
+                        idleHandlers.offer(handler);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 以第一個任務為起點合併批次，直到達到批次大小上限或超過最長等待時間
+     *
+     * @param first 批次的第一個任務
+     *
+     * @return 批次中的任務
+     *
+     * @throws InterruptedException 等待任務時被中斷
+     */
+    private List<PunctuationTaskDTO> collectBatch (PunctuationTaskDTO first) throws InterruptedException {
+        List<PunctuationTaskDTO> batch = new ArrayList<>(BATCH_SIZE);
+        batch.add(first);
+        long deadline = first.getCreateNanos() + BATCH_LINGER_NANOS;
+        while (batch.size() < BATCH_SIZE) {
+            PunctuationTaskDTO task = pendingTasks.poll();
+            if (task == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || (task = pendingTasks.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                    break;
                 }
-                log.debug("使用處理器ID: {}", handler.getProcessHandlerId());
-                return handler.sendText(task.getText(), task.getTaskId());
-            } catch (Exception e) {
-                log.error("Python 處理錯誤: {}", e.getMessage());
-                throw new CompletionException(e);
             }
-        }, pythonExecutor).whenComplete((result, throwable) -> {
-            if (throwable != null) {
-                task.getFuture().completeExceptionally(throwable);
-                log.error("任務 {} 執行失敗: {}", task.getTaskId(), throwable.getMessage());
-            } else {
-                task.getFuture().complete(result);
-                log.debug("任務 {} 完成: {}", task.getTaskId(), result);
+            if (!task.getFuture().isDone()) {
+                batch.add(task);
             }
-            log.debug("釋放處理器");
-            semaphore.release();
-            if (TASK_QUEUE.peek() != null && semaphore.tryAcquire()) {
-                log.debug("獲取到處理器，提交下一個任務");
-                submitTask(TASK_QUEUE.poll());
+        }
+        return batch;
+    }
+
+    /**
+     * 從處理器池中取得一個空閒且可以接受請求的 Python 處理器，沒有空閒的處理器時阻塞等待
+     * 取得已終止或重新啟動中的處理器時，將該位置移出空閒隊列暫存，直到處理器重新啟動完成後才放回，並繼續等待其他處理器
+     *
+     * @return 已取得的 Python 處理器，使用完畢後必須放回 {@link #idleHandlers}，
+     *         等待超過 {@link AudioProperties.Threshold#getPythonCheckoutTimeout()} 時返回 null
+     *
+     * @throws InterruptedException 等待時被中斷
+     */
+    private PythonProcessHandler checkout () throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(audioProperties.getThreshold().getPythonCheckoutTimeout());
+        try {
+            while (true) {
+                PythonProcessHandler handler = idleHandlers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (handler == null || handler.isReady()) {
+                    return handler;
+                }
+                parkedSlots.merge(handler, 1, Integer::sum);
+                if (handler.isReady()) {
+                    releaseParkedSlots(handler);
+                }
             }
-        });
+        } finally {
+            checkoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
-     * 獲取可用的 Python 處理器，用於獲取可用的 Python 處理器
-     * 此方法會搜尋 Python 處理器列表，並返回第一個可用的 Python 處理器
+     * 將處理器暫存的請求位置放回空閒隊列
      *
-     * @return 可用的 Python 處理器
+     * @param handler Python 處理器
      */
-    private PythonProcessHandler getAvailableHandler () {
-        if (processHandlers.isEmpty()) {
-            throw new RuntimeException("Python 處理器列表為空，請檢查初始化是否正確");
+    private void releaseParkedSlots (PythonProcessHandler handler) {
+        Integer slots = parkedSlots.remove(handler);
+        for (int slot = 0; slots != null && slot < slots; slot++) {
+            idleHandlers.offer(handler);
+        }
+    }
+
+    /**
+     * 定時檢查所有 Python 處理器的健康狀態，終止或無回應的處理器會被重新啟動
+     * 重新啟動失敗的處理器依照退避時間等待後再重試，每個處理器的檢查在獨立的虛擬線程中進行，不會阻塞排程線程
+     * 每 {@link AudioProperties.Threshold#getPythonHeartbeatInterval()} 秒執行一次
+     */
+    @Scheduled(fixedDelayString = "${audio.threshold.python-heartbeat-interval:30}", initialDelayString = "${audio.threshold.python-heartbeat-interval:30}",
+               timeUnit = TimeUnit.SECONDS)
+    public void superviseHandlers () {
+        for (PythonProcessHandler handler : processHandlers) {
+            if (!handler.isRestartDue() || !supervisingHandlers.add(handler)) {
+                continue;
+            }
+            handlerExecutor.execute(() -> {
+                try {
+                    superviseHandler(handler);
+                } finally {
+                    supervisingHandlers.remove(handler);
+                }
+            });
+        }
+    }
+
+    /**
+     * 檢查單一 Python 處理器的健康狀態，不健康時重新啟動並記錄重新啟動的結果
+     * 重新啟動成功後，將派發線程暫存的請求位置放回空閒隊列
+     *
+     * @param handler Python 處理器
+     */
+    private void superviseHandler (PythonProcessHandler handler) {
+        if (handler.checkHealth(audioProperties.getThreshold().getPythonHeartbeatTimeout())) {
+            return;
+        }
+        log.warn("Python 處理器 [{}] 已終止或無回應，重新啟動", handler.getProcessHandlerId());
+        try {
+            handler.restart();
+            releaseParkedSlots(handler);
+            meterRegistry.counter("python.handler.restart", "result", "success").increment();
+        } catch (IOException e) {
+            meterRegistry.counter("python.handler.restart", "result", "failure").increment();
+        }
+    }
+
+    /**
+     * 依照負載增減 Python 處理器的數量，每秒執行一次
+     * 任務等待處理器的時間超過 {@link AudioProperties.Threshold#getPythonScaleUpWait()} 時，在背景啟動一個新的處理器，
+     * 新的處理器載入模型期間，任務仍由現有的處理器處理，壓力持續時每次執行都會再增加一個，直到 {@link #MAX_PROCESSING_NUMBER}
+     * 處理器閒置超過 {@link AudioProperties.Threshold#getPythonIdleTimeout()} 且數量多於 {@link #MIN_PROCESSING_NUMBER} 時，每次退役一個閒置的處理器
+     */
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.SECONDS)
+    public void scalePool () {
+        if (MIN_PROCESSING_NUMBER == MAX_PROCESSING_NUMBER || scriptDirectory == null) {
+            return;
+        }
+        long waitSince = dispatchWaitSinceNanos;
+        long scaleUpWait = TimeUnit.MILLISECONDS.toNanos(audioProperties.getThreshold().getPythonScaleUpWait());
+        if (waitSince != 0 && System.nanoTime() - waitSince > scaleUpWait) {
+            if (processHandlers.size() + spawningCount.get() < MAX_PROCESSING_NUMBER) {
+                spawnHandler();
+            }
+        } else if (spawningCount.get() == 0 && pendingTasks.isEmpty()) {
+            retireIdleHandler();
+        }
+    }
+
+    /**
+     * 在背景啟動一個新的 Python 處理器，啟動完成後將其請求位置加入空閒隊列
+     */
+    private void spawnHandler () {
+        spawningCount.incrementAndGet();
+        handlerExecutor.execute(() -> {
+            try {
+                PythonProcessHandler handler = createHandler();
+                processHandlers.add(handler);
+                for (int slot = 0; slot < IN_FLIGHT_WINDOW; slot++) {
+                    idleHandlers.offer(handler);
+                }
+                meterRegistry.counter("python.handler.scale", "direction", "up").increment();
+                log.info("任務等待時間過長，新增 Python 處理器，目前數量: {}", processHandlers.size());
+            } catch (IOException e) {
+                log.error("新增 Python 處理器失敗: {}", e.getMessage());
+            } finally {
+                spawningCount.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 退役一個閒置超過冷卻時間的 Python 處理器，處理器的所有請求位置都必須在空閒隊列中才會退役
+     * 移除請求位置時若有位置已被取出，則將已移除的位置放回並放棄此次退役
+     */
+    private void retireIdleHandler () {
+        if (processHandlers.size() <= MIN_PROCESSING_NUMBER) {
+            return;
+        }
+        long idleTimeout = TimeUnit.SECONDS.toNanos(audioProperties.getThreshold().getPythonIdleTimeout());
+        for (PythonProcessHandler handler : processHandlers) {
+            if (handler.getIdleNanos() < idleTimeout || !supervisingHandlers.add(handler)) {
+                continue;
+            }
+            try {
+                int removed = 0;
+                while (removed < IN_FLIGHT_WINDOW && idleHandlers.remove(handler)) {
+                    removed++;
+                }
+                if (removed < IN_FLIGHT_WINDOW) {
+                    for (int slot = 0; slot < removed; slot++) {
+                        idleHandlers.offer(handler);
+                    }
+                    continue;
+                }
+                processHandlers.remove(handler);
+                handler.destroy();
+                meterRegistry.counter("python.handler.scale", "direction", "down").increment();
+                log.info("Python 處理器 [{}] 閒置過久，已退役，目前數量: {}", handler.getProcessHandlerId(), processHandlers.size());
+                return;
+            } finally {
+                supervisingHandlers.remove(handler);
+            }
         }
-        return processHandlers.stream().filter(PythonProcessHandler::isAvailable).findFirst().orElse(null);
     }
 
     /**
@@ -419,15 +785,12 @@ public class PythonServiceProvider {
      */
     @PreDestroy
     public void destroy () {
-        pythonExecutor.shutdown();
-        try {
-            if (!pythonExecutor.awaitTermination(60, TimeUnit.SECONDS)) {
-                pythonExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            pythonExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        dispatcherThread.interrupt();
+        handlerExecutor.shutdownNow();
+        List<PunctuationTaskDTO> remainingTasks = new ArrayList<>();
+        pendingTasks.drainTo(remainingTasks);
+        remainingTasks.forEach(task -> task.getFuture().completeExceptionally(new IllegalStateException("Python 服務提供者已銷毀")));
+        processHandlers.forEach(PythonProcessHandler::destroy);
         log.info("Python 服務提供者已銷毀");
     }
 }
@@ -1,13 +1,20 @@
 package xyz.dowob.audiototext.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import xyz.dowob.audiototext.dto.TaskExpiryDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
 import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.entity.TaskResult;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -52,33 +59,116 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     Task findByTaskIdAndStatuses(@Param("taskId") String taskId, @Param("statuses") List<TaskStatusDTO.Status> statuses);
 
     /**
-     * 查詢所有未完成以及指定時間戳以前的任務
+     * 根據任務 ID 查詢任務結果，只查詢結果而不載入整個任務
      *
-     * @param status 任務狀態
-     * @param time   指定時間
+     * @param taskId 任務 ID
+     *
+     * @return 任務結果 {@link TaskResult}，若任務不存在或沒有結果則為 null
+     */
+    @Query("SELECT r FROM Task t JOIN t.taskResult r WHERE t.taskId = :taskId")
+    TaskResult findResultByTaskId(@Param("taskId") String taskId);
+
+    /**
+     * 分批查詢時第一批次使用的排序時間起點，早於所有任務的時間
+     */
+    LocalDateTime FIRST_SORT_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * 分批查詢所有未完成以及指定時間戳以前的任務鍵值，依照建立時間以及主鍵排序，從上一批次最後的任務之後開始查詢
+     * 使用 (status, create_time, id) 索引
+     *
+     * @param status   任務狀態
+     * @param time     指定時間
+     * @param lastTime 上一批次最後任務的建立時間，第一批次為 {@link #FIRST_SORT_TIME}
+     * @param lastId   上一批次最後的任務主鍵，第一批次為 0
+     * @param limit    每批次的數量
+     *
+     * @return List<TaskKeyDTO> 任務鍵值列表 {@link TaskKeyDTO}
+     */
+    @Query("SELECT new xyz.dowob.audiototext.dto.TaskKeyDTO(t.id, t.taskId, r.id, t.createTime) FROM Task t LEFT JOIN t.taskResult r " +
+           "WHERE t.status = :status AND t.createTime < :time AND t.createTime >= :lastTime AND (t.createTime > :lastTime OR t.id > :lastId) " +
+           "ORDER BY t.createTime, t.id")
+    List<TaskKeyDTO> findCanNotFinishTaskKeys(@Param("status") TaskStatusDTO.Status status, @Param("time") LocalDateTime time,
+                                              @Param("lastTime") LocalDateTime lastTime, @Param("lastId") long lastId, Limit limit);
+
+    /**
+     * 分批查詢指定時間戳以前結束且未刪除的任務鍵值，依照完成時間以及主鍵排序，從上一批次最後的任務之後開始查詢
+     * 使用 (is_deleted, finish_time, id) 索引
+     *
+     * @param time     指定時間
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 {@link #FIRST_SORT_TIME}
+     * @param lastId   上一批次最後的任務主鍵，第一批次為 0
+     * @param limit    每批次的數量
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @return List<TaskKeyDTO> 任務鍵值列表 {@link TaskKeyDTO}
      */
-    @Query("SELECT t FROM Task t WHERE t.status = :status AND t.createTime < :time")
-    List<Task> findAllCanNotFinishTasks(@Param("status") TaskStatusDTO.Status status, @Param("time") LocalDateTime time);
+    @Query("SELECT new xyz.dowob.audiototext.dto.TaskKeyDTO(t.id, t.taskId, r.id, t.finishTime) FROM Task t LEFT JOIN t.taskResult r " +
+           "WHERE t.isDeleted = false AND t.finishTime < :time AND t.finishTime >= :lastTime AND (t.finishTime > :lastTime OR t.id > :lastId) " +
+           "ORDER BY t.finishTime, t.id")
+    List<TaskKeyDTO> findExpireTaskKeys(@Param("time") LocalDateTime time, @Param("lastTime") LocalDateTime lastTime, @Param("lastId") long lastId,
+                                        Limit limit);
 
     /**
-     * 根據指定時間戳查詢所有過期的任務
+     * 分批查詢所有已完成且未刪除的任務到期資訊，依照完成時間以及主鍵排序，從上一批次最後的任務之後開始查詢
+     * 使用 (is_deleted, finish_time, id) 索引
      *
-     * @param time 時間
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 {@link #FIRST_SORT_TIME}
+     * @param lastId   上一批次最後的任務主鍵，第一批次為 0
+     * @param limit    每批次的數量
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @return List<TaskExpiryDTO> 任務到期資訊列表 {@link TaskExpiryDTO}
      */
-    @Query("SELECT t FROM Task t WHERE t.finishTime < :time and t.isDeleted = false")
-    List<Task> findAllByExpireTasks(@Param("time") LocalDateTime time);
+    @Query("SELECT new xyz.dowob.audiototext.dto.TaskExpiryDTO(t.id, t.taskId, t.finishTime) FROM Task t " +
+           "WHERE t.isDeleted = false AND t.finishTime >= :lastTime AND (t.finishTime > :lastTime OR t.id > :lastId) ORDER BY t.finishTime, t.id")
+    List<TaskExpiryDTO> findNotDeleteExpiries(@Param("lastTime") LocalDateTime lastTime, @Param("lastId") long lastId, Limit limit);
 
     /**
-     * 查詢所有未完成以及未刪除的任務
+     * 分批查詢指定狀態且未刪除的任務鍵值，依照主鍵排序並從指定主鍵之後開始查詢
+     * 使用 (status, is_deleted, id) 索引
      *
      * @param status 任務狀態
+     * @param lastId 上一批次最後的任務主鍵，第一批次為 0
+     * @param limit  每批次的數量
+     *
+     * @return List<TaskKeyDTO> 任務鍵值列表 {@link TaskKeyDTO}
+     */
+    @Query("SELECT new xyz.dowob.audiototext.dto.TaskKeyDTO(t.id, t.taskId, r.id, t.createTime) FROM Task t LEFT JOIN t.taskResult r " +
+           "WHERE t.status = :status AND t.isDeleted = false AND t.id > :lastId ORDER BY t.id")
+    List<TaskKeyDTO> findNotDeleteKeys(@Param("status") TaskStatusDTO.Status status, @Param("lastId") long lastId, Limit limit);
+
+    /**
+     * 根據任務主鍵批次將任務標記為刪除
+     *
+     * @param ids 任務主鍵列表
+     *
+     * @return 更新的數量
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.isDeleted = true WHERE t.id IN :ids")
+    int markDeletedByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根據任務主鍵批次刪除任務
+     *
+     * @param ids 任務主鍵列表
+     *
+     * @return 刪除的數量
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根據結果主鍵批次刪除任務結果，需在引用的任務刪除後執行
+     *
+     * @param ids 任務結果主鍵列表
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @return 刪除的數量
      */
-    @Query("SELECT t FROM Task t WHERE t.status = :status and t.isDeleted = false")
-    List<Task> findAllNotDelete (@Param("status") TaskStatusDTO.Status status);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TaskResult r WHERE r.id IN :ids")
+    int deleteResultByIds(@Param("ids") Collection<Long> ids);
 }
@@ -7,7 +7,9 @@ import xyz.dowob.audiototext.dto.ModelInfoDTO;
 import xyz.dowob.audiototext.type.ModelType;
 import xyz.dowob.audiototext.type.OutputType;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -30,6 +32,25 @@ public interface AudioService {
      */
     Object audioToText(MultipartFile file, ModelType modelType, OutputType outputType, boolean isNeedSegment, HttpServletRequest request) throws EncoderException, IOException;
 
+    /**
+     * 將串流上傳的音訊檔案轉換成文字，只讀取一次輸入串流並直接寫入任務的工作區
+     *
+     * @param inputStream 音訊檔案的輸入串流
+     *
+     * @return 轉換後的物件，包含任務ID以及上傳檔案的大小與雜湊值
+     */
+    Object audioToText(InputStream inputStream, ModelType modelType, OutputType outputType, boolean isNeedSegment, HttpServletRequest request) throws EncoderException, IOException;
+
+    /**
+     * 將已寫入任務工作區的音訊檔案轉換成文字，例如分段上傳完成的檔案
+     *
+     * @param taskId    任務ID，必須與音訊檔案所在的工作區相同
+     * @param audioFile 已寫入工作區的音訊檔案
+     *
+     * @return 轉換後的物件，包含任務ID
+     */
+    Object audioToText(String taskId, File audioFile, ModelType modelType, OutputType outputType, boolean isNeedSegment, HttpServletRequest request);
+
     /**
      * 取得目前可用的轉換模型列表
      *
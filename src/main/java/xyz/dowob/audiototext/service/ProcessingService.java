@@ -4,9 +4,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.web.multipart.MultipartFile;
 import ws.schild.jave.EncoderException;
 import xyz.dowob.audiototext.component.filewriter.FileWriter;
+import xyz.dowob.audiototext.dto.MediaInfoDTO;
+import xyz.dowob.audiototext.dto.OutputCleanupReportDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
+import xyz.dowob.audiototext.dto.UploadedAudioDTO;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 /**
  * 用於規範音訊檔案成可以被轉換以及優化處理內容的介面
@@ -32,14 +38,40 @@ public interface ProcessingService {
      */
     File saveAudio (MultipartFile audioFile, String taskId) throws IOException;
 
+    /**
+     * 以串流的方式儲存音訊檔案，只讀取一次輸入串流並直接寫入任務的工作區，同時計算大小與雜湊值
+     *
+     * @param inputStream  音訊檔案的輸入串流
+     * @param expectedSize 請求宣告的檔案大小，用於配置工作區，未知時為 -1
+     * @param taskId       任務ID
+     *
+     * @return 儲存後的音訊檔案以及大小、雜湊值
+     *
+     * @throws IOException 檔案讀取、寫入時錯誤，或檔案為空、超過大小上限
+     */
+    UploadedAudioDTO saveAudio (InputStream inputStream, long expectedSize, String taskId) throws IOException;
+
+    /**
+     * 探測音訊檔案的長度與格式，WAV 檔案只讀取標頭，其他格式使用 FFmpeg 讀取檔案資訊
+     *
+     * @param audioFile 音訊檔案
+     *
+     * @return 音檔資訊
+     *
+     * @throws IOException 檔案無法解析或不包含音訊
+     */
+    MediaInfoDTO probeAudio (File audioFile) throws IOException;
+
     /**
      * 轉換輸入的音訊檔案成可以被處理的格式
      *
      * @param audioFile 音訊檔案
+     * @param taskId    任務ID
+     * @param mediaInfo 上傳時探測的音檔資訊，用於預估標準化後的檔案大小
      *
      * @return 處理後的音訊檔案
      */
-    File standardizeAudio (File audioFile, String taskId) throws IOException, EncoderException;
+    File standardizeAudio (File audioFile, String taskId, MediaInfoDTO mediaInfo) throws IOException, EncoderException;
 
     /**
      * 刪除伺服器上的暫存檔案
@@ -48,6 +80,15 @@ public interface ProcessingService {
      */
     void deleteTempFile (String taskId);
 
+    /**
+     * 刪除一批任務的輸出檔案，並返回清理結果
+     *
+     * @param keys 任務鍵值列表
+     *
+     * @return 清理結果
+     */
+    OutputCleanupReportDTO deleteOutputFiles (List<TaskKeyDTO> keys);
+
     /**
      * 處理轉譯後的文字內容，將標點符號還原
      *
@@ -1,8 +1,13 @@
 package xyz.dowob.audiototext.service;
 
+import xyz.dowob.audiototext.dto.FinishedTaskDTO;
+import xyz.dowob.audiototext.dto.TaskExpiryDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
 import xyz.dowob.audiototext.entity.Task;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,7 +33,7 @@ public interface TaskService {
     void updateTaskStatus (TaskStatusDTO taskStatusDTO, boolean isDelete);
 
     /**
-     * 儲存任務狀態
+     * 儲存任務狀態，並使此任務的快取失效
      *
      * @param task 任務
      */
@@ -36,7 +41,7 @@ public interface TaskService {
 
 
     /**
-     * 刪除任務狀態
+     * 刪除任務狀態，並使此任務的快取失效
      *
      * @param task 任務
      */
@@ -54,30 +59,72 @@ public interface TaskService {
     Task findTaskByTaskId (String taskId, TaskStatusDTO.Status... status);
 
     /**
-     * 查詢所有未完成以及未刪除的任務
+     * 根據任務 ID 查詢已結束(成功或失敗)的任務，結果會被快取
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @param taskId 任務 ID
+     *
+     * @return 已結束任務的內容，若任務不存在或尚未結束則為空
      */
-    List<Task> findAllFailAndNotDeletedTasks ();
+    Optional<FinishedTaskDTO> findFinishedTask (String taskId);
 
+    /**
+     * 根據任務 ID 查詢已結束(成功或失敗)的任務，並轉換為任務狀態
+     * 成功的任務結果包含下載地址、完整文字以及分段，失敗的任務結果包含下載地址以及錯誤訊息
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 已結束任務的任務狀態，若任務不存在或尚未結束則為空
+     */
+    Optional<TaskStatusDTO> findFinishedTaskStatus (String taskId);
+
+    /**
+     * 分批將所有失敗且未刪除的任務標記為刪除
+     *
+     * @return 標記為刪除的任務數量
+     */
+    int markFailedTasksDeleted ();
+
+    /**
+     * 分批刪除所有未完成以及指定時間戳以前的任務，並一併刪除任務結果
+     * 仍在記憶體中處理的任務不會被刪除
+     *
+     * @param minusSeconds 從現在時間減去的秒數
+     *
+     * @return 刪除的任務數量
+     */
+    int deleteCanNotFinishTasks (long minusSeconds);
+
+    /**
+     * 分批查詢指定時間戳以前結束且未刪除的任務鍵值
+     *
+     * @param time     指定時間，分批查詢時應使用同一個時間
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 null
+     * @param lastId   上一批次最後的任務主鍵，第一批次為 0
+     * @param limit    每批次的數量
+     *
+     * @return List<TaskKeyDTO> 任務鍵值列表 {@link TaskKeyDTO}，依照完成時間以及主鍵排序
+     */
+    List<TaskKeyDTO> findExpireTaskKeys (LocalDateTime time, LocalDateTime lastTime, long lastId, int limit);
 
     /**
-     * 查詢所有未完成以及指定時間戳以前的任務
+     * 分批查詢所有已完成且未刪除的任務到期資訊
      *
-     * @param minusHours 從現在時間減去的小時數
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 null
+     * @param lastId   上一批次最後的任務主鍵，第一批次為 0
+     * @param limit    每批次的數量
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @return List<TaskExpiryDTO> 任務到期資訊列表 {@link TaskExpiryDTO}，依照完成時間以及主鍵排序
      */
-    List<Task> findAllCanNotFinishTasks (int minusHours);
+    List<TaskExpiryDTO> findNotDeleteExpiries (LocalDateTime lastTime, long lastId, int limit);
 
     /**
-     * 根據指定時間戳查詢所有過期的任務
+     * 根據任務鍵值批次將任務標記為刪除，並使已結束任務的快取失效
      *
-     * @param minusHours 從現在時間減去的小時數
+     * @param keys 任務鍵值列表
      *
-     * @return List<Task> 任務列表 {@link Task}
+     * @return 標記為刪除的任務數量
      */
-    List<Task> findAllByExpireTasks (int minusHours);
+    int markTasksDeleted (Collection<TaskKeyDTO> keys);
 
     /**
      * 取得任務狀態
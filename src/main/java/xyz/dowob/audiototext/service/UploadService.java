@@ -0,0 +1,84 @@
+package xyz.dowob.audiototext.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import xyz.dowob.audiototext.dto.UploadStatusDTO;
+import xyz.dowob.audiototext.type.ModelType;
+import xyz.dowob.audiototext.type.OutputType;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 分段上傳服務接口，規範可續傳的分段上傳流程
+ * 建立上傳後以 Content-Range 上傳各個分段，分段可以同時上傳或在中斷後補傳，全部接收後完成上傳並開始轉換
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadService
+ * @create 2025/4/21
+ * @Version 1.0
+ **/
+public interface UploadService {
+    /**
+     * 建立分段上傳，並預先配置完整大小的檔案
+     *
+     * @param size          檔案的完整大小，單位為位元組
+     * @param sha256        上傳檔案的 SHA-256 雜湊值，完成上傳時用於驗證，可為 null
+     * @param modelType     模型類型
+     * @param outputType    輸出格式類型
+     * @param isNeedSegment 是否需要分段
+     *
+     * @return 上傳狀態
+     *
+     * @throws IOException 無法建立上傳檔案
+     */
+    UploadStatusDTO createUpload (long size, String sha256, ModelType modelType, OutputType outputType, boolean isNeedSegment) throws IOException;
+
+    /**
+     * 上傳一個分段，寫入檔案中 Content-Range 指定的位置
+     *
+     * @param uploadId     上傳 ID
+     * @param contentRange Content-Range 標頭，格式為 bytes 起點-終點/總大小
+     * @param inputStream  分段內容
+     *
+     * @return 上傳狀態
+     *
+     * @throws IOException 寫入分段時錯誤
+     */
+    UploadStatusDTO writeChunk (String uploadId, String contentRange, InputStream inputStream) throws IOException;
+
+    /**
+     * 取得上傳狀態，用於中斷後查詢需要補傳的範圍
+     *
+     * @param uploadId 上傳 ID
+     *
+     * @return 上傳狀態
+     */
+    UploadStatusDTO getUploadStatus (String uploadId);
+
+    /**
+     * 完成上傳，確認已接收完整的檔案後開始轉換，上傳 ID 即為任務 ID
+     *
+     * @param uploadId 上傳 ID
+     * @param request  HTTP 請求，用於產生下載地址
+     *
+     * @return 轉換後的物件，包含任務ID
+     *
+     * @throws IOException 關閉或驗證上傳檔案時錯誤
+     */
+    Object completeUpload (String uploadId, HttpServletRequest request) throws IOException;
+
+    /**
+     * 取消上傳，並刪除已接收的內容
+     *
+     * @param uploadId 上傳 ID
+     */
+    void cancelUpload (String uploadId);
+
+    /**
+     * 清理閒置的上傳，超過閒置保存時間沒有接收任何分段內容的上傳將被取消並刪除已接收的內容
+     *
+     * @return 清理的上傳數量
+     */
+    int cleanIdleUploads ();
+}
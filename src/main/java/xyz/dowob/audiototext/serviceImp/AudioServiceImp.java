@@ -9,27 +9,35 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.vosk.Recognizer;
+import ws.schild.jave.EncoderException;
+import xyz.dowob.audiototext.component.estimator.RealTimeFactorEstimator;
 import xyz.dowob.audiototext.component.filewriter.FileWriter;
+import xyz.dowob.audiototext.component.generator.TaskIdGenerator;
 import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.MediaInfoDTO;
 import xyz.dowob.audiototext.dto.ModelInfoDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
+import xyz.dowob.audiototext.dto.UploadedAudioDTO;
 import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.entity.TaskResult;
 import xyz.dowob.audiototext.entity.TranscriptionSegment;
+import xyz.dowob.audiototext.event.TaskFinishedEvent;
 import xyz.dowob.audiototext.event.TaskUpdateEvent;
 import xyz.dowob.audiototext.service.AudioService;
 import xyz.dowob.audiototext.service.ProcessingService;
 import xyz.dowob.audiototext.service.TaskService;
 import xyz.dowob.audiototext.strategy.FileOutputStrategy;
+import xyz.dowob.audiototext.strategy.PayloadCodecStrategy;
 import xyz.dowob.audiototext.strategy.SpeechRecognitionStrategy;
 import xyz.dowob.audiototext.type.ModelType;
 import xyz.dowob.audiototext.type.OutputType;
 
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -69,6 +77,11 @@ public class AudioServiceImp implements AudioService {
      */
     private final FileOutputStrategy fileOutputStrategy;
 
+    /**
+     * 任務結果編碼策略
+     */
+    private final PayloadCodecStrategy payloadCodecStrategy;
+
     /**
      * 音訊處理服務類
      */
@@ -79,6 +92,16 @@ public class AudioServiceImp implements AudioService {
      */
     private final TaskService taskService;
 
+    /**
+     * 任務 ID 產生器
+     */
+    private final TaskIdGenerator taskIdGenerator;
+
+    /**
+     * 轉譯即時率估計器，用於預估任務的剩餘處理時間
+     */
+    private final RealTimeFactorEstimator realTimeFactorEstimator;
+
     /**
      * 事件發布者
      */
@@ -99,69 +122,163 @@ public class AudioServiceImp implements AudioService {
      */
     @Override
     public Object audioToText(MultipartFile audioFile, ModelType modelType, OutputType outputType, boolean isNeedSegments, HttpServletRequest request) {
-        String taskId = UUID.randomUUID().toString();
+        String taskId = taskIdGenerator.nextId();
         try {
             File tempInputFile = processingService.saveAudio(audioFile, taskId);
             log.debug("檔案上傳成功: {}", tempInputFile.getName());
+            submitTask(taskId, tempInputFile, modelType, outputType, isNeedSegments, request);
+            return Map.of("taskId", taskId);
+        } catch (Exception e) {
+            processingService.deleteTempFile(taskId);
+            log.error("轉換失敗: ", e);
+            throw new RuntimeException(e);
+        }
+    }
 
-            File standardizedAudioFile = processingService.standardizeAudio(tempInputFile, taskId);
-            log.debug("音訊檔案標準化成功: {}", standardizedAudioFile.getName());
-
-            TaskStatusDTO taskStatusDTO = new TaskStatusDTO(taskId);
-            Task task = taskStatusDTO.toTask(false);
-            taskService.updateTaskStatus(taskStatusDTO, false);
-            taskService.saveTaskStatus(task);
-
-            final String[] downloadUrl = {generateFileUrl(request)};
-            CompletableFuture.runAsync(() -> {
-                try {
-                    List<TranscriptionSegment> segments = transcribe(standardizedAudioFile, modelType, taskStatusDTO);
-                    log.debug("音訊轉譯完成: {}", segments.size());
-
-                    Map<String, Object> convertMap = convertTranscriptionSegments(segments);
-
-                    String punctuatedText = processingService.punctuationRestore(convertMap.get("text").toString(), taskId);
-
-                    Map<String, Object> result = new HashMap<>();
-
-                    if (isNeedSegments) {
-                        result.put("segments", convertMap.get("segments"));
-                    }
-                    result.put("text", punctuatedText);
-
-                    String formatResult = processingService.formatToJson(result);
-
-                    FileWriter fileWriter = fileOutputStrategy.getFileWriter(outputType);
-                    File file = processingService.saveToFile(formatResult, taskId, fileWriter);
-                    downloadUrl[0] += file.getName();
-                    result.put("downloadUrl", downloadUrl[0]);
-
-                    updateProgressAndNotify(taskStatusDTO, 100.0, TaskStatusDTO.Status.SUCCESS, result);
-
-                    task.setStatus(TaskStatusDTO.Status.SUCCESS);
-                    task.setResult(formatResult);
-                    task.setDownloadUrl(downloadUrl[0]);
-                    log.info("轉換任務: {} {}", taskId, "完成");
-                } catch (Exception e) {
-                    updateProgressAndNotify(taskStatusDTO, 0.0, TaskStatusDTO.Status.FAILED, e.getMessage());
-                    log.error("轉換失敗: ", e);
-                    task.setStatus(TaskStatusDTO.Status.FAILED);
-                    task.setResult(objectMapper.createObjectNode().put("error", e.getMessage()).toString());
-                } finally {
-                    task.setFinishTime(LocalDateTime.now());
-                    taskService.updateTaskStatus(taskStatusDTO, true);
-                    taskService.saveTaskStatus(task);
-                    processingService.deleteTempFile(taskId);
-                    log.debug("已清理任務: {}", taskId);
-                }
-            });
+    /**
+     * 將串流上傳的音訊檔案轉換成文字
+     * 直接讀取請求內容寫入任務的工作區，不經過 multipart 解析，上傳時同時計算大小與雜湊值
+     * 之後的處理流程與 {@link #audioToText(MultipartFile, ModelType, OutputType, boolean, HttpServletRequest)} 相同
+     *
+     * @param inputStream 音訊檔案的輸入串流
+     *
+     * @return 任務ID以及上傳檔案的大小與雜湊值
+     */
+    @Override
+    public Object audioToText(InputStream inputStream, ModelType modelType, OutputType outputType, boolean isNeedSegments, HttpServletRequest request) {
+        String taskId = taskIdGenerator.nextId();
+        try {
+            UploadedAudioDTO uploadedAudio = processingService.saveAudio(inputStream, request.getContentLengthLong(), taskId);
+            log.debug("檔案串流上傳成功: {}, 大小: {}, SHA-256: {}", uploadedAudio.file().getName(), uploadedAudio.size(), uploadedAudio.sha256());
+            submitTask(taskId, uploadedAudio.file(), modelType, outputType, isNeedSegments, request);
+            return Map.of("taskId", taskId, "size", uploadedAudio.size(), "sha256", uploadedAudio.sha256());
+        } catch (Exception e) {
+            processingService.deleteTempFile(taskId);
+            log.error("轉換失敗: ", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 將已寫入任務工作區的音訊檔案轉換成文字
+     * 用於分段上傳完成後提交轉換，之後的處理流程與 {@link #audioToText(MultipartFile, ModelType, OutputType, boolean, HttpServletRequest)} 相同
+     *
+     * @param taskId    任務ID
+     * @param audioFile 已寫入工作區的音訊檔案
+     *
+     * @return 任務ID
+     */
+    @Override
+    public Object audioToText(String taskId, File audioFile, ModelType modelType, OutputType outputType, boolean isNeedSegments, HttpServletRequest request) {
+        try {
+            submitTask(taskId, audioFile, modelType, outputType, isNeedSegments, request);
             return Map.of("taskId", taskId);
         } catch (Exception e) {
+            processingService.deleteTempFile(taskId);
             log.error("轉換失敗: ", e);
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 提交已寫入工作區的音訊檔案進行轉換
+     * 先探測音檔的長度與格式，無法解析或超過長度上限的音檔在標準化之前即被拒絕，並將音檔資訊保存於任務中
+     * 將音訊檔案標準化並建立任務後，以 CompletableFuture 非同步進行轉譯、標點符號還原以及輸出檔案
+     * 任務結束時先保存至資料庫再從記憶體中移除，查詢任務的請求在任何時間點都能從其中一處取得任務
+     *
+     * @param taskId         任務ID
+     * @param tempInputFile  已寫入工作區的音訊檔案
+     * @param modelType      模型類型
+     * @param outputType     輸出格式類型
+     * @param isNeedSegments 是否需要分段
+     * @param request        HTTP 請求，用於產生下載地址
+     *
+     * @throws IOException      檔案讀取、建立時錯誤
+     * @throws EncoderException 轉換音檔時編譯器錯誤
+     */
+    private void submitTask(String taskId, File tempInputFile, ModelType modelType, OutputType outputType, boolean isNeedSegments,
+                            HttpServletRequest request) throws IOException, EncoderException {
+        MediaInfoDTO mediaInfo = processingService.probeAudio(tempInputFile);
+        int maxAudioDuration = audioProperties.getThreshold().getMaxAudioDuration();
+        if (maxAudioDuration > 0 && mediaInfo.durationMillis() > maxAudioDuration * 1000L) {
+            throw new IllegalArgumentException(String.format("音檔長度超過上限: %d 秒", maxAudioDuration));
+        }
+        log.debug("音訊檔案探測成功: {}", mediaInfo);
+
+        File standardizedAudioFile = processingService.standardizeAudio(tempInputFile, taskId, mediaInfo);
+        log.debug("音訊檔案標準化成功: {}", standardizedAudioFile.getName());
+
+        TaskStatusDTO taskStatusDTO = new TaskStatusDTO(taskId, mediaInfo.durationMillis(), realTimeFactorEstimator.estimate(mediaInfo.durationMillis()));
+        Task task = taskStatusDTO.toTask(false);
+        task.setDurationMillis(mediaInfo.durationMillis() < 0 ? null : mediaInfo.durationMillis());
+        task.setCodec(mediaInfo.codec());
+        task.setSampleRate(mediaInfo.sampleRate());
+        task.setChannels(mediaInfo.channels());
+        taskService.updateTaskStatus(taskStatusDTO, false);
+        taskService.saveTaskStatus(task);
+
+        final String[] downloadUrl = {generateFileUrl(request)};
+        CompletableFuture.runAsync(() -> {
+            try {
+                List<TranscriptionSegment> segments = transcribe(standardizedAudioFile, modelType, taskStatusDTO);
+                log.debug("音訊轉譯完成: {}", segments.size());
+
+                Map<String, Object> convertMap = convertTranscriptionSegments(segments);
+
+                String punctuatedText = processingService.punctuationRestore(convertMap.get("text").toString(), taskId);
+
+                Map<String, Object> result = new HashMap<>();
+
+                if (isNeedSegments) {
+                    result.put("segments", convertMap.get("segments"));
+                }
+                result.put("text", punctuatedText);
+
+                String formatResult = processingService.formatToJson(result);
+
+                FileWriter fileWriter = fileOutputStrategy.getFileWriter(outputType);
+                File file = processingService.saveToFile(formatResult, taskId, fileWriter);
+                downloadUrl[0] += taskId + "/" + file.getName();
+                result.put("downloadUrl", downloadUrl[0]);
+
+                updateProgressAndNotify(taskStatusDTO, TaskStatusDTO.MAX_PROGRESS_BASIS_POINTS, TaskStatusDTO.Status.SUCCESS, result);
+
+                task.setStatus(TaskStatusDTO.Status.SUCCESS);
+                task.setTaskResult(createTaskResult(formatResult));
+                task.setDownloadUrl(downloadUrl[0]);
+                log.info("轉換任務: {} {}", taskId, "完成");
+            } catch (Exception e) {
+                updateProgressAndNotify(taskStatusDTO, 0, TaskStatusDTO.Status.FAILED, e.getMessage());
+                log.error("轉換失敗: ", e);
+                task.setStatus(TaskStatusDTO.Status.FAILED);
+                task.setTaskResult(createTaskResult(objectMapper.createObjectNode().put("error", e.getMessage()).toString()));
+            } finally {
+                task.setFinishTime(LocalDateTime.now());
+                taskService.saveTaskStatus(task);
+                taskService.updateTaskStatus(taskStatusDTO, true);
+                publisher.publishEvent(new TaskFinishedEvent(this, task));
+                processingService.deleteTempFile(taskId);
+                log.debug("已清理任務: {}", taskId);
+            }
+        });
+    }
+
+
+    /**
+     * 使用設定的編碼方式建立任務結果，編碼失敗時改為保存未編碼的內容，避免結果遺失
+     *
+     * @param content 任務結果內容
+     *
+     * @return 任務結果實體
+     */
+    private TaskResult createTaskResult (String content) {
+        try {
+            return payloadCodecStrategy.encode(content);
+        } catch (IOException e) {
+            log.warn("任務結果編碼失敗，改為保存未編碼的內容: ", e);
+            return new TaskResult(content);
+        }
+    }
 
     /**
      * 取得目前可用的轉換模型列表
@@ -221,27 +338,54 @@ public class AudioServiceImp implements AudioService {
             recognizer.setWords(true);
             List<TranscriptionSegment> segments = new ArrayList<>();
             byte[] buffer = new byte[audioProperties.getThreshold().getChunkBufferSize()];
-            long totalBytes = audioFile.length();
+            AudioFormat format = audioInputStream.getFormat();
+            double bytesPerMillis = format.getFrameSize() * format.getFrameRate() / 1000.0;
+            long totalMillis = audioInputStream.getFrameLength() > 0
+                               ? (long) (audioInputStream.getFrameLength() * 1000 / format.getFrameRate())
+                               : task.getDurationMillis();
+            long startTime = System.nanoTime();
             long processedBytes = 0;
             int bytesRead;
 
             while ((bytesRead = audioInputStream.read(buffer)) != -1) {
                 processedBytes += bytesRead;
                 if (recognizer.acceptWaveForm(buffer, bytesRead)) {
+                    long processedMillis = (long) (processedBytes / bytesPerMillis);
+                    int segmentCount = segments.size();
                     addResultToSegments(segments, recognizer.getResult());
-                    updateProgressAndNotify(task, (double) processedBytes * 100 / totalBytes);
+                    TranscriptionSegment newSegment = segments.size() > segmentCount ? segments.getLast() : null;
+                    long etaMillis = realTimeFactorEstimator.estimateRemaining(totalMillis, processedMillis, System.nanoTime() - startTime);
+                    updateProgressAndNotify(task, calculateProgress(processedMillis, totalMillis, processedBytes, audioFile.length()), etaMillis, newSegment);
                 }
             }
             addResultToSegments(segments, recognizer.getFinalResult());
+            realTimeFactorEstimator.record((long) (processedBytes / bytesPerMillis), System.nanoTime() - startTime);
 
             return segments;
         } catch (Exception e) {
             log.error("音訊檔案轉譯失敗: ", e);
-            updateProgressAndNotify(task, 0.0, TaskStatusDTO.Status.FAILED, e.getMessage());
+            updateProgressAndNotify(task, 0, TaskStatusDTO.Status.FAILED, e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 計算轉譯進度，優先以已處理的音檔長度計算，音檔長度未知時改以已讀取的位元組數量計算
+     *
+     * @param processedMillis 已處理的音檔長度，單位為毫秒
+     * @param totalMillis     音檔長度，單位為毫秒，未知時為 -1
+     * @param processedBytes  已讀取的位元組數量
+     * @param totalBytes      檔案大小
+     *
+     * @return 進度，單位為萬分比
+     */
+    private int calculateProgress(long processedMillis, long totalMillis, long processedBytes, long totalBytes) {
+        if (totalMillis > 0) {
+            return (int) Math.min(TaskStatusDTO.MAX_PROGRESS_BASIS_POINTS, processedMillis * TaskStatusDTO.MAX_PROGRESS_BASIS_POINTS / totalMillis);
+        }
+        return (int) (processedBytes * TaskStatusDTO.MAX_PROGRESS_BASIS_POINTS / Math.max(1, totalBytes));
+    }
+
     /**
      * 將解析分段字句轉換成 Map 格式，並加入完整的文字內容
      *
@@ -272,22 +416,30 @@ public class AudioServiceImp implements AudioService {
      * 更新任務狀態，並發送任務狀態更新事件，通知前端進行任務狀態的更新
      *
      * @param task     任務狀態
-     * @param progress 進度
+     * @param progress 進度，單位為萬分比
      * @param status   狀態
      * @param result   結果
      */
-    private void updateProgressAndNotify(TaskStatusDTO task, Double progress, TaskStatusDTO.Status status, Object result) {
-        if (status != null) {
-            task.setStatus(status);
-        }
-        if (result != null) {
-            task.setResult(result);
-        }
-        if (progress != null && progress >= 0 && progress <= 100) {
-            BigDecimal progressBigDecimal = BigDecimal.valueOf(progress).setScale(2, RoundingMode.HALF_UP);
-            task.setProgress(progressBigDecimal);
+    private void updateProgressAndNotify(TaskStatusDTO task, int progress, TaskStatusDTO.Status status, Object result) {
+        updateProgressAndNotify(task, progress, status, result, TaskStatusDTO.KEEP_ETA, null);
+    }
+
+    /**
+     * 更新任務狀態，並發送帶有新轉譯片段的任務狀態更新事件，通知前端進行任務狀態的更新
+     * 狀態沒有變更且沒有新的轉譯片段時不發送事件，避免相同的進度重複廣播
+     *
+     * @param task      任務狀態
+     * @param progress  進度，單位為萬分比，為 {@link TaskStatusDTO#KEEP_PROGRESS} 時不變更
+     * @param status    狀態
+     * @param result    結果
+     * @param etaMillis 預估的剩餘處理時間，單位為毫秒，為 {@link TaskStatusDTO#KEEP_ETA} 時不變更
+     * @param segment   新辨識出的轉譯片段，可為 null
+     */
+    private void updateProgressAndNotify(TaskStatusDTO task, int progress, TaskStatusDTO.Status status, Object result, long etaMillis,
+                                         TranscriptionSegment segment) {
+        if (task.update(progress, status, result, etaMillis) || segment != null) {
+            publisher.publishEvent(new TaskUpdateEvent(this, task, segment));
         }
-        publisher.publishEvent(new TaskUpdateEvent(this, task));
     }
 
     /**
@@ -317,11 +469,13 @@ public class AudioServiceImp implements AudioService {
     /**
      * 更新任務狀態，並發送任務狀態更新事件，通知前端進行任務狀態的更新
      *
-     * @param task     任務狀態
-     * @param progress 進度
+     * @param task      任務狀態
+     * @param progress  進度，單位為萬分比
+     * @param etaMillis 預估的剩餘處理時間，單位為毫秒
+     * @param segment   新辨識出的轉譯片段，可為 null
      */
-    private void updateProgressAndNotify(TaskStatusDTO task, double progress) {
-        updateProgressAndNotify(task, progress, null, null);
+    private void updateProgressAndNotify(TaskStatusDTO task, int progress, long etaMillis, TranscriptionSegment segment) {
+        updateProgressAndNotify(task, progress, null, null, etaMillis, segment);
     }
 
     /**
@@ -351,7 +505,7 @@ public class AudioServiceImp implements AudioService {
      * @param result 解析結果
      */
     private void updateProgressAndNotify(TaskStatusDTO task, String result) {
-        updateProgressAndNotify(task, null, null, result);
+        updateProgressAndNotify(task, TaskStatusDTO.KEEP_PROGRESS, null, result);
     }
 
     /**
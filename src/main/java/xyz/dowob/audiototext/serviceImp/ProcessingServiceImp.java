@@ -1,6 +1,7 @@
 package xyz.dowob.audiototext.serviceImp;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
@@ -8,17 +9,41 @@ import org.springframework.web.multipart.MultipartFile;
 import ws.schild.jave.Encoder;
 import ws.schild.jave.EncoderException;
 import ws.schild.jave.MultimediaObject;
+import ws.schild.jave.info.AudioInfo;
+import ws.schild.jave.info.MultimediaInfo;
 import ws.schild.jave.encode.AudioAttributes;
 import ws.schild.jave.encode.EncodingAttributes;
+import xyz.dowob.audiototext.component.audio.PcmWavConverter;
+import xyz.dowob.audiototext.component.audio.WavHeader;
 import xyz.dowob.audiototext.component.filewriter.FileWriter;
+import xyz.dowob.audiototext.component.punctuation.TextWindowSplitter;
+import xyz.dowob.audiototext.component.workspace.TaskWorkspaceManager;
 import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.MediaInfoDTO;
+import xyz.dowob.audiototext.dto.OutputCleanupReportDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
+import xyz.dowob.audiototext.dto.UploadedAudioDTO;
 import xyz.dowob.audiototext.provider.PythonServiceProvider;
 import xyz.dowob.audiototext.service.ProcessingService;
+import xyz.dowob.audiototext.type.OutputType;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 /**
  * 用於實現音訊檔案成可以被轉換以及優化處理內容的實現類
@@ -35,6 +60,11 @@ import java.util.Optional;
 @Log4j2
 @RequiredArgsConstructor
 public class ProcessingServiceImp implements ProcessingService {
+    /**
+     * 串流上傳時讀取輸入串流的緩衝區大小
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     /**
      * 音訊的配置信息
      */
@@ -50,6 +80,26 @@ public class ProcessingServiceImp implements ProcessingService {
      */
     private final Optional<PythonServiceProvider> pythonProvider;
 
+    /**
+     * 任務暫存工作區管理器，每個任務的暫存檔案保存於獨立的工作區中
+     */
+    private final TaskWorkspaceManager taskWorkspaceManager;
+
+    /**
+     * 指標註冊器，用於記錄音訊標準化各路徑的耗時
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 使用 FFmpeg 標準化的累計耗時，單位為奈秒，用於估計略過 FFmpeg 所節省的時間
+     */
+    private final LongAdder ffmpegNanos = new LongAdder();
+
+    /**
+     * 使用 FFmpeg 標準化的累計輸入大小，單位為位元組
+     */
+    private final LongAdder ffmpegBytes = new LongAdder();
+
     /**
      * 儲存音訊檔案
      *
@@ -62,21 +112,96 @@ public class ProcessingServiceImp implements ProcessingService {
      */
     @Override
     public File saveAudio (MultipartFile audioFile, String taskId) throws IOException {
-        File tempFileDirectory = Path.of(audioProperties.getPath().getTempFileDirectory()).toFile();
-        if (!tempFileDirectory.exists() && !tempFileDirectory.mkdirs()) {
-            log.error("無法建立暫存檔案目錄");
-            throw new IOException("無法建立暫存檔案目錄");
-        }
-        File tempInputFile = File.createTempFile(String.format("%s_input_audio_", taskId), null, tempFileDirectory);
+        File workspace = taskWorkspaceManager.allocate(taskId, audioFile.getSize()).toFile();
+        File tempInputFile = File.createTempFile(String.format("%s_input_audio_", taskId), null, workspace);
         audioFile.transferTo(tempInputFile);
         return tempInputFile;
     }
 
+    /**
+     * 以串流的方式儲存音訊檔案，只讀取一次輸入串流並直接寫入任務的工作區
+     * 寫入時使用 DigestInputStream 同時計算 SHA-256 雜湊值，並在超過大小上限時立即中止
+     *
+     * @param inputStream  音訊檔案的輸入串流
+     * @param expectedSize 請求宣告的檔案大小，用於配置工作區，未知時為 -1
+     * @param taskId       任務ID
+     *
+     * @return 儲存後的音訊檔案以及大小、雜湊值
+     *
+     * @throws IOException 檔案讀取、寫入時錯誤，或檔案為空、超過大小上限
+     */
+    @Override
+    public UploadedAudioDTO saveAudio (InputStream inputStream, long expectedSize, String taskId) throws IOException {
+        File workspace = taskWorkspaceManager.allocate(taskId, expectedSize).toFile();
+        File tempInputFile = File.createTempFile(String.format("%s_input_audio_", taskId), null, workspace);
+        long maxUploadBytes = audioProperties.getThreshold().getMaxUploadSize() * 1024 * 1024;
+        MessageDigest digest = createSha256Digest();
+        long size = 0;
+        try (InputStream digestInputStream = new DigestInputStream(inputStream, digest);
+             OutputStream outputStream = Files.newOutputStream(tempInputFile.toPath())) {
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int length;
+            while ((length = digestInputStream.read(buffer)) != -1) {
+                size += length;
+                if (maxUploadBytes > 0 && size > maxUploadBytes) {
+                    throw new IOException(String.format("檔案超過大小上限: %d MB", audioProperties.getThreshold().getMaxUploadSize()));
+                }
+                outputStream.write(buffer, 0, length);
+            }
+        }
+        if (size == 0) {
+            throw new IOException("檔案為空");
+        }
+        return new UploadedAudioDTO(tempInputFile, size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * 探測音訊檔案的長度與格式
+     * WAV 檔案只讀取 RIFF 標頭並以音訊資料長度計算長度，不需要啟動外部進程，其他格式使用 FFmpeg 讀取檔案資訊
+     *
+     * @param audioFile 音訊檔案
+     *
+     * @return 音檔資訊
+     *
+     * @throws IOException 檔案無法解析或不包含音訊
+     */
+    @Override
+    public MediaInfoDTO probeAudio (File audioFile) throws IOException {
+        long startTime = System.nanoTime();
+        Optional<WavHeader> header = WavHeader.probe(audioFile);
+        if (header.isPresent() && header.get().pcm()) {
+            WavHeader wav = header.get();
+            long frames = wav.dataLength() / wav.blockAlign();
+            meterRegistry.timer("audio.probe", "path", "header").record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            return new MediaInfoDTO(frames * 1000 / wav.sampleRate(), "wav", wav.codecName(),
+                                    wav.sampleRate(), wav.channels());
+        }
+        try {
+            MultimediaInfo info = new MultimediaObject(audioFile).getInfo();
+            AudioInfo audio = info.getAudio();
+            if (audio == null) {
+                throw new IOException("檔案不包含音訊");
+            }
+            return new MediaInfoDTO(info.getDuration(), info.getFormat(), audio.getDecoder(), audio.getSamplingRate(), audio.getChannels());
+        } catch (EncoderException e) {
+            throw new IOException("無法解析音訊檔案: " + e.getMessage(), e);
+        } finally {
+            meterRegistry.timer("audio.probe", "path", "ffmpeg").record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
     /**
      * 轉換輸入的音訊檔案成可以被處理的格式
+     * 先讀取 WAV 標頭判斷是否需要外部編碼器，依序嘗試:
+     * 1. 已經是標準格式且為標準標頭時直接使用上傳的檔案 (passthrough)
+     * 2. 已經是標準格式但標頭包含額外區塊時，只重寫標頭並複製音訊資料 (rewrite)
+     * 3. 採樣率相同的整數 PCM，在 Java 中轉換位元數並混合聲道 (convert)，採樣率不同時再以多相位濾波器重新採樣 (resample)
+     * 4. 其餘格式使用 FFmpeg 轉換 (ffmpeg)
+     * 各路徑的耗時記錄於 audio.standardize，並依照 FFmpeg 的平均處理速度估計略過 FFmpeg 所節省的時間
      *
      * @param tempAudioFile 音訊檔案
      * @param taskId        任務ID
+     * @param mediaInfo     上傳時探測的音檔資訊，用於預估標準化後的檔案大小
      *
      * @return 處理後的音訊檔案
      *
@@ -84,38 +209,187 @@ public class ProcessingServiceImp implements ProcessingService {
      * @throws EncoderException 轉換音檔時編譯器錯誤
      */
     @Override
-    public File standardizeAudio (File tempAudioFile, String taskId) throws IOException, EncoderException {
-        File standardizeAudio = File.createTempFile(String.format("%s_standardize_", taskId),
-                                                    ".wav", Path.of(audioProperties.getPath().getTempFileDirectory()).toFile()
-        );
+    public File standardizeAudio (File tempAudioFile, String taskId, MediaInfoDTO mediaInfo) throws IOException, EncoderException {
+        AudioProperties.StandardFormat standardFormat = audioProperties.getStandardFormat();
+        long startTime = System.nanoTime();
+        long inputLength = tempAudioFile.length();
+        Optional<WavHeader> header = WavHeader.probe(tempAudioFile);
+        if (header.isPresent() && header.get().isPcm16(standardFormat.getSampleRate(), standardFormat.getChannel())) {
+            if (header.get().isCanonical(inputLength)) {
+                recordStandardize("passthrough", startTime, inputLength);
+                return tempAudioFile;
+            }
+            File standardizeAudio = createStandardizeFile(taskId, mediaInfo);
+            PcmWavConverter.rewriteHeader(tempAudioFile, header.get(), standardizeAudio);
+            recordStandardize("rewrite", startTime, inputLength);
+            return standardizeAudio;
+        }
+        File standardizeAudio = createStandardizeFile(taskId, mediaInfo);
+        if (header.isPresent() && header.get().isConvertible(standardFormat.getSampleRate(), standardFormat.getChannel())) {
+            PcmWavConverter.convert(tempAudioFile, header.get(), standardizeAudio, standardFormat.getSampleRate(), standardFormat.getChannel());
+            recordStandardize(header.get().sampleRate() == standardFormat.getSampleRate() ? "convert" : "resample", startTime, inputLength);
+            return standardizeAudio;
+        }
         EncodingAttributes encoderAttributes = getEncodingAttributes();
         Encoder encoder = new Encoder();
         encoder.encode(new MultimediaObject(tempAudioFile), standardizeAudio, encoderAttributes);
+        long elapsed = recordStandardize("ffmpeg", startTime, inputLength);
+        ffmpegNanos.add(elapsed);
+        ffmpegBytes.add(inputLength);
 
         return standardizeAudio;
     }
 
     /**
-     * 刪除伺服器上的暫存檔案
+     * 在任務的工作區中建立標準化後的音訊檔案，依照音檔長度預估標準格式的檔案大小以配置工作區
+     *
+     * @param taskId    任務ID
+     * @param mediaInfo 上傳時探測的音檔資訊
+     *
+     * @return 標準化後的音訊檔案
+     *
+     * @throws IOException 檔案建立時錯誤
+     */
+    private File createStandardizeFile (String taskId, MediaInfoDTO mediaInfo) throws IOException {
+        AudioProperties.StandardFormat standardFormat = audioProperties.getStandardFormat();
+        long expectedBytes = mediaInfo.durationMillis() <= 0 ? -1
+                                                             : mediaInfo.durationMillis() * standardFormat.getSampleRate() * standardFormat.getChannel() * 2 / 1000
+                                                               + WavHeader.CANONICAL_HEADER_SIZE;
+        File workspace = taskWorkspaceManager.allocate(taskId, expectedBytes).toFile();
+        return File.createTempFile(String.format("%s_standardize_", taskId), ".wav", workspace);
+    }
+
+    /**
+     * 記錄標準化的耗時，略過 FFmpeg 時依照 FFmpeg 目前的平均處理速度 (每位元組耗時) 估計節省的時間
+     *
+     * @param path        標準化的路徑
+     * @param startTime   開始時間，單位為奈秒
+     * @param inputLength 輸入檔案的大小
+     *
+     * @return 耗時，單位為奈秒
+     */
+    private long recordStandardize (String path, long startTime, long inputLength) {
+        long elapsed = System.nanoTime() - startTime;
+        meterRegistry.timer("audio.standardize", "path", path).record(elapsed, TimeUnit.NANOSECONDS);
+        long sampledBytes = ffmpegBytes.sum();
+        if (!"ffmpeg".equals(path) && sampledBytes > 0) {
+            double estimated = (double) ffmpegNanos.sum() / sampledBytes * inputLength;
+            meterRegistry.counter("audio.standardize.saved", "path", path).increment(Math.max(0, estimated - elapsed) / 1e9);
+        }
+        log.debug("音訊標準化路徑: {}, 耗時: {} ms", path, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return elapsed;
+    }
+
+    /**
+     * 建立 SHA-256 雜湊計算器
+     *
+     * @return SHA-256 雜湊計算器
+     */
+    private MessageDigest createSha256Digest () {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    /**
+     * 刪除伺服器上的暫存檔案，直接刪除任務的工作區資料夾
      *
      * @param taskId 任務ID
      */
     @Override
     public void deleteTempFile (String taskId) {
-        File tempFileDirectory = Path.of(audioProperties.getPath().getTempFileDirectory()).toFile();
-        File[] tempFiles = tempFileDirectory.listFiles((dir, name) -> name.contains(taskId));
-        if (tempFiles != null) {
-            for (File tempFile : tempFiles) {
-                if (!tempFile.delete()) {
-                    log.error("無法刪除暫存檔案: {}", tempFile.getName());
+        taskWorkspaceManager.release(taskId);
+    }
+
+    /**
+     * 刪除一批任務的輸出檔案，每個任務的輸出檔案保存於以任務 ID 命名的資料夾中，直接刪除資料夾即可
+     * 同時檢查舊版直接保存於輸出資料夾中的檔案 (任務ID_output.副檔名)
+     * 使用虛擬線程平行刪除，並以 {@link AudioProperties.Threshold#getOutputCleanupConcurrency()} 限制同時進行的 I/O 數量
+     *
+     * @param keys 任務鍵值列表
+     *
+     * @return 清理結果，刪除失敗的任務不會列入已清理的任務中
+     */
+    @Override
+    public OutputCleanupReportDTO deleteOutputFiles (List<TaskKeyDTO> keys) {
+        Semaphore semaphore = new Semaphore(Math.max(1, audioProperties.getThreshold().getOutputCleanupConcurrency()));
+        List<TaskKeyDTO> cleanedKeys = Collections.synchronizedList(new ArrayList<>());
+        LongAdder deletedFiles = new LongAdder();
+        LongAdder deletedBytes = new LongAdder();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (TaskKeyDTO key : keys) {
+                executor.execute(() -> {
+                    try {
+                        semaphore.acquire();
+                        try {
+                            deleteTaskOutput(key.taskId(), deletedFiles, deletedBytes);
+                            cleanedKeys.add(key);
+                        } finally {
+                            semaphore.release();
+                        }
+                    } catch (IOException e) {
+                        log.error("刪除過期檔案失敗: {}", key.taskId(), e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        return new OutputCleanupReportDTO(List.copyOf(cleanedKeys), deletedFiles.sum(), deletedBytes.sum());
+    }
+
+    /**
+     * 刪除單一任務的輸出資料夾以及舊版的輸出檔案
+     *
+     * @param taskId       任務ID
+     * @param deletedFiles 刪除的檔案數量累加器
+     * @param deletedBytes 刪除的檔案大小累加器
+     *
+     * @throws IOException 檔案刪除時錯誤
+     */
+    private void deleteTaskOutput (String taskId, LongAdder deletedFiles, LongAdder deletedBytes) throws IOException {
+        Path outputDirectory = Path.of(audioProperties.getPath().getOutputDirectory());
+        Path taskDirectory = outputDirectory.resolve(taskId);
+        if (Files.isDirectory(taskDirectory)) {
+            try (Stream<Path> paths = Files.walk(taskDirectory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    deletePath(path, deletedFiles, deletedBytes);
                 }
-                log.debug("刪除暫存檔案: {}", tempFile.getName());
             }
         }
+        for (OutputType type : OutputType.values()) {
+            deletePath(outputDirectory.resolve(String.format("%s_output.%s", taskId, type.getType())), deletedFiles, deletedBytes);
+        }
+    }
+
+    /**
+     * 刪除單一檔案或空資料夾，若為檔案則累加刪除的數量以及大小
+     *
+     * @param path         檔案路徑
+     * @param deletedFiles 刪除的檔案數量累加器
+     * @param deletedBytes 刪除的檔案大小累加器
+     *
+     * @throws IOException 檔案刪除時錯誤
+     */
+    private void deletePath (Path path, LongAdder deletedFiles, LongAdder deletedBytes) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        boolean isFile = Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS);
+        long size = isFile ? Files.size(path) : 0;
+        if (Files.deleteIfExists(path) && isFile) {
+            deletedFiles.increment();
+            deletedBytes.add(size);
+            log.debug("刪除過期檔案: {}", path.getFileName());
+        }
     }
 
     /**
      * 處理轉譯後的文字內容，將標點符號還原
+     * 超過 {@link AudioProperties.Threshold#getMaxSequenceLength()} 個單字的文本會切分為互相重疊的文字視窗，
+     * 平行交由各個 Python 處理器處理後，再依照重疊部分拼接結果
      *
      * @param text 轉譯後的原始文字內容
      *
@@ -127,7 +401,14 @@ public class ProcessingServiceImp implements ProcessingService {
             log.warn("Python 服務未初始化，無法處理標點符號，返回原始文字內容");
             return text;
         }
-        return pythonProvider.get().getPunctuationResult(text, taskId);
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(text, audioProperties.getThreshold().getMaxSequenceLength(),
+                                                                              audioProperties.getThreshold().getPunctuationWindowOverlap());
+        log.debug("任務 {} 的標點符號恢復切分為 {} 個文字視窗", taskId, windowList.size());
+        long startTime = System.nanoTime();
+        List<String> resultList = pythonProvider.get().getPunctuationResults(windowList.stream().map(TextWindowSplitter.Window::text).toList(), taskId);
+        meterRegistry.timer("punctuation.restore", "windowed", String.valueOf(windowList.size() > 1))
+                     .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        return TextWindowSplitter.stitch(windowList, resultList);
     }
 
     /**
@@ -1,15 +1,31 @@
 package xyz.dowob.audiototext.serviceImp;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.FinishedTaskDTO;
+import xyz.dowob.audiototext.dto.TaskExpiryDTO;
+import xyz.dowob.audiototext.dto.TaskKeyDTO;
 import xyz.dowob.audiototext.dto.TaskStatusDTO;
 import xyz.dowob.audiototext.entity.Task;
+import xyz.dowob.audiototext.entity.TaskResult;
+import xyz.dowob.audiototext.entity.TranscriptionSegment;
 import xyz.dowob.audiototext.repository.TaskRepository;
 import xyz.dowob.audiototext.service.TaskService;
+import xyz.dowob.audiototext.strategy.PayloadCodecStrategy;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -30,6 +46,26 @@ public class TaskServiceImp implements TaskService {
      */
     private final TaskRepository taskRepository;
 
+    /**
+     * Jackson ObjectMapper 類，用於解析任務結果
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 任務結果編碼策略，用於還原保存的任務結果
+     */
+    private final PayloadCodecStrategy payloadCodecStrategy;
+
+    /**
+     * 音檔配置類，用於取得定時任務每批次的處理數量
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 交易模板，用於使每批次的多個刪除語句在同一個交易中執行
+     */
+    private final TransactionTemplate transactionTemplate;
+
     /**
      * 任務狀態 Map，用於保存任務的狀態信息
      * Key 為任務 ID，Value 為任務狀態 DTO
@@ -37,13 +73,37 @@ public class TaskServiceImp implements TaskService {
      */
     private final Map<String, TaskStatusDTO> currentTaskMap = new ConcurrentHashMap<>();
 
+    /**
+     * 已結束任務的快取，Key 為任務 ID，Value 為已解析的任務內容
+     * 依照 {@link AudioProperties.Threshold} 中的設定，以任務結果的字元數為權重限制總容量以及保存時間，並記錄命中率
+     */
+    private final Cache<String, FinishedTaskDTO> finishedTaskCache;
+
     /**
      * TaskServiceImp 構造方法
      *
-     * @param taskRepository 任務數據庫操作類
+     * @param taskRepository       任務數據庫操作類
+     * @param objectMapper         Jackson ObjectMapper 類
+     * @param payloadCodecStrategy 任務結果編碼策略
+     * @param audioProperties      音檔配置類，用於取得快取以及定時任務的設定
+     * @param transactionTemplate  交易模板
+     * @param meterRegistry        指標註冊器，用於記錄快取的命中率
      */
-    public TaskServiceImp(TaskRepository taskRepository) {
+    public TaskServiceImp(TaskRepository taskRepository, ObjectMapper objectMapper, PayloadCodecStrategy payloadCodecStrategy, AudioProperties audioProperties,
+                          TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
         this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.payloadCodecStrategy = payloadCodecStrategy;
+        this.audioProperties = audioProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.finishedTaskCache = Caffeine
+                .newBuilder()
+                .maximumWeight(audioProperties.getThreshold().getFinishedTaskCacheMaxSize() * 1024L * 1024L)
+                .weigher((String taskId, FinishedTaskDTO task) -> task.contentLength())
+                .expireAfterWrite(Duration.ofSeconds(audioProperties.getThreshold().getFinishedTaskCacheExpireTime()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, finishedTaskCache, "finishedTask");
     }
 
     /**
@@ -90,53 +150,195 @@ public class TaskServiceImp implements TaskService {
     }
 
     /**
-     * 查詢所有未完成以及未刪除的任務
+     * 根據任務 ID 查詢已結束的任務，優先從快取中取得
+     * 快取未命中時查詢資料庫並解析任務結果，只有已結束的任務會被快取
      *
-     * @return List<Task> 任務列表
+     * @param taskId 任務 ID
+     *
+     * @return 已結束任務的內容
      */
     @Override
-    public List<Task> findAllFailAndNotDeletedTasks () {
-        return taskRepository.findAllNotDelete(TaskStatusDTO.Status.FAILED);
+    public Optional<FinishedTaskDTO> findFinishedTask (String taskId) {
+        return Optional.ofNullable(finishedTaskCache.get(taskId, this::loadFinishedTask));
     }
 
     /**
-     * 儲存任務狀態
-     * @param task 任務
+     * 根據任務 ID 查詢已結束的任務，並返回已解析結果的任務狀態
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 已結束任務的任務狀態
      */
     @Override
-    public void saveTaskStatus(Task task) {
-        taskRepository.save(task);
+    public Optional<TaskStatusDTO> findFinishedTaskStatus (String taskId) {
+        return findFinishedTask(taskId).map(FinishedTaskDTO::taskStatus);
     }
 
     /**
-     * 刪除任務狀態
-     * @param task 任務
+     * 從資料庫載入已結束的任務，並將保存的結果解析為任務狀態
+     * 任務結果保存於獨立的資料表中，只在此處按需查詢並還原
+     *
+     * @param taskId 任務 ID
+     *
+     * @return 已結束任務的內容，任務不存在、尚未結束或沒有結果時為 null，不會被快取
+     */
+    private FinishedTaskDTO loadFinishedTask (String taskId) {
+        Task task = findTaskByTaskId(taskId, TaskStatusDTO.Status.SUCCESS, TaskStatusDTO.Status.FAILED);
+        if (task == null) {
+            return null;
+        }
+        TaskResult taskResult = taskRepository.findResultByTaskId(taskId);
+        if (taskResult == null) {
+            return null;
+        }
+        try {
+            String content = payloadCodecStrategy.decode(taskResult);
+            HashMap<String, Object> result = new HashMap<>();
+            result.put("downloadUrl", task.getDownloadUrl());
+            if (task.getStatus() == TaskStatusDTO.Status.FAILED) {
+                JsonNode errorNode = objectMapper.readTree(content);
+                result.put("error", errorNode.get("error").asText());
+            } else {
+                JsonNode resultNode = objectMapper.readTree(content);
+                List<TranscriptionSegment> segments = objectMapper.convertValue(resultNode.get("segments"), new TypeReference<>() {
+                });
+                result.put("text", resultNode.get("text").asText());
+                result.put("segments", segments);
+            }
+            TaskStatusDTO taskStatus = new TaskStatusDTO(taskId, TaskStatusDTO.MAX_PROGRESS_BASIS_POINTS, task.getStatus(), result);
+            return new FinishedTaskDTO(taskId, task.getStatus(), task.getDownloadUrl(), task.getFinishTime(), taskStatus, content.length());
+        } catch (IOException e) {
+            throw new IllegalStateException("無法解析任務結果: " + taskId, e);
+        }
+    }
+
+    /**
+     * 分批將所有失敗且未刪除的任務標記為刪除
+     * 每批次只查詢任務鍵值，並以一次更新語句標記整批任務並使快取失效，記憶體使用量不隨任務數量增加
+     *
+     * @return 標記為刪除的任務數量
      */
     @Override
-    public void deleteTaskStatus(Task task) {
-        taskRepository.delete(task);
+    public int markFailedTasksDeleted () {
+        int batchSize = audioProperties.getThreshold().getMaintenanceBatchSize();
+        int total = 0;
+        long lastId = 0;
+        List<TaskKeyDTO> keys;
+        do {
+            keys = taskRepository.findNotDeleteKeys(TaskStatusDTO.Status.FAILED, lastId, Limit.of(batchSize));
+            if (keys.isEmpty()) {
+                break;
+            }
+            total += markTasksDeleted(keys);
+            lastId = keys.getLast().id();
+        } while (keys.size() == batchSize);
+        return total;
+    }
+
+    /**
+     * 分批刪除所有未完成以及指定時間戳以前的任務
+     * 每批次在同一個交易中先刪除任務再刪除任務結果，避免違反外鍵約束以及留下沒有任務引用的結果，並使快取失效
+     * 仍在 {@link #currentTaskMap} 中的任務正在此實例處理，即使超過指定時間也不會被刪除
+     *
+     * @param minusSeconds 當前時間扣除指定秒數
+     *
+     * @return 刪除的任務數量
+     */
+    @Override
+    public int deleteCanNotFinishTasks (long minusSeconds) {
+        LocalDateTime time = LocalDateTime.now().minusSeconds(minusSeconds);
+        int batchSize = audioProperties.getThreshold().getMaintenanceBatchSize();
+        int total = 0;
+        LocalDateTime lastTime = TaskRepository.FIRST_SORT_TIME;
+        long lastId = 0;
+        List<TaskKeyDTO> keys;
+        do {
+            keys = taskRepository.findCanNotFinishTaskKeys(TaskStatusDTO.Status.PROCESSING, time, lastTime, lastId, Limit.of(batchSize));
+            if (keys.isEmpty()) {
+                break;
+            }
+            List<TaskKeyDTO> batch = keys.stream().filter(key -> !currentTaskMap.containsKey(key.taskId())).toList();
+            lastTime = keys.getLast().sortTime();
+            lastId = keys.getLast().id();
+            if (batch.isEmpty()) {
+                continue;
+            }
+            total += Objects.requireNonNull(transactionTemplate.execute(status -> {
+                int deleted = taskRepository.deleteByIds(batch.stream().map(TaskKeyDTO::id).toList());
+                List<Long> resultIds = batch.stream().map(TaskKeyDTO::resultId).filter(Objects::nonNull).toList();
+                if (!resultIds.isEmpty()) {
+                    taskRepository.deleteResultByIds(resultIds);
+                }
+                return deleted;
+            }));
+            batch.forEach(key -> finishedTaskCache.invalidate(key.taskId()));
+        } while (keys.size() == batchSize);
+        return total;
     }
 
     /**
-     * 查詢所有未完成的任務，並且創建時間在指定時間之前
+     * 分批查詢指定時間戳以前結束且未刪除的任務鍵值
      *
-     * @param minusHours 當前時間扣除指定小時數
+     * @param time     指定時間
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 null
+     * @param lastId   上一批次最後的任務主鍵
+     * @param limit    每批次的數量
+     *
+     * @return 任務鍵值列表
      */
     @Override
-    public List<Task> findAllCanNotFinishTasks(int minusHours) {
-        LocalDateTime time = LocalDateTime.now().minusHours(minusHours);
-        return taskRepository.findAllCanNotFinishTasks(TaskStatusDTO.Status.PROCESSING, time);
+    public List<TaskKeyDTO> findExpireTaskKeys (LocalDateTime time, LocalDateTime lastTime, long lastId, int limit) {
+        return taskRepository.findExpireTaskKeys(time, Objects.requireNonNullElse(lastTime, TaskRepository.FIRST_SORT_TIME), lastId, Limit.of(limit));
     }
 
     /**
-     * 查詢所有過期的任務
+     * 分批查詢所有已完成且未刪除的任務到期資訊
+     *
+     * @param lastTime 上一批次最後任務的完成時間，第一批次為 null
+     * @param lastId   上一批次最後的任務主鍵
+     * @param limit    每批次的數量
+     *
+     * @return 任務到期資訊列表
+     */
+    @Override
+    public List<TaskExpiryDTO> findNotDeleteExpiries (LocalDateTime lastTime, long lastId, int limit) {
+        return taskRepository.findNotDeleteExpiries(Objects.requireNonNullElse(lastTime, TaskRepository.FIRST_SORT_TIME), lastId, Limit.of(limit));
+    }
+
+    /**
+     * 根據任務鍵值批次將任務標記為刪除，並使已結束任務的快取失效
+     *
+     * @param keys 任務鍵值列表
      *
-     * @param minusHours 當前時間扣除指定小時數
+     * @return 標記為刪除的任務數量
      */
     @Override
-    public List<Task> findAllByExpireTasks(int minusHours) {
-        LocalDateTime time = LocalDateTime.now().minusHours(minusHours);
-        return taskRepository.findAllByExpireTasks(time);
+    public int markTasksDeleted (Collection<TaskKeyDTO> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        int marked = taskRepository.markDeletedByIds(keys.stream().map(TaskKeyDTO::id).toList());
+        keys.forEach(key -> finishedTaskCache.invalidate(key.taskId()));
+        return marked;
+    }
+
+    /**
+     * 儲存任務狀態
+     * @param task 任務
+     */
+    @Override
+    public void saveTaskStatus(Task task) {
+        taskRepository.save(task);
+        finishedTaskCache.invalidate(task.getTaskId());
     }
 
+    /**
+     * 刪除任務狀態
+     * @param task 任務
+     */
+    @Override
+    public void deleteTaskStatus(Task task) {
+        taskRepository.delete(task);
+        finishedTaskCache.invalidate(task.getTaskId());
+    }
 }
@@ -0,0 +1,286 @@
+package xyz.dowob.audiototext.serviceImp;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import xyz.dowob.audiototext.component.generator.TaskIdGenerator;
+import xyz.dowob.audiototext.component.upload.UploadSession;
+import xyz.dowob.audiototext.component.workspace.TaskWorkspaceManager;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.dto.UploadStatusDTO;
+import xyz.dowob.audiototext.service.AudioService;
+import xyz.dowob.audiototext.service.UploadService;
+import xyz.dowob.audiototext.type.ModelType;
+import xyz.dowob.audiototext.type.OutputType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 分段上傳服務的實現類，實現 UploadService 接口
+ * 每個上傳在建立時產生任務 ID 並在任務的工作區中預先配置完整大小的檔案，分段以位置寫入的方式寫入對應的位置
+ * 完成上傳後直接以同一個檔案提交轉換，不需要再複製檔案
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName UploadServiceImp
+ * @create 2025/4/21
+ * @Version 1.0
+ **/
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class UploadServiceImp implements UploadService {
+    /**
+     * Content-Range 標頭的格式，例如 bytes 0-1048575/5242880
+     */
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("^bytes (\\d+)-(\\d+)/(\\d+|\\*)$");
+
+    /**
+     * 音檔配置類，用於取得上傳大小上限以及閒置保存時間
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 音訊服務類，完成上傳後提交轉換
+     */
+    private final AudioService audioService;
+
+    /**
+     * 任務暫存工作區管理器，上傳的檔案保存於任務的工作區中
+     */
+    private final TaskWorkspaceManager taskWorkspaceManager;
+
+    /**
+     * 任務 ID 產生器，上傳 ID 即為任務 ID
+     */
+    private final TaskIdGenerator taskIdGenerator;
+
+    /**
+     * 進行中的上傳，Key 為上傳 ID
+     */
+    private final Map<String, UploadSession> uploadSessionMap = new ConcurrentHashMap<>();
+
+    /**
+     * 建立分段上傳，並在任務的工作區中預先配置完整大小的檔案
+     *
+     * @param size          檔案的完整大小，單位為位元組
+     * @param sha256        上傳檔案的 SHA-256 雜湊值，可為 null
+     * @param modelType     模型類型
+     * @param outputType    輸出格式類型
+     * @param isNeedSegment 是否需要分段
+     *
+     * @return 上傳狀態
+     *
+     * @throws IOException 無法建立上傳檔案
+     */
+    @Override
+    public UploadStatusDTO createUpload (long size, String sha256, ModelType modelType, OutputType outputType, boolean isNeedSegment) throws IOException {
+        long maxUploadBytes = audioProperties.getThreshold().getMaxUploadSize() * 1024 * 1024;
+        if (size <= 0) {
+            throw new IllegalArgumentException("檔案為空");
+        } else if (maxUploadBytes > 0 && size > maxUploadBytes) {
+            throw new IllegalArgumentException(String.format("檔案超過大小上限: %d MB", audioProperties.getThreshold().getMaxUploadSize()));
+        }
+        String uploadId = taskIdGenerator.nextId();
+        try {
+            File file = taskWorkspaceManager.allocate(uploadId, size).resolve(String.format("%s_input_audio_upload", uploadId)).toFile();
+            UploadSession uploadSession = new UploadSession(uploadId, file, size, sha256, modelType, outputType, isNeedSegment);
+            uploadSessionMap.put(uploadId, uploadSession);
+            log.debug("建立分段上傳: {}, 大小: {}", uploadId, size);
+            return toStatus(uploadSession);
+        } catch (IOException e) {
+            taskWorkspaceManager.release(uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * 上傳一個分段，寫入檔案中 Content-Range 指定的位置，並更新工作區的活動時間
+     *
+     * @param uploadId     上傳 ID
+     * @param contentRange Content-Range 標頭
+     * @param inputStream  分段內容
+     *
+     * @return 上傳狀態
+     *
+     * @throws IOException 寫入分段時錯誤
+     */
+    @Override
+    public UploadStatusDTO writeChunk (String uploadId, String contentRange, InputStream inputStream) throws IOException {
+        UploadSession uploadSession = getUploadSession(uploadId);
+        Matcher matcher = contentRange == null ? null : CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException("Content-Range 格式錯誤，應為 bytes 起點-終點/總大小");
+        }
+        long start = Long.parseLong(matcher.group(1));
+        long end = Long.parseLong(matcher.group(2)) + 1;
+        if (!"*".equals(matcher.group(3)) && Long.parseLong(matcher.group(3)) != uploadSession.getSize()) {
+            throw new IllegalArgumentException("Content-Range 的總大小與建立上傳時不同");
+        }
+        taskWorkspaceManager.touch(uploadId);
+        uploadSession.write(start, end, inputStream);
+        return toStatus(uploadSession);
+    }
+
+    /**
+     * 取得上傳狀態
+     *
+     * @param uploadId 上傳 ID
+     *
+     * @return 上傳狀態
+     */
+    @Override
+    public UploadStatusDTO getUploadStatus (String uploadId) {
+        return toStatus(getUploadSession(uploadId));
+    }
+
+    /**
+     * 完成上傳，確認已接收完整的檔案並驗證雜湊值後，關閉上傳並提交轉換
+     * 檔案尚未接收完整時不會關閉上傳，客戶端可以補傳後再次完成上傳
+     *
+     * @param uploadId 上傳 ID
+     * @param request  HTTP 請求
+     *
+     * @return 轉換後的物件，包含任務ID
+     *
+     * @throws IOException 關閉或驗證上傳檔案時錯誤
+     */
+    @Override
+    public Object completeUpload (String uploadId, HttpServletRequest request) throws IOException {
+        UploadSession uploadSession = getUploadSession(uploadId);
+        if (!uploadSession.isComplete()) {
+            throw new IllegalStateException(String.format("檔案尚未上傳完成: %d/%d", uploadSession.getReceivedBytes(), uploadSession.getSize()));
+        }
+        if (!uploadSessionMap.remove(uploadId, uploadSession)) {
+            throw new NoSuchElementException("上傳不存在或已完成: " + uploadId);
+        }
+        try {
+            uploadSession.close();
+            if (uploadSession.getSha256() != null) {
+                String actual = computeSha256(uploadSession.getFile());
+                if (!actual.equalsIgnoreCase(uploadSession.getSha256())) {
+                    throw new IllegalStateException(String.format("檔案雜湊值不符: %s", actual));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            taskWorkspaceManager.release(uploadId);
+            throw e;
+        }
+        log.debug("分段上傳完成: {}", uploadId);
+        return audioService.audioToText(uploadId, uploadSession.getFile(), uploadSession.getModelType(), uploadSession.getOutputType(),
+                                        uploadSession.isNeedSegment(), request);
+    }
+
+    /**
+     * 取消上傳，並刪除任務的工作區
+     *
+     * @param uploadId 上傳 ID
+     */
+    @Override
+    public void cancelUpload (String uploadId) {
+        UploadSession uploadSession = uploadSessionMap.remove(uploadId);
+        if (uploadSession == null) {
+            throw new NoSuchElementException("上傳不存在或已完成: " + uploadId);
+        }
+        closeAndRelease(uploadSession);
+    }
+
+    /**
+     * 清理閒置的上傳，超過閒置保存時間沒有接收任何分段內容的上傳將被取消，正在寫入分段的上傳不會被清理
+     *
+     * @return 清理的上傳數量
+     */
+    @Override
+    public int cleanIdleUploads () {
+        Instant expireTime = Instant.now().minus(Duration.ofSeconds(audioProperties.getThreshold().getUploadSessionExpireTime()));
+        int cleaned = 0;
+        for (UploadSession uploadSession : uploadSessionMap.values()) {
+            if (uploadSession.isIdleSince(expireTime) && uploadSessionMap.remove(uploadSession.getUploadId(), uploadSession)) {
+                log.info("清理閒置的分段上傳: {}", uploadSession.getUploadId());
+                closeAndRelease(uploadSession);
+                cleaned++;
+            }
+        }
+        return cleaned;
+    }
+
+    /**
+     * 根據上傳 ID 取得進行中的上傳
+     *
+     * @param uploadId 上傳 ID
+     *
+     * @return 上傳
+     *
+     * @throws NoSuchElementException 上傳不存在或已完成
+     */
+    private UploadSession getUploadSession (String uploadId) {
+        UploadSession uploadSession = uploadSessionMap.get(uploadId);
+        if (uploadSession == null) {
+            throw new NoSuchElementException("上傳不存在或已完成: " + uploadId);
+        }
+        return uploadSession;
+    }
+
+    /**
+     * 關閉上傳並刪除任務的工作區
+     *
+     * @param uploadSession 上傳
+     */
+    private void closeAndRelease (UploadSession uploadSession) {
+        try {
+            uploadSession.close();
+        } catch (IOException e) {
+            log.warn("關閉分段上傳失敗: {}", uploadSession.getUploadId(), e);
+        }
+        taskWorkspaceManager.release(uploadSession.getUploadId());
+    }
+
+    /**
+     * 將上傳轉換為上傳狀態
+     *
+     * @param uploadSession 上傳
+     *
+     * @return 上傳狀態
+     */
+    private UploadStatusDTO toStatus (UploadSession uploadSession) {
+        return new UploadStatusDTO(uploadSession.getUploadId(), uploadSession.getSize(), uploadSession.getReceivedBytes(),
+                                   uploadSession.getReceivedRangeList(), uploadSession.isComplete());
+    }
+
+    /**
+     * 計算檔案的 SHA-256 雜湊值
+     *
+     * @param file 檔案
+     *
+     * @return SHA-256 雜湊值，以十六進位字串表示
+     *
+     * @throws IOException 讀取檔案時錯誤
+     */
+    private String computeSha256 (File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+                inputStream.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package xyz.dowob.audiototext.strategy;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import xyz.dowob.audiototext.component.codec.PayloadCodec;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.entity.TaskResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任務結果編碼策略，根據設定選擇保存任務結果時使用的編碼方式
+ * 讀取時依照結果中保存的編碼名稱選擇對應的編碼方式，沒有編碼名稱的舊資料則直接讀取原始內容
+ * 編碼時記錄壓縮比例以及編碼、還原的耗時
+ *
+ * @author yuan
+ * @program AudioToText
+ * @ClassName PayloadCodecStrategy
+ * @create 2025/4/14
+ * @Version 1.0
+ **/
+@Log4j2
+@Component
+public class PayloadCodecStrategy {
+    /**
+     * 獲取預設編碼方式的設定類
+     */
+    private final AudioProperties audioProperties;
+
+    /**
+     * 指標註冊器，用於記錄壓縮比例以及耗時
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 編碼方式的映射表，用於根據名稱獲取對應的編碼方式
+     */
+    private final Map<String, PayloadCodec> codecMap = new HashMap<>();
+
+    /**
+     * 初始化 PayloadCodecStrategy，並將編碼方式列表注入
+     *
+     * @param payloadCodecs   編碼方式列表
+     * @param audioProperties 預設編碼方式的設定類
+     * @param meterRegistry   指標註冊器
+     */
+    public PayloadCodecStrategy (List<PayloadCodec> payloadCodecs, AudioProperties audioProperties, MeterRegistry meterRegistry) {
+        this.audioProperties = audioProperties;
+        this.meterRegistry = meterRegistry;
+        for (PayloadCodec payloadCodec : payloadCodecs) {
+            log.info("初始化任務結果編碼方式：{}", payloadCodec.getName());
+            codecMap.put(payloadCodec.getName(), payloadCodec);
+        }
+    }
+
+    /**
+     * 使用設定的編碼方式將任務結果編碼，並建立任務結果實體
+     *
+     * @param content 任務結果內容
+     *
+     * @return 任務結果實體
+     *
+     * @throws IOException 編碼時錯誤
+     */
+    public TaskResult encode (String content) throws IOException {
+        PayloadCodec codec = getCodec(audioProperties.getService().getResultCodec());
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        byte[] encoded = codec.encode(raw);
+        sample.stop(meterRegistry.timer("task.result.codec", "codec", codec.getName(), "operation", "encode"));
+        if (raw.length > 0) {
+            DistributionSummary
+                    .builder("task.result.compression.ratio")
+                    .description("編碼後大小與原始大小的比例")
+                    .tag("codec", codec.getName())
+                    .register(meterRegistry)
+                    .record((double) encoded.length / raw.length);
+        }
+        meterRegistry.counter("task.result.bytes", "codec", codec.getName(), "type", "raw").increment(raw.length);
+        meterRegistry.counter("task.result.bytes", "codec", codec.getName(), "type", "stored").increment(encoded.length);
+        return new TaskResult(codec.getName(), encoded);
+    }
+
+    /**
+     * 還原任務結果的內容，沒有編碼名稱的舊資料則直接返回原始內容
+     *
+     * @param taskResult 任務結果實體
+     *
+     * @return 任務結果內容
+     *
+     * @throws IOException 還原時錯誤
+     */
+    public String decode (TaskResult taskResult) throws IOException {
+        if (taskResult.getCodec() == null) {
+            return taskResult.getContent();
+        }
+        PayloadCodec codec = getCodec(taskResult.getCodec());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        byte[] decoded = codec.decode(taskResult.getPayload());
+        sample.stop(meterRegistry.timer("task.result.codec", "codec", codec.getName(), "operation", "decode"));
+        return new String(decoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 根據名稱獲取對應的編碼方式
+     *
+     * @param name 編碼方式的名稱
+     *
+     * @return 編碼方式
+     *
+     * @throws IllegalStateException 沒有對應的編碼方式
+     */
+    private PayloadCodec getCodec (String name) {
+        PayloadCodec codec = codecMap.get(name);
+        if (codec == null) {
+            throw new IllegalStateException("沒有可用的任務結果編碼方式: " + name);
+        }
+        return codec;
+    }
+}
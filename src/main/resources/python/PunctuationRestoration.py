@@ -21,6 +21,7 @@ sys.stderr.flush()
 
 def main():
     taskId = "Unknown"
+    requestId = None
     print("開始啟動執行腳本", file=sys.stderr)
     sys.stderr.flush()
 
@@ -31,36 +32,104 @@ def main():
                 print("空白輸入，不處理", file=sys.stderr)
                 break
 
-            print(f"收到處理句子: {line.strip()}", file=sys.stderr)
-            sys.stderr.flush()
-
+            requestId = None
             data = json.loads(line)
             text = data.get("text", "")
             taskId = data.get("taskId", "")
+            requestId = data.get("requestId")
+
+            if data.get("type") == "ping":
+                print(json.dumps({"type": "pong", "requestId": requestId}))
+                sys.stdout.flush()
+                continue
 
             if text == "test" and taskId == "test-init":
-                print(json.dumps({"isSuccess": True, "restoredText": "test", "taskId": "test-init"}))
+                print(json.dumps({"isSuccess": True, "restoredText": "test", "taskId": "test-init", "requestId": requestId}))
                 sys.stdout.flush()
                 continue
 
-            print(f"處理任務ID: {taskId}", file=sys.stderr)
-            restored_text = restore_punctuation(text)
-            output = {"isSuccess": True, "restoredText": restored_text, "taskId": taskId}
+            if "batch" in data:
+                results = restore_punctuation_batch([item.get("text", "") for item in data["batch"]])
+                output = {"isSuccess": True, "results": results, "taskId": taskId, "requestId": requestId}
+            else:
+                restored_text = restore_punctuation(text)
+                output = {"isSuccess": True, "restoredText": restored_text, "taskId": taskId, "requestId": requestId}
 
         except Exception as e:
-            print(f"發生錯誤: {str(e)}", file=sys.stderr)
+            print(f"處理任務 {taskId} 時發生錯誤: {str(e)}", file=sys.stderr)
             traceback.print_exc(file=sys.stderr)
-            output = {"isSuccess": False, "error": str(e), "taskId": taskId}
+            output = {"isSuccess": False, "error": str(e), "taskId": taskId, "requestId": requestId}
 
         print(json.dumps(output))
         sys.stdout.flush()
-        print(f"發送處理結果，任務ID: {taskId}", file=sys.stderr)
-        sys.stderr.flush()
 
 
 def restore_punctuation(text):
     clean_text = model.preprocess(text)
-    labeled_words = model.predict(clean_text)
+    return format_labeled_words(model.predict(clean_text))
+
+
+# 與 PunctuationModel.predict 相同的切分方式，每段最多 230 個單字，相鄰兩段重疊 5 個單字
+CHUNK_SIZE = 230
+CHUNK_OVERLAP = 5
+
+
+def restore_punctuation_batch(texts):
+    """
+    批次處理多段文本，將所有文本切分後的段落合併為一次模型推論，再依照單字位置拆回各段文本
+    批次推論失敗或單字數量不符時，改為逐段處理，單段的錯誤只影響該段的結果
+    """
+    try:
+        word_lists = [model.preprocess(text) for text in texts]
+        plans = [split_chunks(words) for words in word_lists]
+        chunk_texts = [" ".join(chunk) for chunks, _ in plans for chunk in chunks]
+        predictions = model.pipe(chunk_texts, batch_size=len(chunk_texts)) if chunk_texts else []
+        results = []
+        index = 0
+        for words, (chunks, overlap) in zip(word_lists, plans):
+            labeled_words = []
+            for i, chunk in enumerate(chunks):
+                keep = len(chunk) if i == len(chunks) - 1 else len(chunk) - overlap
+                labeled_words.extend(label_chunk(chunk, predictions[index], keep))
+                index += 1
+            if len(labeled_words) != len(words):
+                raise ValueError("批次推論的單字數量不符")
+            results.append({"isSuccess": True, "restoredText": format_labeled_words(labeled_words)})
+        return results
+    except Exception as e:
+        print(f"批次推論失敗，改為逐段處理: {str(e)}", file=sys.stderr)
+        results = []
+        for text in texts:
+            try:
+                results.append({"isSuccess": True, "restoredText": restore_punctuation(text)})
+            except Exception as item_error:
+                results.append({"isSuccess": False, "error": str(item_error)})
+        return results
+
+
+def split_chunks(words):
+    overlap = 0 if len(words) <= CHUNK_SIZE else CHUNK_OVERLAP
+    chunks = [words[i:i + CHUNK_SIZE] for i in range(0, len(words), CHUNK_SIZE - overlap)]
+    if len(chunks) > 1 and len(chunks[-1]) <= overlap:
+        chunks.pop()
+    return chunks, overlap
+
+
+def label_chunk(chunk, prediction, keep):
+    labeled_words = []
+    char_index = 0
+    result_index = 0
+    for word in chunk[:keep]:
+        char_index += len(word) + 1
+        label = "0"
+        while result_index < len(prediction) and char_index > prediction[result_index]["end"]:
+            label = prediction[result_index]["entity"]
+            result_index += 1
+        labeled_words.append([word, label])
+    return labeled_words
+
+
+def format_labeled_words(labeled_words):
     size = len(labeled_words)
     result = ""
 
@@ -0,0 +1,134 @@
+package xyz.dowob.audiototext.component.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PcmWavConverter 的測試，驗證 8/16/24/32 位元整數 PCM 轉換為 16 位元、混合為單聲道、重新採樣後的長度，以及重寫標頭後的內容
+ */
+class PcmWavConverterTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void eightBitIsUnsigned () throws IOException {
+        byte[] data = {(byte) 128, (byte) 144, 0, (byte) 255};
+        assertArrayEquals(new short[] {0, 4096, -32768, 32512}, convertMono(8, 1, data));
+    }
+
+    @Test
+    void sixteenBitIsCopied () throws IOException {
+        byte[] data = littleEndian(2, 1000, -2000, Short.MAX_VALUE, Short.MIN_VALUE);
+        assertArrayEquals(new short[] {1000, -2000, Short.MAX_VALUE, Short.MIN_VALUE}, convertMono(16, 1, data));
+    }
+
+    @Test
+    void twentyFourBitKeepsHighestSixteenBits () throws IOException {
+        byte[] data = littleEndian(3, 0x123456, -0x123456, 0x7FFFFF, -0x800000);
+        assertArrayEquals(new short[] {0x1234, (short) (-0x123456 >> 8), Short.MAX_VALUE, Short.MIN_VALUE}, convertMono(24, 1, data));
+    }
+
+    @Test
+    void thirtyTwoBitKeepsHighestSixteenBits () throws IOException {
+        byte[] data = littleEndian(4, 0x12345678, -0x12345678, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        assertArrayEquals(new short[] {0x1234, (short) (-0x12345678 >> 16), Short.MAX_VALUE, Short.MIN_VALUE}, convertMono(32, 1, data));
+    }
+
+    @Test
+    void stereoIsAveragedToMono () throws IOException {
+        byte[] data = littleEndian(2, 1000, 3000, -1000, 1000, Short.MAX_VALUE, Short.MAX_VALUE);
+        assertArrayEquals(new short[] {2000, 0, Short.MAX_VALUE}, convertMono(16, 2, data));
+    }
+
+    @Test
+    void extensibleInputWithOddChunkAndUnknownSizeIsConverted () throws IOException {
+        WavFileBuilder builder = new WavFileBuilder().extensible().bitsPerSample(24).extraChunk(5).declaredDataSize(0);
+        File source = builder.write(tempDir.resolve("source.wav").toFile(), littleEndian(3, 0x000100, 0x000200, 0x000300));
+        File target = convert(source, 16000, 1);
+        assertArrayEquals(new short[] {1, 2, 3}, readSamples(target));
+    }
+
+    @Test
+    void resamplingProducesExpectedLength () throws IOException {
+        int[] samples = new int[4800];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (int) (10000 * Math.sin(2 * Math.PI * 440 * i / 48000.0));
+        }
+        File source = new WavFileBuilder().sampleRate(48000).write(tempDir.resolve("source.wav").toFile(), littleEndian(2, samples));
+        File target = convert(source, 16000, 1);
+        WavHeader header = WavHeader.probe(target).orElseThrow();
+        assertEquals(16000, header.sampleRate());
+        assertEquals(1600 * 2, header.dataLength());
+        short[] output = readSamples(target);
+        short peak = 0;
+        for (int i = 200; i < output.length - 200; i++) {
+            peak = (short) Math.max(peak, Math.abs(output[i]));
+        }
+        assertEquals(10000, peak, 50);
+    }
+
+    @Test
+    void rewriteHeaderProducesCanonicalFileWithSameData () throws IOException {
+        byte[] data = littleEndian(2, 1, 2, 3, 4, 5, 6);
+        File source = new WavFileBuilder().extensible().channels(2).extraChunk(3).write(tempDir.resolve("source.wav").toFile(), data);
+        File target = Files.createFile(tempDir.resolve("target.wav")).toFile();
+        PcmWavConverter.rewriteHeader(source, WavHeader.probe(source).orElseThrow(), target);
+        WavHeader header = WavHeader.probe(target).orElseThrow();
+        assertTrue(header.isCanonical(target.length()));
+        assertTrue(header.isPcm16(16000, 2));
+        byte[] content = Files.readAllBytes(target.toPath());
+        assertArrayEquals(data, Arrays.copyOfRange(content, WavHeader.CANONICAL_HEADER_SIZE, content.length));
+    }
+
+    /**
+     * 以相同採樣率轉換為單聲道 16 位元，並讀出轉換後的樣本
+     */
+    private short[] convertMono (int bits, int channels, byte[] data) throws IOException {
+        File source = new WavFileBuilder().bitsPerSample(bits).channels(channels).write(tempDir.resolve("source-" + bits + ".wav").toFile(), data);
+        return readSamples(convert(source, 16000, 1));
+    }
+
+    private File convert (File source, int targetRate, int targetChannels) throws IOException {
+        WavHeader header = WavHeader.probe(source).orElseThrow();
+        assertTrue(header.isConvertible(targetRate, targetChannels));
+        File target = Files.createFile(tempDir.resolve("target-" + source.getName())).toFile();
+        PcmWavConverter.convert(source, header, target, targetRate, targetChannels);
+        WavHeader converted = WavHeader.probe(target).orElseThrow();
+        assertTrue(converted.isCanonical(target.length()));
+        assertTrue(converted.isPcm16(targetRate, targetChannels));
+        return target;
+    }
+
+    private static short[] readSamples (File file) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(content, WavHeader.CANONICAL_HEADER_SIZE, content.length - WavHeader.CANONICAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        short[] samples = new short[buffer.remaining() / 2];
+        buffer.asShortBuffer().get(samples);
+        return samples;
+    }
+
+    /**
+     * 將整數樣本以小端序寫入指定的位元組數量
+     */
+    private static byte[] littleEndian (int bytesPerSample, int... samples) {
+        byte[] data = new byte[samples.length * bytesPerSample];
+        for (int i = 0; i < samples.length; i++) {
+            for (int b = 0; b < bytesPerSample; b++) {
+                data[i * bytesPerSample + b] = (byte) (samples[i] >> (8 * b));
+            }
+        }
+        return data;
+    }
+}
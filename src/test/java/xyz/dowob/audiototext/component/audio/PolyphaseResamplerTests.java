@@ -0,0 +1,150 @@
+package xyz.dowob.audiototext.component.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PolyphaseResampler 的測試，以正弦波掃頻量測通帶的增益以及高於輸出奈奎斯特頻率的混疊抑制，並比對純量與向量運算核心的結果
+ */
+class PolyphaseResamplerTests {
+    /**
+     * 通帶的上限頻率以及允許的增益誤差
+     */
+    private static final double PASSBAND_HZ = 6000;
+
+    private static final double PASSBAND_TOLERANCE_DB = 0.05;
+
+    /**
+     * 阻帶的下限頻率以及最少的衰減，混疊後的頻率皆落在通帶內
+     */
+    private static final double STOPBAND_HZ = 9500;
+
+    private static final double STOPBAND_ATTENUATION_DB = 75;
+
+    /**
+     * 掃頻的間隔
+     */
+    private static final double SWEEP_STEP_HZ = 250;
+
+    @ParameterizedTest
+    @CsvSource({"44100,16000", "48000,16000"})
+    void passbandIsFlat (int inputRate, int outputRate) {
+        for (double frequency = 100; frequency <= PASSBAND_HZ; frequency += SWEEP_STEP_HZ) {
+            double gain = gainDb(inputRate, outputRate, frequency, new ScalarResampleKernel());
+            assertEquals(0, gain, PASSBAND_TOLERANCE_DB, String.format("%.0f Hz 的增益為 %.3f dB", frequency, gain));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"44100,16000", "48000,16000"})
+    void frequenciesAboveOutputNyquistAreRejected (int inputRate, int outputRate) {
+        for (double frequency = STOPBAND_HZ; frequency < inputRate / 2.0 - SWEEP_STEP_HZ; frequency += SWEEP_STEP_HZ) {
+            double gain = gainDb(inputRate, outputRate, frequency, new ScalarResampleKernel());
+            assertTrue(gain < -STOPBAND_ATTENUATION_DB, String.format("%.0f Hz 混疊後的增益為 %.1f dB", frequency, gain));
+        }
+    }
+
+    @Test
+    void vectorKernelMatchesScalarKernel () {
+        ResampleKernel scalar = new ScalarResampleKernel();
+        ResampleKernel vector = new VectorResampleKernel();
+        Random random = new Random(20250423);
+        float[] a = randomSamples(random, 1024);
+        float[] b = randomSamples(random, 1024);
+        for (int length = 0; length <= 200; length++) {
+            int aOffset = random.nextInt(a.length - length + 1);
+            int bOffset = random.nextInt(b.length - length + 1);
+            float expected = scalar.dot(a, aOffset, b, bOffset, length);
+            float actual = vector.dot(a, aOffset, b, bOffset, length);
+            assertEquals(expected, actual, 1e-4f * Math.max(1, length), "長度 " + length);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"44100,16000", "48000,16000", "8000,16000", "22050,16000"})
+    void vectorResamplerMatchesScalarResampler (int inputRate, int outputRate) {
+        float[] input = randomSamples(new Random(inputRate), inputRate / 2);
+        float[] expected = resample(inputRate, outputRate, input, new ScalarResampleKernel(), 4096);
+        float[] actual = resample(inputRate, outputRate, input, new VectorResampleKernel(), 1000);
+        assertEquals(Math.ceilDiv((long) input.length * outputRate, inputRate), expected.length);
+        assertArrayEquals(expected, actual, 1e-5f);
+    }
+
+    /**
+     * 重新採樣正弦波，並以去除頭尾暫態後的均方根計算增益
+     *
+     * @param inputRate  輸入採樣率
+     * @param outputRate 輸出採樣率
+     * @param frequency  正弦波頻率
+     * @param kernel     內積運算核心
+     *
+     * @return 增益，單位為 dB
+     */
+    private static double gainDb (int inputRate, int outputRate, double frequency, ResampleKernel kernel) {
+        float[] input = new float[inputRate];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (float) Math.sin(2 * Math.PI * frequency * i / inputRate);
+        }
+        float[] output = resample(inputRate, outputRate, input, kernel, 4096);
+        int skip = outputRate / 20;
+        double sum = 0;
+        for (int i = skip; i < output.length - skip; i++) {
+            sum += output[i] * output[i];
+        }
+        double rms = Math.sqrt(sum / (output.length - 2 * skip));
+        return 20 * Math.log10(rms * Math.sqrt(2));
+    }
+
+    /**
+     * 以指定的區塊大小串流重新採樣所有樣本
+     *
+     * @param inputRate  輸入採樣率
+     * @param outputRate 輸出採樣率
+     * @param input      輸入樣本
+     * @param kernel     內積運算核心
+     * @param blockSize  每次輸入的樣本數量
+     *
+     * @return 輸出樣本
+     */
+    private static float[] resample (int inputRate, int outputRate, float[] input, ResampleKernel kernel, int blockSize) {
+        PolyphaseResampler resampler = new PolyphaseResampler(inputRate, outputRate, kernel);
+        float[] output = new float[resampler.maxOutputLength(input.length) + resampler.maxFlushLength()];
+        float[] block = new float[blockSize];
+        float[] chunk = new float[Math.max(resampler.maxOutputLength(blockSize), resampler.maxFlushLength())];
+        int written = 0;
+        for (int start = 0; start < input.length; start += blockSize) {
+            int length = Math.min(blockSize, input.length - start);
+            System.arraycopy(input, start, block, 0, length);
+            int produced = resampler.process(block, length, chunk);
+            System.arraycopy(chunk, 0, output, written, produced);
+            written += produced;
+        }
+        int flushed = resampler.flush(chunk);
+        System.arraycopy(chunk, 0, output, written, flushed);
+        return Arrays.copyOf(output, written + flushed);
+    }
+
+    /**
+     * 產生 -1 至 1 之間的隨機樣本
+     *
+     * @param random 隨機數產生器
+     * @param length 樣本數量
+     *
+     * @return 隨機樣本
+     */
+    private static float[] randomSamples (Random random, int length) {
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = random.nextFloat() * 2 - 1;
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.dowob.audiototext.component.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * 測試用的 WAV 檔案產生器，可以指定格式代碼、WAVE_FORMAT_EXTENSIBLE、額外的區塊以及 data 區塊標示的長度
+ */
+class WavFileBuilder {
+    private int formatTag = 1;
+
+    private boolean extensible;
+
+    private int channels = 1;
+
+    private int sampleRate = 16000;
+
+    private int bitsPerSample = 16;
+
+    private byte[] extraChunk;
+
+    private Long declaredDataSize;
+
+    WavFileBuilder format (int formatTag) {
+        this.formatTag = formatTag;
+        return this;
+    }
+
+    WavFileBuilder extensible () {
+        this.extensible = true;
+        return this;
+    }
+
+    WavFileBuilder channels (int channels) {
+        this.channels = channels;
+        return this;
+    }
+
+    WavFileBuilder sampleRate (int sampleRate) {
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    WavFileBuilder bitsPerSample (int bitsPerSample) {
+        this.bitsPerSample = bitsPerSample;
+        return this;
+    }
+
+    /**
+     * 在 fmt 與 data 區塊之間加入一個 LIST 區塊，奇數長度時會補上一個位元組
+     */
+    WavFileBuilder extraChunk (int size) {
+        this.extraChunk = new byte[size];
+        return this;
+    }
+
+    /**
+     * data 區塊標示的長度，未指定時為實際的資料長度
+     */
+    WavFileBuilder declaredDataSize (long size) {
+        this.declaredDataSize = size;
+        return this;
+    }
+
+    int blockAlign () {
+        return channels * bitsPerSample / 8;
+    }
+
+    File write (File file, byte[] data) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int fmtSize = extensible ? 40 : 16;
+        ByteBuffer fmt = ByteBuffer.allocate(8 + fmtSize).order(ByteOrder.LITTLE_ENDIAN);
+        fmt.putInt(0x20746d66).putInt(fmtSize).putShort((short) (extensible ? 0xFFFE : formatTag)).putShort((short) channels).putInt(sampleRate)
+           .putInt(sampleRate * blockAlign()).putShort((short) blockAlign()).putShort((short) bitsPerSample);
+        if (extensible) {
+            fmt.putShort((short) 22).putShort((short) bitsPerSample).putInt(0).putShort((short) formatTag);
+            fmt.put(new byte[] {0x00, 0x00, 0x00, 0x00, 0x10, 0x00, (byte) 0x80, 0x00, 0x00, (byte) 0xAA, 0x00, 0x38, (byte) 0x9B, 0x71});
+        }
+        body.write(fmt.array());
+        if (extraChunk != null) {
+            body.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(0x5453494c).putInt(extraChunk.length).array());
+            body.write(extraChunk);
+            if ((extraChunk.length & 1) == 1) {
+                body.write(0);
+            }
+        }
+        long dataSize = declaredDataSize == null ? data.length : declaredDataSize;
+        body.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(0x61746164).putInt((int) dataSize).array());
+        body.write(data);
+        ByteBuffer riff = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN).putInt(0x46464952).putInt(4 + body.size()).putInt(0x45564157);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(riff.array());
+        body.writeTo(content);
+        Files.write(file.toPath(), content.toByteArray());
+        return file;
+    }
+}
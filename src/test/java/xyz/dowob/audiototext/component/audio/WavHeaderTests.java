@@ -0,0 +1,100 @@
+package xyz.dowob.audiototext.component.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * WavHeader 的測試，涵蓋各種位元數、浮點格式、WAVE_FORMAT_EXTENSIBLE、奇數長度區塊的補位以及未知長度的 data 區塊
+ */
+class WavHeaderTests {
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @CsvSource({"8,pcm_u8", "16,pcm_s16le", "24,pcm_s24le", "32,pcm_s32le"})
+    void integerPcmIsConvertible (int bits, String codecName) throws IOException {
+        WavFileBuilder builder = new WavFileBuilder().channels(2).sampleRate(44100).bitsPerSample(bits);
+        File file = builder.write(tempDir.resolve("pcm.wav").toFile(), new byte[builder.blockAlign() * 10]);
+        WavHeader header = WavHeader.probe(file).orElseThrow();
+        assertTrue(header.pcm());
+        assertEquals(2, header.channels());
+        assertEquals(44100, header.sampleRate());
+        assertEquals(bits, header.bitsPerSample());
+        assertEquals(builder.blockAlign() * 10L, header.dataLength());
+        assertEquals(codecName, header.codecName());
+        assertTrue(header.isConvertible(16000, 1));
+        assertTrue(header.isCanonical(file.length()));
+        assertEquals(bits == 16, header.isPcm16(44100, 2));
+    }
+
+    @Test
+    void floatInputIsNotTreatedAsPcm () throws IOException {
+        WavFileBuilder builder = new WavFileBuilder().format(3).bitsPerSample(32);
+        File file = builder.write(tempDir.resolve("float.wav").toFile(), new byte[40]);
+        WavHeader header = WavHeader.probe(file).orElseThrow();
+        assertEquals(3, header.formatTag());
+        assertFalse(header.pcm());
+        assertFalse(header.isConvertible(16000, 1));
+        assertFalse(header.isCanonical(file.length()));
+    }
+
+    @Test
+    void extensibleFormatUsesSubFormat () throws IOException {
+        File pcmFile = new WavFileBuilder().extensible().bitsPerSample(24).write(tempDir.resolve("extensible.wav").toFile(), new byte[30]);
+        WavHeader pcm = WavHeader.probe(pcmFile).orElseThrow();
+        assertEquals(0xFFFE, pcm.formatTag());
+        assertTrue(pcm.pcm());
+        assertTrue(pcm.isConvertible(16000, 1));
+        assertFalse(pcm.isCanonical(pcmFile.length()), "WAVE_FORMAT_EXTENSIBLE 需要重寫標頭");
+
+        File floatFile = new WavFileBuilder().extensible().format(3).bitsPerSample(32).write(tempDir.resolve("extensible-float.wav").toFile(), new byte[40]);
+        assertFalse(WavHeader.probe(floatFile).orElseThrow().pcm());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 8})
+    void chunksBeforeDataArePaddedToEvenSize (int extraSize) throws IOException {
+        File file = new WavFileBuilder().extraChunk(extraSize).write(tempDir.resolve("list.wav").toFile(), new byte[20]);
+        WavHeader header = WavHeader.probe(file).orElseThrow();
+        assertEquals(WavHeader.CANONICAL_HEADER_SIZE + 8 + extraSize + (extraSize & 1), header.dataOffset());
+        assertEquals(20, header.dataLength());
+        assertEquals(file.length(), header.dataOffset() + header.dataLength());
+        assertFalse(header.isCanonical(file.length()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 0xFFFFFFFFL, 1_000_000})
+    void unknownOrOversizedDataSizeExtendsToEndOfFile (long declaredSize) throws IOException {
+        File file = new WavFileBuilder().channels(2).declaredDataSize(declaredSize).write(tempDir.resolve("stream.wav").toFile(), new byte[4 * 25 + 3]);
+        WavHeader header = WavHeader.probe(file).orElseThrow();
+        assertEquals(WavHeader.CANONICAL_HEADER_SIZE, header.dataOffset());
+        assertEquals(4 * 25, header.dataLength(), "長度應延伸至檔案結尾並捨去不完整的音框");
+    }
+
+    @Test
+    void declaredDataSizeWithinFileIsKept () throws IOException {
+        File file = new WavFileBuilder().declaredDataSize(10).write(tempDir.resolve("trailing.wav").toFile(), new byte[30]);
+        WavHeader header = WavHeader.probe(file).orElseThrow();
+        assertEquals(10, header.dataLength());
+        assertFalse(header.isCanonical(file.length()));
+    }
+
+    @Test
+    void nonWavFileIsRejected () throws IOException {
+        File file = tempDir.resolve("not.wav").toFile();
+        Files.write(file.toPath(), "ID3 not a riff file at all".getBytes());
+        assertTrue(WavHeader.probe(file).isEmpty());
+    }
+}
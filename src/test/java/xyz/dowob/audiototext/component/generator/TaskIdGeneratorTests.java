@@ -0,0 +1,69 @@
+package xyz.dowob.audiototext.component.generator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TaskIdGenerator 的測試，驗證產生的 UUID 第 7 版嚴格遞增、版本與變體位元正確，以及併發產生時不重複
+ */
+class TaskIdGeneratorTests {
+    private static final int COUNT = 100_000;
+
+    private final TaskIdGenerator generator = new TaskIdGenerator();
+
+    @Test
+    void idsAreStrictlyIncreasing () {
+        String previous = generator.nextId();
+        for (int i = 0; i < COUNT; i++) {
+            String current = generator.nextId();
+            assertTrue(current.compareTo(previous) > 0, String.format("%s 應大於 %s", current, previous));
+            previous = current;
+        }
+    }
+
+    @Test
+    void idsHaveVersionSevenAndRfcVariant () {
+        long before = System.currentTimeMillis();
+        for (int i = 0; i < COUNT; i++) {
+            UUID uuid = generator.nextUuid();
+            assertEquals(7, uuid.version());
+            assertEquals(2, uuid.variant());
+            assertTrue(uuid.getMostSignificantBits() >>> 16 >= before, "時間戳應不早於產生前的時間");
+        }
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread () throws Exception {
+        int threads = 8;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futureList = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futureList.add(executor.submit(() -> {
+                    String previous = "";
+                    for (int i = 0; i < COUNT / threads; i++) {
+                        String current = generator.nextId();
+                        assertTrue(current.compareTo(previous) > 0);
+                        assertTrue(ids.add(current), "重複的 ID: " + current);
+                        previous = current;
+                    }
+                }));
+            }
+            for (Future<?> future : futureList) {
+                future.get();
+            }
+        }
+        assertEquals(COUNT, ids.size());
+    }
+}
@@ -0,0 +1,142 @@
+package xyz.dowob.audiototext.component.punctuation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TextWindowSplitter 的測試，驗證短文本、視窗大小整數倍的文本、最小重疊，以及拼接時在視窗交界處不會遺漏或重複單字
+ */
+class TextWindowSplitterTests {
+    @Test
+    void textShorterThanWindowIsSingleWindow () {
+        String text = "hello world again";
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(text, 10, 4);
+        assertEquals(1, windowList.size());
+        assertEquals(new TextWindowSplitter.Window(text, 3, 0, 3), windowList.getFirst());
+        assertEquals("Hello world again.", TextWindowSplitter.stitch(windowList, List.of("Hello world again.")));
+    }
+
+    @Test
+    void textOfExactlyOneWindowIsNotSplit () {
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(8), 8, 2);
+        assertEquals(1, windowList.size());
+        assertEquals(8, windowList.getFirst().wordCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 5})
+    void exactWindowMultiplesEndWithFullWindow (int extraWindows) {
+        int windowSize = 10;
+        int overlap = 4;
+        int wordCount = windowSize + extraWindows * (windowSize - overlap);
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(wordCount), windowSize, overlap);
+        assertEquals(extraWindows + 1, windowList.size());
+        windowList.forEach(window -> assertEquals(windowSize, window.wordCount()));
+        assertEquals(words(wordCount), stitchWithLabels(windowList));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 30, 40})
+    void multiplesOfWindowSizeKeepEveryWord (int wordCount) {
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(wordCount), 10, 3);
+        assertEquals(words(wordCount), stitchWithLabels(windowList));
+    }
+
+    @Test
+    void minimumOverlapDropsOnlyWindowEdges () {
+        int windowSize = 6;
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(25), windowSize, TextWindowSplitter.MIN_OVERLAP);
+        for (int i = 0; i < windowList.size(); i++) {
+            TextWindowSplitter.Window window = windowList.get(i);
+            if (i > 0) {
+                assertEquals(1, window.keepFrom(), "非第一個視窗應捨棄開頭的單字");
+            }
+            if (i < windowList.size() - 1) {
+                assertEquals(window.wordCount() - 1, window.keepTo(), "非最後一個視窗應捨棄結尾的單字");
+            }
+        }
+        assertEquals(words(25), stitchWithLabels(windowList));
+    }
+
+    @Test
+    void invalidOverlapIsRejected () {
+        assertThrows(IllegalArgumentException.class, () -> TextWindowSplitter.split(words(20), 10, TextWindowSplitter.MIN_OVERLAP - 1));
+        assertThrows(IllegalArgumentException.class, () -> TextWindowSplitter.split(words(20), 10, 10));
+    }
+
+    @Test
+    void stitchingNeverDropsOrDuplicatesWords () {
+        for (int windowSize = 3; windowSize <= 12; windowSize++) {
+            for (int overlap = TextWindowSplitter.MIN_OVERLAP; overlap < windowSize; overlap++) {
+                for (int wordCount = 1; wordCount <= 60; wordCount++) {
+                    List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(wordCount), windowSize, overlap);
+                    String message = String.format("單字數量 %d，視窗大小 %d，重疊 %d", wordCount, windowSize, overlap);
+                    windowList.forEach(window -> assertTrue(window.keepFrom() < window.keepTo(), message));
+                    assertEquals(words(wordCount), stitchWithLabels(windowList), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    void stitchedWordsCarryLabelsFromKeptWindow () {
+        List<TextWindowSplitter.Window> windowList = TextWindowSplitter.split(words(14), 6, 2);
+        assertEquals("w0#0 w1#0 w2#0 w3#0 w4#0 w5#1 w6#1 w7#1 w8#1 w9#2 w10#2 w11#2 w12#2 w13#2", TextWindowSplitter.stitch(windowList, labelByWindow(windowList)));
+    }
+
+    /**
+     * 以標記視窗序號的方式模擬標點符號恢復，拼接後移除標記，並確認每個單字的標記來自保留該單字的視窗
+     *
+     * @param windowList 文字視窗列表
+     *
+     * @return 移除標記後的文本
+     */
+    private static String stitchWithLabels (List<TextWindowSplitter.Window> windowList) {
+        String stitched = TextWindowSplitter.stitch(windowList, labelByWindow(windowList));
+        if (windowList.size() == 1) {
+            return stitched.replace("#0", "");
+        }
+        List<String> labeled = splitWords(stitched);
+        int previousWindow = 0;
+        for (String token : labeled) {
+            int window = Integer.parseInt(token.substring(token.indexOf('#') + 1));
+            assertTrue(window >= previousWindow, "拼接結果應依照視窗順序: " + stitched);
+            previousWindow = window;
+        }
+        return labeled.stream().map(token -> token.substring(0, token.indexOf('#'))).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * 模擬標點符號恢復的結果，在每個單字後方加上所屬視窗的序號
+     *
+     * @param windowList 文字視窗列表
+     *
+     * @return 各視窗的結果
+     */
+    private static List<String> labelByWindow (List<TextWindowSplitter.Window> windowList) {
+        List<String> resultList = new ArrayList<>();
+        for (int i = 0; i < windowList.size(); i++) {
+            int index = i;
+            resultList.add(splitWords(windowList.get(i).text()).stream().map(word -> word + "#" + index).collect(Collectors.joining(" ")));
+        }
+        return resultList;
+    }
+
+    private static String words (int count) {
+        return IntStream.range(0, count).mapToObj(i -> "w" + i).collect(Collectors.joining(" "));
+    }
+
+    private static List<String> splitWords (String text) {
+        return List.of(text.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,141 @@
+package xyz.dowob.audiototext.component.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HierarchicalTimerWheel 的測試，與逐一比對到期時間的暴力實作比較，涵蓋跨層下放、溢出列表以及取消與重新排程
+ */
+class HierarchicalTimerWheelTests {
+    /**
+     * 第 0 層至第 3 層每格涵蓋的刻度數
+     */
+    private static final long LEVEL_1 = 1L << 6;
+
+    private static final long LEVEL_2 = 1L << 12;
+
+    private static final long LEVEL_3 = 1L << 18;
+
+    /**
+     * 超過此範圍的事件會放入溢出列表
+     */
+    private static final long WHEEL_RANGE = 1L << 24;
+
+    @Test
+    void matchesBruteForceWithRandomScheduleCancelAndAdvance () {
+        Random random = new Random(20250419);
+        long now = 123_456_789L;
+        HierarchicalTimerWheel<Integer> wheel = new HierarchicalTimerWheel<>(1, now);
+        Map<Integer, Long> expected = new HashMap<>();
+        long[] ranges = {LEVEL_1, LEVEL_2, LEVEL_3, WHEEL_RANGE, WHEEL_RANGE * 4};
+        int nextItem = 0;
+        for (; nextItem < 20_000; nextItem++) {
+            long deadline = now - 10 + (long) (random.nextDouble() * ranges[random.nextInt(ranges.length)]);
+            wheel.schedule(nextItem, deadline);
+            expected.put(nextItem, deadline);
+        }
+        long end = now + WHEEL_RANGE * 5;
+        while (now < end) {
+            now += 1 + random.nextInt(50_000);
+            List<Integer> fired = wheel.advance(now);
+            Set<Integer> expectedFired = new HashSet<>();
+            for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+                if (entry.getValue() <= now) {
+                    expectedFired.add(entry.getKey());
+                }
+            }
+            assertEquals(expectedFired.size(), fired.size(), "到期事件不應重複或遺漏，目前時間: " + now);
+            assertEquals(expectedFired, new HashSet<>(fired), "目前時間: " + now);
+            expectedFired.forEach(expected::remove);
+            List<Integer> pending = new ArrayList<>(expected.keySet());
+            for (int i = 0; i < 5 && !pending.isEmpty(); i++) {
+                Integer item = pending.remove(random.nextInt(pending.size()));
+                if (random.nextBoolean()) {
+                    assertTrue(wheel.cancel(item));
+                    expected.remove(item);
+                } else {
+                    long deadline = now + (long) (random.nextDouble() * ranges[random.nextInt(ranges.length)]);
+                    wheel.schedule(item, deadline);
+                    expected.put(item, deadline);
+                }
+            }
+            for (int i = 0; i < 5; i++, nextItem++) {
+                long deadline = now + (long) (random.nextDouble() * ranges[random.nextInt(ranges.length)]);
+                wheel.schedule(nextItem, deadline);
+                expected.put(nextItem, deadline);
+            }
+            assertEquals(expected.size(), wheel.size());
+        }
+        List<Integer> rest = wheel.advance(now + WHEEL_RANGE * 4);
+        assertEquals(expected.keySet(), new HashSet<>(rest));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesAcrossEveryLevelAtExactTick () {
+        HierarchicalTimerWheel<Long> wheel = new HierarchicalTimerWheel<>(1, 0);
+        long[] deadlines = {LEVEL_1 - 1, LEVEL_1, LEVEL_1 + 1, LEVEL_2, LEVEL_2 + LEVEL_1 + 3, LEVEL_3, LEVEL_3 + LEVEL_2 + LEVEL_1 + 1, WHEEL_RANGE - 1};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        long now = 0;
+        for (long deadline : deadlines) {
+            assertTrue(wheel.advance(deadline - 1).isEmpty(), "不應提前到期: " + deadline);
+            assertEquals(List.of(deadline), wheel.advance(deadline));
+            now = deadline;
+        }
+        assertTrue(wheel.advance(now + WHEEL_RANGE).isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overflowEventsFireAfterSeveralRotations () {
+        long start = WHEEL_RANGE / 3;
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(1, start);
+        long first = start + WHEEL_RANGE + 7;
+        long second = start + WHEEL_RANGE * 3 + LEVEL_2 + 5;
+        wheel.schedule("first", first);
+        wheel.schedule("second", second);
+        assertTrue(wheel.advance(first - 1).isEmpty());
+        assertEquals(List.of("first"), wheel.advance(first));
+        assertTrue(wheel.advance(second - 1).isEmpty());
+        assertEquals(List.of("second"), wheel.advance(second));
+    }
+
+    @Test
+    void cancelAndRescheduleReplacePendingEvent () {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(1000, 0);
+        wheel.schedule("cancelled", 5_000);
+        wheel.schedule("moved", 3_000);
+        wheel.schedule("moved", 200_000);
+        assertEquals(2, wheel.size());
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(199_999).isEmpty());
+        assertEquals(List.of("moved"), wheel.advance(200_000));
+        assertFalse(wheel.cancel("moved"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesRoundUpToNextTickAndPastDeadlinesFireImmediately () {
+        HierarchicalTimerWheel<String> wheel = new HierarchicalTimerWheel<>(1000, 10_000);
+        wheel.schedule("past", 9_000);
+        wheel.schedule("partial", 11_500);
+        assertEquals(List.of("past"), wheel.advance(10_000));
+        assertTrue(wheel.advance(11_999).isEmpty());
+        assertEquals(List.of("partial"), wheel.advance(12_000));
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.dowob.audiototext.component.upload;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UploadSession 的測試，驗證已接收範圍的合併 (重疊、相鄰、亂序)、超出宣告大小的分段被拒絕，以及寫入期間不會被視為閒置
+ */
+class UploadSessionTests {
+    private static final int SIZE = 100;
+
+    @TempDir
+    Path tempDir;
+
+    private UploadSession uploadSession;
+
+    private byte[] content;
+
+    @BeforeEach
+    void setUp () throws IOException {
+        content = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            content[i] = (byte) i;
+        }
+        uploadSession = new UploadSession("upload", tempDir.resolve("upload").toFile(), SIZE, null, null, null, false);
+    }
+
+    @AfterEach
+    void tearDown () throws IOException {
+        uploadSession.close();
+    }
+
+    @Test
+    void outOfOrderChunksMergeIntoSingleRange () throws IOException {
+        write(60, 100);
+        write(20, 40);
+        write(0, 20);
+        assertEquals(List.of("0-39", "60-99"), uploadSession.getReceivedRangeList());
+        assertFalse(uploadSession.isComplete());
+        write(40, 60);
+        assertEquals(List.of("0-99"), uploadSession.getReceivedRangeList());
+        assertTrue(uploadSession.isComplete());
+        uploadSession.close();
+        assertArrayEquals(content, Files.readAllBytes(uploadSession.getFile().toPath()));
+    }
+
+    @Test
+    void adjacentChunksMerge () throws IOException {
+        write(10, 20);
+        write(20, 30);
+        assertEquals(List.of("10-29"), uploadSession.getReceivedRangeList());
+        write(0, 10);
+        assertEquals(List.of("0-29"), uploadSession.getReceivedRangeList());
+        assertEquals(30, uploadSession.getReceivedBytes());
+    }
+
+    @Test
+    void overlappingChunksAreCountedOnce () throws IOException {
+        write(10, 30);
+        write(50, 60);
+        write(20, 55);
+        assertEquals(List.of("10-59"), uploadSession.getReceivedRangeList());
+        write(0, 100);
+        assertEquals(List.of("0-99"), uploadSession.getReceivedRangeList());
+        assertEquals(SIZE, uploadSession.getReceivedBytes());
+        write(40, 45);
+        assertEquals(List.of("0-99"), uploadSession.getReceivedRangeList());
+    }
+
+    @Test
+    void rangesOutsideDeclaredSizeAreRejected () {
+        assertThrows(IllegalArgumentException.class, () -> uploadSession.write(90, SIZE + 1, new ByteArrayInputStream(new byte[11])));
+        assertThrows(IllegalArgumentException.class, () -> uploadSession.write(-1, 10, new ByteArrayInputStream(new byte[11])));
+        assertThrows(IllegalArgumentException.class, () -> uploadSession.write(10, 10, new ByteArrayInputStream(new byte[0])));
+        assertEquals(0, uploadSession.getReceivedBytes());
+    }
+
+    @Test
+    void contentLongerThanRangeKeepsOnlyWrittenPart () {
+        assertThrows(IOException.class, () -> uploadSession.write(0, 10, new ByteArrayInputStream(content)));
+        assertTrue(uploadSession.getReceivedBytes() <= 10);
+    }
+
+    @Test
+    void shortContentRecordsOnlyReceivedBytes () throws IOException {
+        assertEquals(5, uploadSession.write(0, 20, new ByteArrayInputStream(content, 0, 5)));
+        assertEquals(List.of("0-4"), uploadSession.getReceivedRangeList());
+    }
+
+    @Test
+    void sessionIsNotIdleWhileChunkIsBeingWritten () throws Exception {
+        PipedOutputStream sender = new PipedOutputStream();
+        InputStream receiver = new PipedInputStream(sender);
+        CompletableFuture<Long> writing = CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadSession.write(0, SIZE, receiver);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sender.write(content, 0, 10);
+        sender.flush();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (receiver.available() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, receiver.available(), "分段內容應已被讀取");
+        assertFalse(uploadSession.isIdleSince(Instant.now().plusSeconds(60)), "寫入期間不應視為閒置");
+        sender.write(content, 10, SIZE - 10);
+        sender.close();
+        assertEquals(SIZE, writing.get());
+        assertTrue(uploadSession.isIdleSince(Instant.now().plusSeconds(60)));
+        assertFalse(uploadSession.isIdleSince(Instant.now().minusSeconds(60)));
+    }
+
+    private void write (int start, int end) throws IOException {
+        assertEquals(end - start, uploadSession.write(start, end, new ByteArrayInputStream(content, start, end - start)));
+    }
+}
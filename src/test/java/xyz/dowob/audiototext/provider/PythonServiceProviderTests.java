@@ -0,0 +1,222 @@
+package xyz.dowob.audiototext.provider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import xyz.dowob.audiototext.config.AudioProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * PythonServiceProvider 的併發測試，使用每個請求固定等待 200 毫秒的測試腳本取代標點符號模型，批次請求每多一段文本只增加 10 毫秒
+ * 驗證多個呼叫者同時提交任務，以及單一長文本切分為多個視窗時，N 個 Python 處理器可以得到約 N 倍的吞吐量
+ * 並驗證不同併發數量下，合併批次可以明顯提升單一處理器的吞吐量，以及終止的 Python 進程會被重新啟動
+ * 以及任務等待時處理器數量會增加至最大數量，閒置後退役至最小數量
+ */
+class PythonServiceProviderTests {
+    private static final int REQUESTS = 24;
+
+    @TempDir
+    Path scriptDirectory;
+
+    @Test
+    void throughputScalesWithWorkerCount () throws Exception {
+        Path python = findPython();
+        assumeTrue(python != null, "未偵測到 Python 3 環境");
+        prepareScriptDirectory(python);
+
+        long single = measure(1, 1, REQUESTS);
+        long triple = measure(3, 1, REQUESTS);
+        double speedup = (double) single / triple;
+        assertTrue(speedup > 2.2, String.format("3 個處理器的吞吐量應約為 1 個處理器的 3 倍，實際為 %.2f 倍", speedup));
+    }
+
+    @Test
+    void windowedTranscriptScalesWithWorkerCount () throws Exception {
+        Path python = findPython();
+        assumeTrue(python != null, "未偵測到 Python 3 環境");
+        prepareScriptDirectory(python);
+
+        long single = measureWindows(1);
+        long triple = measureWindows(3);
+        double speedup = (double) single / triple;
+        assertTrue(speedup > 2.2, String.format("3 個處理器處理長文本的速度應約為 1 個處理器的 3 倍，實際為 %.2f 倍", speedup));
+    }
+
+    @Test
+    void batchingImprovesThroughputUnderConcurrency () throws Exception {
+        Path python = findPython();
+        assumeTrue(python != null, "未偵測到 Python 3 環境");
+        prepareScriptDirectory(python);
+
+        for (int callers : new int[]{8, REQUESTS}) {
+            long unbatched = measure(1, 1, callers);
+            long batched = measure(1, 8, callers);
+            double speedup = (double) unbatched / batched;
+            assertTrue(speedup > 2, String.format("%d 個呼叫者時批次處理的吞吐量應明顯提升，實際為 %.2f 倍", callers, speedup));
+        }
+    }
+
+    @Test
+    void crashedWorkerIsRestarted () throws Exception {
+        Path python = findPython();
+        assumeTrue(python != null, "未偵測到 Python 3 環境");
+        prepareScriptDirectory(python);
+
+        PythonServiceProvider provider = startProvider(2, 1);
+        try {
+            provider.getProcessIds().forEach(pid -> ProcessHandle.of(pid).ifPresent(process -> {
+                process.destroyForcibly();
+                process.onExit().join();
+            }));
+            provider.superviseHandlers();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            String result = null;
+            while (result == null && System.nanoTime() < deadline) {
+                try {
+                    result = provider.getPunctuationResult("after restart", "task-restart");
+                } catch (RuntimeException e) {
+                    Thread.sleep(100);
+                }
+            }
+            assertEquals("after restart.", result);
+        } finally {
+            provider.destroy();
+        }
+    }
+
+    private long measureWindows (int workers) throws Exception {
+        PythonServiceProvider provider = startProvider(workers, 1);
+        try {
+            List<String> windowList = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                windowList.add("window " + i);
+            }
+            long start = System.nanoTime();
+            List<String> resultList = provider.getPunctuationResults(windowList, "task-windowed");
+            long elapsed = System.nanoTime() - start;
+            for (int i = 0; i < REQUESTS; i++) {
+                assertEquals("window " + i + ".", resultList.get(i));
+            }
+            return elapsed;
+        } finally {
+            provider.destroy();
+        }
+    }
+
+    private long measure (int workers, int batchSize, int callers) throws Exception {
+        PythonServiceProvider provider = startProvider(workers, batchSize);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < callers; i++) {
+                String text = "text " + i;
+                results.add(executor.submit(() -> provider.getPunctuationResult(text, "task-" + text)));
+            }
+            for (int i = 0; i < callers; i++) {
+                assertEquals("text " + i + ".", results.get(i).get());
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdownNow();
+            provider.destroy();
+        }
+    }
+
+    @Test
+    void poolScalesWithQueuePressure () throws Exception {
+        Path python = findPython();
+        assumeTrue(python != null, "未偵測到 Python 3 環境");
+        prepareScriptDirectory(python);
+
+        AudioProperties audioProperties = new AudioProperties();
+        audioProperties.getThreshold().setMinPythonProcess(1);
+        audioProperties.getThreshold().setMaxPythonProcess(3);
+        audioProperties.getThreshold().setPunctuationBatchSize(1);
+        audioProperties.getThreshold().setPythonScaleUpWait(100);
+        audioProperties.getThreshold().setPythonIdleTimeout(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PythonServiceProvider provider = new PythonServiceProvider(audioProperties, meterRegistry);
+        provider.startProcessHandlers(scriptDirectory.toFile(), "python3");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            assertEquals(1, poolSize(meterRegistry));
+            List<Future<String>> futureList = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                String taskId = "task-" + i;
+                futureList.add(executor.submit(() -> provider.getPunctuationResult("hello world", taskId)));
+            }
+            int maxPoolSize = 1;
+            while (!futureList.stream().allMatch(Future::isDone)) {
+                provider.scalePool();
+                maxPoolSize = Math.max(maxPoolSize, poolSize(meterRegistry));
+                Thread.sleep(200);
+            }
+            for (Future<String> future : futureList) {
+                assertEquals("hello world.", future.get());
+            }
+            assertEquals(3, maxPoolSize, "任務等待時應增加處理器至最大數量");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (poolSize(meterRegistry) > 1 && System.nanoTime() < deadline) {
+                provider.scalePool();
+                Thread.sleep(200);
+            }
+            assertEquals(1, poolSize(meterRegistry), "閒置的處理器應退役至最小數量");
+            assertEquals("after scale down.", provider.getPunctuationResult("after scale down", "task-after"));
+        } finally {
+            provider.destroy();
+        }
+    }
+
+    private int poolSize (MeterRegistry meterRegistry) {
+        return (int) meterRegistry.get("python.handler.pool.size").gauge().value();
+    }
+
+    private PythonServiceProvider startProvider (int workers, int batchSize) throws IOException {
+        AudioProperties audioProperties = new AudioProperties();
+        audioProperties.getThreshold().setMaxPythonProcess(workers);
+        audioProperties.getThreshold().setMinPythonProcess(workers);
+        audioProperties.getThreshold().setPunctuationBatchSize(batchSize);
+        PythonServiceProvider provider = new PythonServiceProvider(audioProperties, new SimpleMeterRegistry());
+        provider.startProcessHandlers(scriptDirectory.toFile(), "python3");
+        return provider;
+    }
+
+    private void prepareScriptDirectory (Path python) throws IOException {
+        try (InputStream is = Objects.requireNonNull(getClass().getResourceAsStream("/python/PunctuationRestoration.py"))) {
+            Files.copy(is, scriptDirectory.resolve("PunctuationRestoration.py"));
+        }
+        Path bin = Files.createDirectories(scriptDirectory.resolve(".venv").resolve("bin"));
+        Files.createSymbolicLink(bin.resolve("python3"), python);
+    }
+
+    private Path findPython () {
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            return null;
+        }
+        for (String directory : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+            Path candidate = Path.of(directory, "python3");
+            if (Files.isExecutable(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
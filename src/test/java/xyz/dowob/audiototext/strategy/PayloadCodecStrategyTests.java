@@ -0,0 +1,126 @@
+package xyz.dowob.audiototext.strategy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import xyz.dowob.audiototext.component.codec.DeflatePayloadCodec;
+import xyz.dowob.audiototext.component.codec.NonePayloadCodec;
+import xyz.dowob.audiototext.config.AudioProperties;
+import xyz.dowob.audiototext.entity.TaskResult;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PayloadCodecStrategy 的測試，驗證 deflate 與 none 編碼的往返 (空白、短、長以及中日韓文字內容)，以及沒有編碼名稱的舊資料可以直接讀取
+ */
+class PayloadCodecStrategyTests {
+    private AudioProperties audioProperties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PayloadCodecStrategy payloadCodecStrategy;
+
+    @BeforeEach
+    void setUp () {
+        audioProperties = new AudioProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        payloadCodecStrategy = new PayloadCodecStrategy(List.of(new DeflatePayloadCodec(), new NonePayloadCodec()), audioProperties, meterRegistry);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"deflate", "none"})
+    void emptyContentRoundTrips (String codec) throws IOException {
+        assertRoundTrip(codec, "");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"deflate", "none"})
+    void smallContentRoundTrips (String codec) throws IOException {
+        assertRoundTrip(codec, "{\"text\":\"hi\"}");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"deflate", "none"})
+    void cjkContentRoundTrips (String codec) throws IOException {
+        assertRoundTrip(codec, "{\"text\":\"今天天氣很好，我們去公園散步。東京の天気は晴れです。안녕하세요 😀\"}");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"deflate", "none"})
+    void largeContentRoundTrips (String codec) throws IOException {
+        StringBuilder builder = new StringBuilder("{\"segments\":[");
+        Random random = new Random(20250414);
+        for (int i = 0; i < 20_000; i++) {
+            builder.append(String.format("{\"text\":\"片段 %d %08x\",\"start_time\":%.2f,\"end_time\":%.2f},", i, random.nextInt(), i * 1.5, i * 1.5 + 1.2));
+        }
+        builder.append("{}]}");
+        String content = builder.toString();
+        TaskResult taskResult = assertRoundTrip(codec, content);
+        if ("deflate".equals(codec)) {
+            assertTrue(taskResult.getPayload().length < content.getBytes(StandardCharsets.UTF_8).length / 2, "重複的 JSON 內容應被壓縮");
+        }
+    }
+
+    @Test
+    void legacyRowWithoutCodecIsReadAsIs () throws IOException {
+        TaskResult legacy = new TaskResult("{\"text\":\"舊資料 legacy\"}");
+        assertNull(legacy.getCodec());
+        assertEquals("{\"text\":\"舊資料 legacy\"}", payloadCodecStrategy.decode(legacy));
+    }
+
+    @Test
+    void rowsStoredWithOtherCodecStillDecodeAfterChangingSetting () throws IOException {
+        audioProperties.getService().setResultCodec("none");
+        TaskResult stored = payloadCodecStrategy.encode("未壓縮的內容");
+        audioProperties.getService().setResultCodec("deflate");
+        assertEquals("none", stored.getCodec());
+        assertEquals("未壓縮的內容", payloadCodecStrategy.decode(stored));
+    }
+
+    @Test
+    void corruptedOrTruncatedPayloadIsRejected () {
+        byte[] payload = new DeflatePayloadCodec().encode("內容 content ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> payloadCodecStrategy.decode(new TaskResult("deflate", Arrays.copyOf(payload, payload.length / 2))));
+        assertThrows(IOException.class, () -> payloadCodecStrategy.decode(new TaskResult("deflate", "not deflate".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IllegalStateException.class, () -> payloadCodecStrategy.decode(new TaskResult("zstd", payload)));
+    }
+
+    @Test
+    void encodeRecordsStoredAndRawBytes () throws IOException {
+        payloadCodecStrategy.encode("a".repeat(1000));
+        assertEquals(1000, meterRegistry.get("task.result.bytes").tag("codec", "deflate").tag("type", "raw").counter().count());
+        assertTrue(meterRegistry.get("task.result.bytes").tag("codec", "deflate").tag("type", "stored").counter().count() < 1000);
+    }
+
+    /**
+     * 以指定的編碼方式編碼後還原，並確認內容相同
+     *
+     * @param codec   編碼方式
+     * @param content 任務結果內容
+     *
+     * @return 編碼後的任務結果實體
+     */
+    private TaskResult assertRoundTrip (String codec, String content) throws IOException {
+        audioProperties.getService().setResultCodec(codec);
+        TaskResult taskResult = payloadCodecStrategy.encode(content);
+        assertEquals(codec, taskResult.getCodec());
+        assertNull(taskResult.getContent());
+        if ("none".equals(codec)) {
+            assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), taskResult.getPayload());
+        }
+        assertEquals(content, payloadCodecStrategy.decode(taskResult));
+        return taskResult;
+    }
+}
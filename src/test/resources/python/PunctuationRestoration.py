@@ -0,0 +1,36 @@
+import json
+import sys
+import time
+
+# 測試用的標點符號恢復腳本，不載入模型，每個請求固定等待一段時間以模擬模型推論
+DELAY = 0.2
+BATCH_ITEM_DELAY = 0.01
+
+
+def main():
+    while True:
+        line = sys.stdin.readline()
+        if not line:
+            break
+        data = json.loads(line)
+        text = data.get("text", "")
+        taskId = data.get("taskId", "")
+        if data.get("type") == "ping":
+            print(json.dumps({"type": "pong", "requestId": data.get("requestId")}))
+            sys.stdout.flush()
+            continue
+        if "batch" in data:
+            # 批次推論的耗時主要來自固定成本，每多一段文本只增加少量時間
+            time.sleep(DELAY + BATCH_ITEM_DELAY * len(data["batch"]))
+            results = [{"isSuccess": True, "restoredText": item.get("text", "") + "."} for item in data["batch"]]
+            print(json.dumps({"isSuccess": True, "results": results, "taskId": taskId, "requestId": data.get("requestId")}))
+            sys.stdout.flush()
+            continue
+        if not (text == "test" and taskId == "test-init"):
+            time.sleep(DELAY)
+        print(json.dumps({"isSuccess": True, "restoredText": text + ".", "taskId": taskId, "requestId": data.get("requestId")}))
+        sys.stdout.flush()
+
+
+if __name__ == "__main__":
+    main()